@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 벤치마크 실행기입니다. 처리량과 함께 연산 당 메모리 할당량 (gc.alloc.rate.norm) 을 보고하도록 GC profiler 를 항상 켭니다.
+ * <pre>
+ *     mvn install                                  (lucene-korean)
+ *     cd lucene-korean-benchmarks && mvn package
+ *     java -jar target/benchmarks.jar              (모든 벤치마크)
+ *     java -jar target/benchmarks.jar Morph        (이름에 Morph 가 들어간 벤치마크만)
+ * </pre>
+ * 인자는 JMH 의 명령행 옵션과 같습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmdOptions);
+        if (cmdOptions.getIncludes().isEmpty())
+            builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        builder.addProfiler(GCProfiler.class);
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.benchmark;
+
+import org.apache.lucene.analysis.kr.morph.MorphException;
+import org.apache.lucene.analysis.kr.morph.WordEntry;
+import org.apache.lucene.analysis.kr.utils.DictionaryUtil;
+import org.apache.lucene.analysis.kr.utils.MorphUtil;
+import org.apache.lucene.analysis.kr.utils.SyllableUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사전, 음절 정보 조회와 자모 분해 같은 가장 아래 단계의 연산을 측정합니다.
+ * <p/>
+ * 연산 한번에 예문의 어절 (또는 음절) 하나를 처리하며, 스레드마다 순서대로 돌아가며 사용합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DictionaryBenchmark {
+
+    private String[] eojeols;
+    private String[] nouns;
+    private char[] syllables;
+
+    private int eojeolUpto;
+    private int nounUpto;
+    private int syllableUpto;
+
+    @Setup
+    public void setup() throws MorphException {
+        SampleCorpus corpus = SampleCorpus.getInstance();
+        eojeols = corpus.getEojeols();
+        nouns = corpus.getNouns();
+        syllables = corpus.getSyllables();
+
+        // 사전 로드는 측정하지 않는다.
+        DictionaryUtil.getWord(eojeols[0]);
+        SyllableUtil.getFeature(syllables[0]);
+    }
+
+    /** 어절 전체로 사전을 찾는다. (대부분 사전에 없는 경우) */
+    @Benchmark
+    public WordEntry dictionaryGetWord() throws MorphException {
+        String word = eojeols[eojeolUpto];
+        eojeolUpto = (eojeolUpto + 1) % eojeols.length;
+        return DictionaryUtil.getWord(word);
+    }
+
+    /** 명사 후보로 명사 사전을 찾는다. */
+    @Benchmark
+    public WordEntry dictionaryGetNoun() throws MorphException {
+        String word = nouns[nounUpto];
+        nounUpto = (nounUpto + 1) % nouns.length;
+        return DictionaryUtil.getNoun(word);
+    }
+
+    @Benchmark
+    public char[] syllableGetFeature() throws MorphException {
+        char ch = syllables[syllableUpto];
+        syllableUpto = (syllableUpto + 1) % syllables.length;
+        return SyllableUtil.getFeature(ch);
+    }
+
+    @Benchmark
+    public char[] morphUtilDecompose() {
+        char ch = syllables[syllableUpto];
+        syllableUpto = (syllableUpto + 1) % syllables.length;
+        return MorphUtil.decompose(ch);
+    }
+}
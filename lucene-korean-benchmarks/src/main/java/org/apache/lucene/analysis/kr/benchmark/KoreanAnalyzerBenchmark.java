@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.benchmark;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.AnalysisProfile;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link KoreanAnalyzer} 의 전체 token stream 을 측정합니다. 연산 한번에 예문 한 문장의 토큰을 모두 소비합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KoreanAnalyzerBenchmark {
+
+    @Param({ "INDEX", "QUERY" })
+    public AnalysisProfile profile;
+
+    private KoreanAnalyzer analyzer;
+    private String[] sentences;
+    private int sentenceUpto;
+
+    @Setup
+    public void setup() throws IOException {
+        analyzer = new KoreanAnalyzer(profile);
+        sentences = SampleCorpus.getInstance().getSentences();
+    }
+
+    @TearDown
+    public void tearDown() {
+        analyzer.close();
+    }
+
+    @Benchmark
+    public int tokenStream(Blackhole blackhole) throws IOException {
+        String sentence = sentences[sentenceUpto];
+        sentenceUpto = (sentenceUpto + 1) % sentences.length;
+
+        TokenStream stream = analyzer.reusableTokenStream("text", new StringReader(sentence));
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        int tokens = 0;
+        stream.reset();
+        while (stream.incrementToken()) {
+            blackhole.consume(termAtt);
+            tokens++;
+        }
+        stream.end();
+        return tokens;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.benchmark;
+
+import org.apache.lucene.analysis.kr.morph.*;
+import org.apache.lucene.analysis.kr.utils.SynonymUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 어절 단위의 분석 단계 (형태소 분석, 복합명사 분해, 띄어쓰기 복원, 동의어 조회) 를 측정합니다.
+ * <p/>
+ * 분석기는 스레드마다 하나씩 만들어서 {@link org.apache.lucene.analysis.kr.KoreanFilter} 와 같은 방식으로 재사용합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MorphAnalyzerBenchmark {
+
+    private final MorphAnalyzer morphAnalyzer = new MorphAnalyzer();
+    private final CompoundNounAnalyzer compoundNounAnalyzer = new CompoundNounAnalyzer();
+    private final WordSpaceAnalyzer wordSpaceAnalyzer = new WordSpaceAnalyzer();
+
+    private String[] eojeols;
+    private String[] nouns;
+    private String[] unspaced;
+
+    private int eojeolUpto;
+    private int nounUpto;
+    private int unspacedUpto;
+
+    @Setup
+    public void setup() throws MorphException {
+        SampleCorpus corpus = SampleCorpus.getInstance();
+        eojeols = corpus.getEojeols();
+        nouns = corpus.getNouns();
+        unspaced = corpus.getUnspaced();
+
+        // 사전 로드는 측정하지 않는다.
+        morphAnalyzer.analyze(eojeols[0]);
+        SynonymUtil.getSynonym(nouns[0]);
+    }
+
+    @Benchmark
+    public List<AnalysisOutput> morphAnalyzerAnalyze() throws MorphException {
+        String word = eojeols[eojeolUpto];
+        eojeolUpto = (eojeolUpto + 1) % eojeols.length;
+        return morphAnalyzer.analyze(word);
+    }
+
+    @Benchmark
+    public List<CompoundEntry> compoundNounAnalyze() throws MorphException {
+        String word = nouns[nounUpto];
+        nounUpto = (nounUpto + 1) % nouns.length;
+        return compoundNounAnalyzer.analyze(word);
+    }
+
+    @Benchmark
+    public List<AnalysisOutput> wordSpaceAnalyze() throws MorphException {
+        String sentence = unspaced[unspacedUpto];
+        unspacedUpto = (unspacedUpto + 1) % unspaced.length;
+        return wordSpaceAnalyzer.analyze(sentence);
+    }
+
+    @Benchmark
+    public Set<String> synonymGetSynonym() throws MorphException {
+        String word = nouns[nounUpto];
+        nounUpto = (nounUpto + 1) % nouns.length;
+        return SynonymUtil.getSynonym(word);
+    }
+}
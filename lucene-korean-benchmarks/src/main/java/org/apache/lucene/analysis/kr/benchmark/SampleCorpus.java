@@ -0,0 +1,144 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * 벤치마크에 사용하는 예문 (corpus/korean-sample.txt) 입니다.
+ * 예문 파일은 lucene-korean 의 src/test/resources 에 있는 것을 빌드할 때 jar 에 넣습니다.
+ * <p/>
+ * 문장, 어절, 음절, 복합명사 후보, 띄어쓰기가 없는 문장으로 나누어 제공하며, 모두 한번만 읽어서 공유합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class SampleCorpus {
+
+    public static final String RESOURCE = "corpus/korean-sample.txt";
+
+    private static final SampleCorpus INSTANCE = load();
+
+    private final String[] sentences;
+    private final String[] unspaced;
+    private final String[] eojeols;
+    private final String[] nouns;
+    private final char[] syllables;
+
+    private SampleCorpus(List<String> lines) {
+        List<String> spaced = new ArrayList<String>();
+        List<String> unspacedLines = new ArrayList<String>();
+        Set<String> words = new LinkedHashSet<String>();
+        Set<String> nounSet = new LinkedHashSet<String>();
+        Set<Character> chars = new LinkedHashSet<Character>();
+
+        for (String line : lines) {
+            if (line.indexOf(' ') < 0) unspacedLines.add(line);
+            else spaced.add(line);
+
+            for (String word : line.split("\\s+")) {
+                word = stripPunctuation(word);
+                if (word.length() == 0)
+                    continue;
+                words.add(word);
+                // 조사, 어미를 떼지 않은 어절 앞부분을 명사 후보로 쓴다.
+                if (word.length() >= 4)
+                    nounSet.add(word.substring(0, word.length() - 1));
+            }
+            for (int i = 0; i < line.length(); i++) {
+                char ch = line.charAt(i);
+                if (ch >= 0xAC00 && ch <= 0xD7A3)
+                    chars.add(ch);
+            }
+        }
+
+        this.sentences = spaced.toArray(new String[spaced.size()]);
+        this.unspaced = unspacedLines.toArray(new String[unspacedLines.size()]);
+        this.eojeols = words.toArray(new String[words.size()]);
+        this.nouns = nounSet.toArray(new String[nounSet.size()]);
+        this.syllables = new char[chars.size()];
+        int i = 0;
+        for (Character ch : chars) {
+            syllables[i++] = ch;
+        }
+    }
+
+    public static SampleCorpus getInstance() {
+        return INSTANCE;
+    }
+
+    /** 띄어쓰기가 된 문장들 */
+    public String[] getSentences() {
+        return sentences;
+    }
+
+    /** 띄어쓰기가 없는 문장들 ({@link org.apache.lucene.analysis.kr.morph.WordSpaceAnalyzer} 용) */
+    public String[] getUnspaced() {
+        return unspaced;
+    }
+
+    /** 문장부호를 뗀 어절들 (중복 제거) */
+    public String[] getEojeols() {
+        return eojeols;
+    }
+
+    /** 4음절 이상 어절의 마지막 음절을 뗀 문자열 (복합명사 후보) */
+    public String[] getNouns() {
+        return nouns;
+    }
+
+    /** 예문에 나오는 한글 음절들 (중복 제거) */
+    public char[] getSyllables() {
+        return syllables;
+    }
+
+    private static String stripPunctuation(String word) {
+        int end = word.length();
+        while (end > 0 && !Character.isLetterOrDigit(word.charAt(end - 1))) {
+            end--;
+        }
+        return word.substring(0, end);
+    }
+
+    private static SampleCorpus load() {
+        InputStream in = SampleCorpus.class.getClassLoader().getResourceAsStream(RESOURCE);
+        if (in == null)
+            throw new IllegalStateException("예문 파일을 찾을 수 없습니다. resource=" + RESOURCE);
+
+        List<String> lines = new ArrayList<String>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charset.forName("UTF-8")));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() > 0 && !line.startsWith("#"))
+                        lines.add(line);
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("예문 파일을 읽는데 실패했습니다. resource=" + RESOURCE, e);
+        }
+        return new SampleCorpus(lines);
+    }
+}
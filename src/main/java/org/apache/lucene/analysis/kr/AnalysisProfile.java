@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr;
+
+/**
+ * {@link KoreanAnalyzer} 의 분석 프로파일입니다.
+ * <p/>
+ * 색인 시에는 재현율을 위해 모든 단계를 수행하고,
+ * 검색 시에는 짧은 질의에 효과가 적은 띄어쓰기 복원과 원어절 색인어를 생략하고 분석 결과를 캐시합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public enum AnalysisProfile {
+
+    /** 색인용: 띄어쓰기 복원, 원어절 색인어를 모두 사용합니다. */
+    INDEX(true, true, 0),
+
+    /** 검색용: 띄어쓰기 복원과 원어절 색인어를 생략하고, 어절 분석 결과를 캐시합니다. */
+    QUERY(false, false, 512);
+
+    private final boolean wordSpacing;
+    private final boolean hasOrigin;
+    private final int analysisCacheSize;
+
+    AnalysisProfile(boolean wordSpacing, boolean hasOrigin, int analysisCacheSize) {
+        this.wordSpacing = wordSpacing;
+        this.hasOrigin = hasOrigin;
+        this.analysisCacheSize = analysisCacheSize;
+    }
+
+    /** 분석에 실패한 어절에 {@link org.apache.lucene.analysis.kr.morph.WordSpaceAnalyzer} 로 띄어쓰기를 복원할지 여부 */
+    public boolean isWordSpacing() {
+        return wordSpacing;
+    }
+
+    /** 원어절을 색인어로 출력할지 여부 */
+    public boolean isHasOrigin() {
+        return hasOrigin;
+    }
+
+    /** {@link KoreanFilter} 마다 캐시할 어절 분석 결과의 수, 0 이면 캐시하지 않는다. */
+    public int getAnalysisCacheSize() {
+        return analysisCacheSize;
+    }
+}
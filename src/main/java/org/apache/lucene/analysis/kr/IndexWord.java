@@ -29,6 +29,8 @@ public class IndexWord implements Serializable {
 
     private String word;
     private int offset = 0;
+    /** 토큰 타입, null 이면 기본 타입 */
+    private String type;
 
     public IndexWord() { }
 
@@ -37,6 +39,11 @@ public class IndexWord implements Serializable {
         this.offset = pos;
     }
 
+    public IndexWord(String word, int pos, String type) {
+        this(word, pos);
+        this.type = type;
+    }
+
     public String getWord() {
         return word;
     }
@@ -53,7 +60,15 @@ public class IndexWord implements Serializable {
         this.offset = offset;
     }
 
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
     public String toString() {
-        return String.format("IndexWord# word=[%s], offset=[%d]", word, offset);
+        return String.format("IndexWord# word=[%s], offset=[%d], type=[%s]", word, offset, type);
     }
 }
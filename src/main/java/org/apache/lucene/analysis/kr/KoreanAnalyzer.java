@@ -18,6 +18,8 @@ package org.apache.lucene.analysis.kr;
 
 
 import org.apache.lucene.analysis.*;
+import org.apache.lucene.analysis.kr.utils.DictionaryUtil;
+import org.apache.lucene.analysis.kr.utils.SynonymUtil;
 import org.apache.lucene.util.Version;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,12 +58,18 @@ public class KoreanAnalyzer extends StopwordAnalyzerBase {
 
     private boolean bigrammable = true;
 
+    private int nGramSize = KoreanNGramFilter.DEFAULT_GRAM_SIZE;
+
+    private int taggingWindow = 0;
+
     private boolean hasOrigin = true;
 
     private boolean exactMatch = false;
 
     private boolean originCNoun = true;
 
+    private final AnalysisProfile profile;
+
     public static final String DIC_ENCODING = "UTF-8";
 
     /**
@@ -88,6 +96,13 @@ public class KoreanAnalyzer extends StopwordAnalyzerBase {
         this(Version.LUCENE_36, STOP_WORDS_SET);
     }
 
+    /**
+     * 분석 프로파일을 지정합니다. 검색어 분석에는 {@link AnalysisProfile#QUERY} 를 사용합니다.
+     */
+    public KoreanAnalyzer(AnalysisProfile profile) {
+        this(Version.LUCENE_36, STOP_WORDS_SET, profile);
+    }
+
     /** 검색을 위한 형태소분석 */
     public KoreanAnalyzer(boolean exactMatch) {
         this(Version.LUCENE_36, STOP_WORDS_SET);
@@ -126,8 +141,15 @@ public class KoreanAnalyzer extends StopwordAnalyzerBase {
 
     /** Builds an analyzer with the stop words from the given reader. */
     public KoreanAnalyzer(Version matchVersion, Set<?> stopWords) {
+        this(matchVersion, stopWords, AnalysisProfile.INDEX);
+    }
+
+    /** Builds an analyzer with the stop words and the analysis profile. */
+    public KoreanAnalyzer(Version matchVersion, Set<?> stopWords, AnalysisProfile profile) {
         super(matchVersion, stopWords);
         replaceInvalidAcronym = true; // matchVersion.onOrAfter(Version.LUCENE_36);
+        this.profile = profile;
+        this.hasOrigin = profile.isHasOrigin();
     }
 
     @Override
@@ -135,23 +157,47 @@ public class KoreanAnalyzer extends StopwordAnalyzerBase {
         if (isDebugEnabled)
             log.debug("TokenStreamComponents를 생성합니다. fieldName=[{}]", fieldName);
 
+        // 사전을 다시 로드하면 (예: 동의어 사전) 필터들을 다시 만든다.
+        final int generation = DictionaryUtil.getGeneration();
         final KoreanTokenizer src = new KoreanTokenizer(matchVersion, reader);
         src.setMaxTokenLength(maxTokenLength);
         //src.setReplaceInvalidAcronym(replaceInvalidAcronym);
 
-        TokenStream tok = new KoreanFilter(src, bigrammable, hasOrigin, exactMatch);
+        TokenStream tagged = src;
+        if (taggingWindow > 0) {
+            KoreanTaggingFilter taggingFilter = new KoreanTaggingFilter(src, taggingWindow);
+            taggingFilter.setBigrammable(bigrammable);
+            taggingFilter.setHasOrigin(hasOrigin);
+            tagged = taggingFilter;
+        }
+
+        KoreanFilter koreanFilter = new KoreanFilter(tagged, bigrammable, exactMatch, profile);
+        koreanFilter.setHasOrigin(hasOrigin);
+        koreanFilter.setOriginCNoun(originCNoun);
+        TokenStream tok = koreanFilter;
+        if (bigrammable) {
+            koreanFilter.setNGramFilterFollows(true);
+            tok = new KoreanNGramFilter(tok, nGramSize);
+        }
         tok = new LowerCaseFilter(matchVersion, tok);
+        tok = new KoreanSynonymFilter(tok, SynonymUtil.getSynonymMap());
         tok = new StopFilter(matchVersion, tok, stopwords);
 
         return new TokenStreamComponents(src, tok) {
             @Override
             protected boolean reset(final Reader reader) throws IOException {
+                if (generation != DictionaryUtil.getGeneration())
+                    return false;
                 src.setMaxTokenLength(KoreanAnalyzer.this.maxTokenLength);
                 return super.reset(reader);
             }
         };
     }
 
+    public AnalysisProfile getProfile() {
+        return profile;
+    }
+
     /**
      * determine whether the bigram index term is returned or not if a input word is failed to analysis
      * If true is set, the bigram index term is returned. If false is set, the bigram index term is not returned.
@@ -160,6 +206,21 @@ public class KoreanAnalyzer extends StopwordAnalyzerBase {
         bigrammable = is;
     }
 
+    /** the gram size used when a input word is failed to analysis. (default 2) */
+    public void setNGramSize(int size) {
+        if (size < 2)
+            throw new IllegalArgumentException("nGramSize must be greater than 1. size=" + size);
+        nGramSize = size;
+    }
+
+    /**
+     * if size is greater than 0, only the analysis selected by the tagger is indexed for each korean word.
+     * size is the lookahead window used to find the next korean word. (default 0, disabled)
+     */
+    public void setTaggingWindow(int size) {
+        taggingWindow = size;
+    }
+
     /** determin whether the original term is returned or not if a input word is analyzed morphically. */
     public void setHasOrigin(boolean has) {
         hasOrigin = has;
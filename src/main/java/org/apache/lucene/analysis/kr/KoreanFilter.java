@@ -16,15 +16,17 @@
 
 package org.apache.lucene.analysis.kr;
 
-import com.google.common.collect.ImmutableList;
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.metrics.AnalysisMetrics;
+import org.apache.lucene.analysis.kr.metrics.Fallback;
+import org.apache.lucene.analysis.kr.metrics.SlowAnalysisRecorder;
+import org.apache.lucene.analysis.kr.metrics.Stage;
 import org.apache.lucene.analysis.kr.morph.*;
 import org.apache.lucene.analysis.kr.utils.DictionaryUtil;
-import org.apache.lucene.analysis.kr.utils.HanjaUtils;
-import org.apache.lucene.analysis.kr.utils.SynonymUtil;
 import org.apache.lucene.analysis.standard.ClassicTokenizer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.KeywordAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
@@ -49,12 +51,23 @@ public class KoreanFilter extends TokenFilter {
 
     private boolean bigrammable = true;
 
+    /** true 이면 분석에 실패한 어간에 타입만 표시하고, n-gram 은 뒤에 있는 {@link KoreanNGramFilter} 가 만든다. */
+    private boolean nGramFilterFollows = false;
+
     private boolean hasOrigin = true;
 
     private boolean originCNoun = true;
 
     private boolean exactMatch = false;
 
+    private boolean wordSpacing = true;
+
+    /** 한글 어절 -> 추출한 색인어, null 이면 캐시하지 않는다. */
+    private Map<String, List<IndexWord>> analysisCache;
+
+    /** analysisCache 의 분석 결과를 만든 사전의 세대 ({@link DictionaryUtil#getGeneration()}) */
+    private int cacheGeneration;
+
     private char[] curTermBuffer;
 
     private int curTermLength;
@@ -69,12 +82,15 @@ public class KoreanFilter extends TokenFilter {
 
     private int chStart = 0;
 
-    private CompoundNounAnalyzer cnAnalyzer = new CompoundNounAnalyzer();
+    private HanjaWordConverter hanjaConverter = new HanjaWordConverter();
+
+    private List<CompoundEntry> hanjaSegments = new ArrayList<CompoundEntry>();
 
     private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
     private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
     private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
     private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final KeywordAttribute keywordAtt = addAttribute(KeywordAttribute.class);
 
     private static final String APOSTROPHE_TYPE = ClassicTokenizer.TOKEN_TYPES[ClassicTokenizer.APOSTROPHE];
     private static final String ACRONYM_TYPE = ClassicTokenizer.TOKEN_TYPES[ClassicTokenizer.ACRONYM];
@@ -88,12 +104,12 @@ public class KoreanFilter extends TokenFilter {
         morphQueue = new LinkedList<IndexWord>();
         morph = new MorphAnalyzer();
         wsAnal = new WordSpaceAnalyzer();
-        cnAnalyzer.setExactMach(false);
     }
 
     /**
      * @param input  input token stream
      * @param bigram Whether the bigram index term return or not.
+     *               {@link #setNGramFilterFollows(boolean)} 를 켜면 bigram 대신 타입만 표시한다.
      */
     public KoreanFilter(TokenStream input, boolean bigram) {
         this(input);
@@ -115,6 +131,13 @@ public class KoreanFilter extends TokenFilter {
         this.originCNoun = cnoun;
     }
 
+    /** 분석 프로파일에 맞게 설정한다. */
+    public KoreanFilter(TokenStream input, boolean bigram, boolean match, AnalysisProfile profile) {
+        this(input, bigram, profile.isHasOrigin(), match);
+        this.wordSpacing = profile.isWordSpacing();
+        setAnalysisCacheSize(profile.getAnalysisCacheSize());
+    }
+
     @Override
     public final boolean incrementToken() throws IOException {
 
@@ -126,43 +149,31 @@ public class KoreanFilter extends TokenFilter {
         if (!input.incrementToken())
             return false;
 
+        // 앞 단계 (예: KoreanTaggingFilter) 에서 이미 분석한 토큰은 그대로 통과시킨다.
+        if (keywordAtt.isKeyword())
+            return true;
+
         curTermBuffer = termAtt.buffer().clone();
         curTermLength = termAtt.length();
         tokStart = offsetAtt.startOffset();
         curType = typeAtt.type();
+        AnalysisMetrics.token(curType);
 
+        String term = new String(curTermBuffer, 0, curTermLength);
+        long start = SlowAnalysisRecorder.begin();
         try {
             if (KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOREAN].equals(curType)) {
-                analysisKorean(new String(curTermBuffer, 0, termAtt.length()));
+                analysisKorean(term);
             } else if (KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.CHINESE].equals(curType)) {
-                analysisChinese(new String(curTermBuffer, 0, termAtt.length()));
+                analysisChinese(term);
             } else {
-                analysisETC(new String(curTermBuffer, 0, termAtt.length()));
+                analysisETC(term);
             }
-
-            ImmutableList<IndexWord> indexWords = ImmutableList.copyOf(morphQueue);
-
-            for (IndexWord indexWord : indexWords) {
-                String word = indexWord.getWord();
-                for (String syn : SynonymUtil.getSynonym(word)) {
-                    if (!word.equals(syn)) {
-                        if (isTraceEnabled)
-                            log.trace("동의어를 추가합니다. word=[{}], syn=[{}]", word, syn);
-                        morphQueue.add(new IndexWord(syn, indexWord.getOffset()));
-                    }
-                }
-            }
-
-//            for (String syn : SynonymUtil.getSynonym(text)) {
-//                if (!text.equals(syn)) {
-//                    if (isTraceEnabled)
-//                        log.trace("동의어를 추가합니다. text=[{}], 동의어=[{}]", text, syn);
-//                    morphQueue.add(new IndexWord(syn, 0));
-//                }
-//            }
         } catch (MorphException e) {
             log.error("MorphException이 발생했습니다.", e);
             throw new IOException("Korean Filter MorphException\n" + e.getMessage(), e);
+        } finally {
+            SlowAnalysisRecorder.end(term, start);
         }
 
         if (morphQueue != null && morphQueue.size() > 0) {
@@ -181,8 +192,10 @@ public class KoreanFilter extends TokenFilter {
         IndexWord iw = morphQueue.removeFirst();
         int pos = iw.getOffset();
 
-        termAtt.copyBuffer(iw.getWord().toCharArray(), 0, iw.getWord().length());
+        termAtt.setEmpty().append(iw.getWord());
         offsetAtt.setOffset(tokStart + pos, tokStart + pos + iw.getWord().length());
+        if (iw.getType() != null)
+            typeAtt.setType(iw.getType());
 
         if (!isFirst && iw.getOffset() == 0) {
             posIncrAtt.setPositionIncrement(0);
@@ -202,17 +215,37 @@ public class KoreanFilter extends TokenFilter {
         if (isTraceEnabled)
             log.trace("한글을 분석합니다. input=[{}]", input);
 
+        if (analysisCache != null) {
+            // 사전을 다시 로드했으면 이전 사전으로 분석한 결과를 버린다.
+            int generation = DictionaryUtil.getGeneration();
+            if (generation != cacheGeneration) {
+                analysisCache.clear();
+                cacheGeneration = generation;
+            }
+            List<IndexWord> cached = analysisCache.get(input);
+            if (cached != null) {
+                morphQueue.addAll(cached);
+                return;
+            }
+        }
+
         List<AnalysisOutput> outputs = morph.analyze(input);
         if (outputs.size() == 0) return;
 
         Map<String, IndexWord> map = new LinkedHashMap();
         if (hasOrigin) map.put(input, new IndexWord(input, 0));
 
-        if (outputs.get(0).getScore() >= AnalysisOutput.SCORE_COMPOUNDS) {
+        if (outputs.get(0).getScore() < AnalysisOutput.SCORE_COMPOUNDS)
+            AnalysisMetrics.fallback(Fallback.UNKNOWN);
+
+        if (outputs.get(0).getScore() >= AnalysisOutput.SCORE_COMPOUNDS || !wordSpacing) {
             extractKeyword(outputs, map);
         } else {
             try {
+                AnalysisMetrics.fallback(Fallback.WORD_SPACING);
+                long start = AnalysisMetrics.start();
                 List<AnalysisOutput> list = wsAnal.analyze(input);
+                AnalysisMetrics.stop(Stage.WORD_SPACE, start);
                 List<AnalysisOutput> results = new ArrayList<AnalysisOutput>();
 
                 if (list.size() > 1) {
@@ -232,13 +265,18 @@ public class KoreanFilter extends TokenFilter {
             }
         }
 
+        List<IndexWord> words = new ArrayList<IndexWord>(map.size());
         for (String text : map.keySet()) {
             if (text.length() <= 1) continue;
-            morphQueue.add(map.get(text));
+            words.add(map.get(text));
 
             if (isTraceEnabled)
                 log.trace("큐에 추출한 인덱스를 추가합니다. indexWord=[{}]", map.get(text));
         }
+        morphQueue.addAll(words);
+
+        if (analysisCache != null)
+            analysisCache.put(input, words);
     }
 
     private void extractKeyword(List<AnalysisOutput> outputs, Map<String, IndexWord> map) throws MorphException {
@@ -280,55 +318,68 @@ public class KoreanFilter extends TokenFilter {
                     start += cnoun.getWord().length();
                 }
             } else if (bigrammable) {
-                addBiagramToMap(output.getStem(), map);
+                if (nGramFilterFollows)
+                    markNGram(output.getStem(), map);
+                else
+                    addBigramToMap(output.getStem(), map);
             }
         }
     }
 
-    private void addBiagramToMap(String input, Map<String, IndexWord> map) {
+    /** 분석에 실패한 어간을 bigram 으로 잘라서 맵에 추가한다. 영문/숫자가 연속된 부분은 자르지 않는다. */
+    private void addBigramToMap(String input, Map<String, IndexWord> map) {
 
         if (isTraceEnabled)
-            log.trace("Biagram을 분석해서 맵에 추가. input=[{}]", input);
+            log.trace("Bigram을 분석해서 맵에 추가. input=[{}]", input);
+
+        AnalysisMetrics.fallback(Fallback.NGRAM);
 
         int offset = 0;
         int strlen = input.length();
 
         while (offset < strlen - 1) {
             if (isAlphaNumChar(input.charAt(offset))) {
-                String text = findAlphaNumeric(input.substring(offset));
+                int end = offset + 1;
+                while (end < strlen && isAlphaNumChar(input.charAt(end)))
+                    end++;
+                String text = input.substring(offset, end);
                 map.put(text, new IndexWord(text, offset));
-                offset += text.length();
+                offset = end;
             } else {
-                String text = input.substring(offset,
-                                              offset + 2 > strlen ? strlen : offset + 2);
+                String text = input.substring(offset, offset + 2 > strlen ? strlen : offset + 2);
                 map.put(text, new IndexWord(text, offset));
                 offset++;
             }
         }
     }
 
-    private String findAlphaNumeric(String text) {
+    private static boolean isAlphaNumChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    /**
+     * 분석에 실패한 어간을 {@link KoreanNGramFilter} 가 n-gram 으로 자르도록 타입을 표시한다.
+     * 어간을 색인어로 추출했다면 어간도 출력하고, 아니면 n-gram 만 출력한다.
+     */
+    private void markNGram(String stem, Map<String, IndexWord> map) {
 
         if (isTraceEnabled)
-            log.trace("AlphaNumeric을 찾습니다. text=[{}]", text);
+            log.trace("n-gram 으로 분석할 어간을 표시합니다. stem=[{}]", stem);
 
-        int pos = 0;
-        for (char c : text.toCharArray()) {
-            if (!isAlphaNumChar(c))
-                break;
-            pos++;
+        AnalysisMetrics.fallback(Fallback.NGRAM);
+
+        IndexWord iw = map.get(stem);
+        if (iw == null) {
+            map.put(stem, new IndexWord(stem, 0, KoreanNGramFilter.TYPE_NGRAM_ONLY));
+        } else if (iw.getType() == null) {
+            iw.setType(KoreanNGramFilter.TYPE_NGRAM);
         }
-//        for (int i = 0; i < text.length(); i++) {
-//            if (!isAlphaNumChar(text.charAt(i)))
-//                break;
-//            pos++;
-//        }
-        return text.substring(0, pos);
     }
 
     /**
      * 한자는 2개이상의 한글 음으로 읽혀질 수 있다.
      * 두음법칙이 아님.
+     * {@link HanjaWordConverter} 로 단어 단위로 한글로 변환하면서 단어를 분리한다.
      *
      * @param term 단어
      * @throws org.apache.lucene.analysis.kr.morph.MorphException
@@ -342,82 +393,32 @@ public class KoreanFilter extends TokenFilter {
         morphQueue.add(new IndexWord(term, 0));
         if (term.length() < 2) return; // 1글자 한자는 색인어로 한글을 추출하지 않는다.
 
-        List<StringBuilder> candiList = new ArrayList();
-        candiList.add(new StringBuilder());
-
-        for (int i = 0; i < term.length(); i++) {
-
-            char[] chs = HanjaUtils.convertToHangul(term.charAt(i));
-            if (chs == null) continue;
-
-            int caniSize = candiList.size();
-            for (int j = 0; j < caniSize; j++) {
-                StringBuilder sb = candiList.get(j);
+        hanjaSegments.clear();
+        long start = AnalysisMetrics.start();
+        String hangul = hanjaConverter.convert(term, hanjaSegments);
+        AnalysisMetrics.stop(Stage.HANJA, start);
+        morphQueue.add(new IndexWord(hangul, 0));
 
-                for (int k = 1; k < chs.length; k++) { // 추가로 생성된 음에 대해서 새로운 텍스트를 생성한다.
-                    if (k == 1) break; // 2개 이상의 음을 가지고 있는 경우 첫번째 음으로만 처리를 한다.
-                    StringBuilder cpSb = new StringBuilder(sb);
-                    cpSb.append(chs[k]);
+        if (hanjaSegments.size() < 2) return;
 
-                    candiList.add(cpSb);
-                }
-
-                sb.append(chs[0]);
-            }
-        }
+        for (CompoundEntry entry : hanjaSegments) {
+            int offset = entry.getOffset();
+            String word = entry.getWord();
 
-        int maxCandidate = 5;
-        if (candiList.size() < maxCandidate) maxCandidate = candiList.size();
+            // 한글과 매치되는 한자를 짤라서 큐에 저장한다.
+            IndexWord indexWord = new IndexWord(term.substring(offset, offset + word.length()), offset);
+            morphQueue.add(indexWord);
 
-        for (int i = 0; i < maxCandidate; i++) {
-            morphQueue.add(new IndexWord(candiList.get(i).toString(), 0));
-        }
-
-        Map<String, String> cnounMap = new HashMap<String, String>();
-
-        // 추출된 명사가 복합명사인 경우 분리한다.
-        for (int i = 0; i < maxCandidate; i++) {
-            List<CompoundEntry> results = confirmCNoun(candiList.get(i).toString());
-
-            int pos = 0;
-            int offset = 0;
-            for (CompoundEntry entry : results) {
-                pos += entry.getWord().length();
-                if (cnounMap.get(entry.getWord()) != null) continue;
-
-                // 한글과 매치되는 한자를 짤라서 큐에 저장한다.
-                IndexWord indexWord = new IndexWord(term.substring(offset, pos), offset);
-                morphQueue.add(indexWord);
-
-                if (isTraceEnabled)
-                    log.trace("한글과 매치되는 한자를 큐에 저장한다. indexWord=[{}]", indexWord);
-
-                cnounMap.put(entry.getWord(), entry.getWord());
-
-                if (entry.getWord().length() < 2) continue; //  한글은 2글자 이상만 저장한다.
+            if (isTraceEnabled)
+                log.trace("한글과 매치되는 한자를 큐에 저장한다. indexWord=[{}]", indexWord);
 
-                // 분리된 한글을 큐에 저장한다.
-                morphQueue.add(new IndexWord(entry.getWord(), offset));
+            if (word.length() < 2) continue; //  한글은 2글자 이상만 저장한다.
 
-                offset = pos;
-            }
+            // 분리된 한글을 큐에 저장한다.
+            morphQueue.add(new IndexWord(word, offset));
         }
     }
 
-    private List<CompoundEntry> confirmCNoun(String input) throws MorphException {
-
-        if (isTraceEnabled)
-            log.trace("한자 명사인지 확인합니다. input=[{}]", input);
-
-        WordEntry cnoun = DictionaryUtil.getCNoun(input);
-        if (cnoun != null && cnoun.getFeature(WordEntry.IDX_NOUN) == '2') {
-            return cnoun.getCompounds();
-        }
-
-        return cnAnalyzer.analyze(input);
-
-    }
-
     private void analysisETC(String term) throws MorphException {
 
         if (isTraceEnabled)
@@ -446,15 +447,59 @@ public class KoreanFilter extends TokenFilter {
         }
     }
 
-    private boolean isAlphaNumChar(int c) {
-        return (c >= 48 && c <= 57) || (c >= 65 && c <= 122);
+    /**
+     * 뒤에 {@link KoreanNGramFilter} 가 있는지 여부 (기본값 false)
+     * <p/>
+     * true 이면 분석에 실패한 어간을 bigram 으로 자르지 않고 {@link KoreanNGramFilter#TYPE_NGRAM} 또는
+     * {@link KoreanNGramFilter#TYPE_NGRAM_ONLY} 타입만 표시한다. {@link KoreanAnalyzer} 는 n-gram 필터를 뒤에 두고 이 값을 켠다.
+     * false 이면 이전처럼 이 필터가 bigram 을 출력한다.
+     */
+    public void setNGramFilterFollows(boolean follows) {
+        nGramFilterFollows = follows;
     }
 
     public void setHasOrigin(boolean has) {
         hasOrigin = has;
+        clearAnalysisCache();
+    }
+
+    /** false 이면 복합명사로 분석한 어절은 복합명사 자체를 색인어로 추출하지 않고 구성 명사만 추출한다. */
+    public void setOriginCNoun(boolean cnoun) {
+        this.originCNoun = cnoun;
+        clearAnalysisCache();
     }
 
     public void setExactMatch(boolean match) {
         this.exactMatch = match;
+        clearAnalysisCache();
+    }
+
+    /** 분석에 실패한 어절의 띄어쓰기를 복원할지 여부 */
+    public void setWordSpacing(boolean wordSpacing) {
+        this.wordSpacing = wordSpacing;
+        clearAnalysisCache();
+    }
+
+    /**
+     * 한글 어절의 분석 결과를 최근에 사용한 순서로 maxSize 개까지 캐시한다. 0 이면 캐시하지 않는다.
+     * 같은 어절이 반복되는 검색어 분석에 사용한다. 사전을 다시 로드하면 ({@link DictionaryUtil#getGeneration()}) 캐시를 비운다.
+     */
+    public void setAnalysisCacheSize(final int maxSize) {
+        if (maxSize <= 0) {
+            analysisCache = null;
+            return;
+        }
+        cacheGeneration = DictionaryUtil.getGeneration();
+        analysisCache = new LinkedHashMap<String, List<IndexWord>>(Math.min(maxSize, 64), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<IndexWord>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private void clearAnalysisCache() {
+        if (analysisCache != null)
+            analysisCache.clear();
     }
 }
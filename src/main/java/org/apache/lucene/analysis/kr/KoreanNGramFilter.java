@@ -0,0 +1,191 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.io.IOException;
+
+/**
+ * 형태소 분석에 실패한 어절을 n-gram 으로 색인하는 필터입니다.
+ * <p/>
+ * {@link KoreanFilter#setNGramFilterFollows(boolean)} 를 켠 {@link KoreanFilter} 는 분석에 실패한 어간에 {@link #TYPE_NGRAM} 또는 {@link #TYPE_NGRAM_ONLY} 타입을 붙여서 내보내고,
+ * 이 필터가 해당 토큰의 term buffer 에서 바로 n-gram 을 잘라서 출력합니다. (substring 이나 중간 Map 을 거치지 않습니다)
+ * <ul>
+ * <li>영문/숫자가 연속된 부분은 자르지 않고 하나의 토큰으로 출력합니다. ({@link #setKeepAlphaNumeric(boolean)})</li>
+ * <li>n-gram 은 문자 종류 (한글, 한자, 영문/숫자, 기타) 의 경계를 넘지 않습니다.</li>
+ * <li>n 보다 짧은 문자열은 그대로, 1글자는 출력하지 않습니다.</li>
+ * </ul>
+ * 첫번째 gram 은 원래 토큰의 위치를 그대로 쓰고, 이후 gram 은 한 위치씩 증가합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class KoreanNGramFilter extends TokenFilter {
+
+    /** n-gram 을 만들고 원래 토큰도 출력합니다. */
+    public static final String TYPE_NGRAM = "NGRAM";
+
+    /** n-gram 만 만들고 원래 토큰은 출력하지 않습니다. */
+    public static final String TYPE_NGRAM_ONLY = "NGRAM_ONLY";
+
+    public static final int DEFAULT_GRAM_SIZE = 2;
+
+    private static final int SCRIPT_ALNUM = 1;
+    private static final int SCRIPT_HANGUL = 2;
+    private static final int SCRIPT_HANJA = 3;
+    private static final int SCRIPT_OTHER = 4;
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+    private final int gramSize;
+    private boolean keepAlphaNumeric = true;
+
+    /** 현재 n-gram 을 만들고 있는 원래 토큰 */
+    private char[] buffer = new char[16];
+    private int length;
+    private int startOffset;
+    private int posIncr;
+    private boolean keepSource;
+
+    /** 다음에 검사할 위치, 남은 gram 이 없으면 -1 */
+    private int upto = -1;
+    private boolean first;
+
+    public KoreanNGramFilter(TokenStream input) {
+        this(input, DEFAULT_GRAM_SIZE);
+    }
+
+    /**
+     * @param input    input token stream
+     * @param gramSize n-gram 의 길이 (2 이상)
+     */
+    public KoreanNGramFilter(TokenStream input, int gramSize) {
+        super(input);
+        if (gramSize < 2)
+            throw new IllegalArgumentException("gramSize must be greater than 1. gramSize=" + gramSize);
+        this.gramSize = gramSize;
+    }
+
+    /** 영문/숫자가 연속된 부분을 자르지 않고 하나의 토큰으로 출력할지 여부 (기본값 true) */
+    public void setKeepAlphaNumeric(boolean keepAlphaNumeric) {
+        this.keepAlphaNumeric = keepAlphaNumeric;
+    }
+
+    public int getGramSize() {
+        return gramSize;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        while (true) {
+            if (upto >= 0 && nextGram())
+                return true;
+
+            if (!input.incrementToken())
+                return false;
+
+            final String type = typeAtt.type();
+            final boolean only = TYPE_NGRAM_ONLY.equals(type);
+            if (!only && !TYPE_NGRAM.equals(type))
+                return true;
+
+            length = termAtt.length();
+            if (buffer.length < length)
+                buffer = new char[ArrayUtil.oversize(length, RamUsageEstimator.NUM_BYTES_CHAR)];
+            System.arraycopy(termAtt.buffer(), 0, buffer, 0, length);
+            startOffset = offsetAtt.startOffset();
+            posIncr = posIncrAtt.getPositionIncrement();
+            keepSource = !only;
+            upto = 0;
+            first = true;
+
+            if (keepSource) {
+                typeAtt.setType(TypeAttribute.DEFAULT_TYPE);
+                first = false;
+                return true;
+            }
+        }
+    }
+
+    /** 현재 토큰의 다음 gram 을 attribute 에 설정합니다. 남은 gram 이 없으면 false 를 반환합니다. */
+    private boolean nextGram() {
+        while (upto < length - 1) {
+            final int start = upto;
+            final int script = scriptOf(buffer[start]);
+
+            int runEnd = start + 1;
+            while (runEnd < length && scriptOf(buffer[runEnd]) == script)
+                runEnd++;
+
+            int end;
+            if (script == SCRIPT_ALNUM && keepAlphaNumeric) {
+                end = runEnd;
+                upto = runEnd;
+            } else {
+                end = Math.min(start + gramSize, runEnd);
+                // 남은 문자열이 n 보다 짧으면 마지막 gram 이므로 run 의 끝으로 건너뛴다.
+                upto = (end == runEnd) ? runEnd : start + 1;
+            }
+
+            final int gramLength = end - start;
+            if (gramLength <= 1)
+                continue;
+            // 원래 토큰을 이미 출력했다면 같은 문자열의 gram 은 중복이다.
+            if (keepSource && gramLength == length)
+                continue;
+
+            clearAttributes();
+            termAtt.copyBuffer(buffer, start, gramLength);
+            offsetAtt.setOffset(startOffset + start, startOffset + end);
+            if (first)
+                posIncrAtt.setPositionIncrement(posIncr);
+            else if (start == 0)
+                posIncrAtt.setPositionIncrement(0);
+            first = false;
+            return true;
+        }
+        upto = -1;
+        return false;
+    }
+
+    private static int scriptOf(char c) {
+        if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))
+            return SCRIPT_ALNUM;
+        if ((c >= 0xAC00 && c <= 0xD7A3) || (c >= 0x1100 && c <= 0x11FF) || (c >= 0x3130 && c <= 0x318F))
+            return SCRIPT_HANGUL;
+        if ((c >= 0x3400 && c <= 0x9FFF) || (c >= 0xF900 && c <= 0xFAFF))
+            return SCRIPT_HANJA;
+        return SCRIPT_OTHER;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        upto = -1;
+        length = 0;
+    }
+}
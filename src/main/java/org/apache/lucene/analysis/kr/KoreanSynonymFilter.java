@@ -19,42 +19,335 @@ package org.apache.lucene.analysis.kr;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.lucene.analysis.TokenFilter;
 import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.kr.morph.MorphException;
-import org.apache.lucene.analysis.kr.utils.SynonymUtil;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.kr.metrics.AnalysisMetrics;
+import org.apache.lucene.analysis.kr.metrics.Stage;
+import org.apache.lucene.analysis.kr.utils.SynonymMap;
+import org.apache.lucene.analysis.tokenattributes.*;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.AttributeSource;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.fst.FST;
 
 import java.io.IOException;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 
 /**
- * org.apache.lucene.analysis.KoreanSynonymFilter
+ * 형태소 분석 결과에 동의어를 추가하는 필터입니다.
+ * <p/>
+ * {@link SynonymMap} 의 FST 를 한 번 탐색해서 여러 토큰에 걸친 동의어까지 찾고 (가장 긴 것 우선),
+ * 찾은 동의어는 원래 토큰과 같은 위치에 쌓아서 (position increment = 0) 출력합니다.
+ * 같은 위치에 쌓인 토큰 (예: 원어절과 어간) 중 어느 것이든 동의어의 단어로 매칭될 수 있습니다.
+ * 여러 단어로 이루어진 동의어는 i 번째 단어를 입력의 i 번째 위치에 쌓습니다.
+ * <p/>
+ * 동의어 사전은 소문자로 정규화되어 있으므로 {@link org.apache.lucene.analysis.LowerCaseFilter} 다음에 두어야 합니다.
  *
  * @author 배성혁 sunghyouk.bae@gmail.com
  * @since 13. 4. 27. 오전 1:41
  */
 @Slf4j
-public class KoreanSynonymFilter extends TokenFilter {
+public final class KoreanSynonymFilter extends TokenFilter {
+
+    /** 동의어 토큰의 타입 */
+    public static final String TYPE_SYNONYM = "SYNONYM";
 
     private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+    private final PositionLengthAttribute posLenAtt = addAttribute(PositionLengthAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+    private final SynonymMap synonyms;
+    private final FST<Long> fst;
+    private final FST.BytesReader fstReader;
+
+    /** 아직 출력하지 않은 위치들 (첫번째가 현재 위치) */
+    private final LinkedList<Slot> slots = new LinkedList<Slot>();
+    private final List<Slot> freeSlots = new ArrayList<Slot>();
+
+    /** 다음 위치의 첫번째 토큰 (이미 input 에서 읽은 것) */
+    private AttributeSource.State peeked;
+    private boolean exhausted;
+
+    private Slot current;
+    private int stateUpto;
+    private int outputUpto;
 
-    /** Construct a token stream filtering the given input. */
-    protected KoreanSynonymFilter(TokenStream input) {
+    // 매칭 중 상태
+    private final FST.Arc<Long>[] scratchArcs;
+    private final FST.Arc<Long>[] originArcs;
+    private int bestLength;
+    private int bestOrdinal;
+    private int bestEndOffset;
+
+    public KoreanSynonymFilter(TokenStream input, SynonymMap synonyms) {
         super(input);
+        this.synonyms = synonyms;
+        this.fst = synonyms.getFst();
+        this.fstReader = (fst == null) ? null : fst.getBytesReader(0);
+
+        this.scratchArcs = newArcs(synonyms.getMaxHorizontalContext());
+        this.originArcs = newArcs(synonyms.getMaxHorizontalContext());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FST.Arc<Long>[] newArcs(int size) {
+        FST.Arc<Long>[] arcs = (FST.Arc<Long>[]) new FST.Arc<?>[Math.max(1, size)];
+        for (int i = 0; i < arcs.length; i++) {
+            arcs[i] = new FST.Arc<Long>();
+        }
+        return arcs;
     }
 
     @Override
     public boolean incrementToken() throws IOException {
-        if (input.incrementToken()) {
-            try {
-                Set<String> words = SynonymUtil.getSynonym(termAtt.toString());
-                for (String word : words) {
-                    termAtt.append(word);
+        if (fst == null)
+            return input.incrementToken();
+
+        while (true) {
+            if (current != null) {
+                if (stateUpto < current.stateCount) {
+                    restoreState(current.states[stateUpto++]);
+                    return true;
+                }
+                if (outputUpto < current.outputs.size()) {
+                    emitOutput(current, current.outputs.get(outputUpto++));
+                    return true;
                 }
-            } catch (MorphException e) {
+                releaseSlot(current);
+                current = null;
+            }
+
+            if (slots.isEmpty() && !readSlot())
                 return false;
+
+            current = slots.removeFirst();
+            stateUpto = 0;
+            outputUpto = 0;
+
+            if (!current.covered && current.stateCount > 0) {
+                long start = AnalysisMetrics.start();
+                matchAt(current);
+                AnalysisMetrics.stop(Stage.SYNONYM, start);
             }
-            return true;
         }
-        return false;
+    }
+
+    private void emitOutput(Slot slot, PendingOutput output) {
+        clearAttributes();
+        termAtt.setEmpty().append(output.word);
+        offsetAtt.setOffset(output.startOffset, output.endOffset);
+        // 입력이 끝난 뒤에 추가된 위치라면 첫 동의어가 위치를 증가시킨다.
+        posIncrAtt.setPositionIncrement((slot.stateCount == 0 && outputUpto == 1) ? 1 : 0);
+        posLenAtt.setPositionLength(output.positionLength);
+        typeAtt.setType(TYPE_SYNONYM);
+    }
+
+    /** 현재 위치에서 시작하는 가장 긴 동의어를 찾아서, 동의어의 각 단어를 해당 위치에 추가합니다. */
+    private void matchAt(Slot head) throws IOException {
+        bestLength = 0;
+        bestOrdinal = -1;
+        bestEndOffset = 0;
+
+        FST.Arc<Long> start = fst.getFirstArc(scratchArcs[0]);
+        match(0, start, 0L);
+
+        if (bestLength == 0)
+            return;
+
+        if (log.isTraceEnabled())
+            log.trace("동의어를 찾았습니다. length=[{}], ordinal=[{}]", bestLength, bestOrdinal);
+
+        for (int i = 1; i < bestLength; i++) {
+            slots.get(i - 1).covered = true;
+        }
+
+        int startOffset = head.startOffsets[0];
+        for (String[] words : synonyms.getOutputs(bestOrdinal)) {
+            for (int i = 0; i < words.length; i++) {
+                Slot slot = (i == 0) ? head : slotAt(i - 1, true);
+                int positionLength = (words.length == 1) ? bestLength : 1;
+                slot.outputs.add(new PendingOutput(words[i], startOffset, bestEndOffset, positionLength));
+            }
+        }
+    }
+
+    /**
+     * depth 번째 위치의 토큰들로 FST 를 탐색합니다.
+     *
+     * @param depth  현재 위치로부터의 거리 (0 이면 현재 위치)
+     * @param from   이전 단어까지 탐색한 arc (depth 0 이면 첫 arc)
+     * @param output 이전 단어까지 누적한 FST 출력값
+     */
+    private void match(int depth, FST.Arc<Long> from, long output) throws IOException {
+        Slot slot = (depth == 0) ? current : slotAt(depth - 1, false);
+        if (slot == null || slot.stateCount == 0)
+            return;
+
+        // from 은 재귀 호출 중에 덮어써지므로 복사해 둔다.
+        FST.Arc<Long> origin = originArcs[depth].copyFrom(from);
+        FST.Arc<Long> arc = scratchArcs[depth];
+
+        for (int t = 0; t < slot.stateCount; t++) {
+            arc.copyFrom(origin);
+            long out = output;
+            char[] term = slot.terms[t];
+            int length = slot.termLengths[t];
+            boolean matched = length > 0;
+
+            for (int i = 0; i < length; i++) {
+                if (fst.findTargetArc(term[i], arc, arc, fstReader) == null) {
+                    matched = false;
+                    break;
+                }
+                out += arc.output;
+            }
+            if (!matched)
+                continue;
+
+            if (arc.isFinal() && depth + 1 > bestLength) {
+                bestLength = depth + 1;
+                bestOrdinal = (int) (out + arc.nextFinalOutput);
+                bestEndOffset = slot.endOffsets[t];
+            }
+
+            if (depth + 1 < scratchArcs.length &&
+                    fst.findTargetArc(SynonymMap.WORD_SEPARATOR, arc, arc, fstReader) != null) {
+                match(depth + 1, arc, out + arc.output);
+            }
+        }
+    }
+
+    /**
+     * 현재 위치 이후 index 번째 위치를 반환합니다. 필요하면 input 에서 더 읽습니다.
+     *
+     * @param create input 이 끝났을 때 빈 위치를 만들지 여부
+     */
+    private Slot slotAt(int index, boolean create) throws IOException {
+        while (slots.size() <= index) {
+            if (!readSlot()) {
+                if (!create)
+                    return null;
+                slots.add(newSlot());
+            }
+        }
+        return slots.get(index);
+    }
+
+    /** input 에서 한 위치에 해당하는 토큰들 (position increment 가 0 인 토큰들)을 읽어 slots 에 추가합니다. */
+    private boolean readSlot() throws IOException {
+        if (peeked == null) {
+            if (exhausted || !input.incrementToken()) {
+                exhausted = true;
+                return false;
+            }
+            peeked = captureState();
+        }
+
+        Slot slot = newSlot();
+        restoreState(peeked);
+        slot.add(peeked, termAtt, offsetAtt);
+        peeked = null;
+
+        while (input.incrementToken()) {
+            AttributeSource.State state = captureState();
+            if (posIncrAtt.getPositionIncrement() != 0) {
+                peeked = state;
+                break;
+            }
+            slot.add(state, termAtt, offsetAtt);
+        }
+        if (peeked == null)
+            exhausted = true;
+
+        slots.add(slot);
+        return true;
+    }
+
+    private Slot newSlot() {
+        return freeSlots.isEmpty() ? new Slot() : freeSlots.remove(freeSlots.size() - 1);
+    }
+
+    private void releaseSlot(Slot slot) {
+        slot.clear();
+        freeSlots.add(slot);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        for (Slot slot : slots) {
+            releaseSlot(slot);
+        }
+        slots.clear();
+        if (current != null) {
+            releaseSlot(current);
+            current = null;
+        }
+        peeked = null;
+        exhausted = false;
+    }
+
+    /** 한 위치에 쌓인 토큰들과, 그 위치에 추가할 동의어들 */
+    private static final class Slot {
+        AttributeSource.State[] states = new AttributeSource.State[2];
+        char[][] terms = new char[2][];
+        int[] termLengths = new int[2];
+        int[] startOffsets = new int[2];
+        int[] endOffsets = new int[2];
+        int stateCount;
+
+        final List<PendingOutput> outputs = new ArrayList<PendingOutput>();
+
+        /** 앞선 동의어에 포함된 위치이면 새로 매칭하지 않는다. */
+        boolean covered;
+
+        void add(AttributeSource.State state, CharTermAttribute term, OffsetAttribute offset) {
+            if (stateCount == states.length) {
+                int size = ArrayUtil.oversize(stateCount + 1, RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+                AttributeSource.State[] newStates = new AttributeSource.State[size];
+                System.arraycopy(states, 0, newStates, 0, stateCount);
+                states = newStates;
+                char[][] newTerms = new char[size][];
+                System.arraycopy(terms, 0, newTerms, 0, stateCount);
+                terms = newTerms;
+                termLengths = ArrayUtil.grow(termLengths, size);
+                startOffsets = ArrayUtil.grow(startOffsets, size);
+                endOffsets = ArrayUtil.grow(endOffsets, size);
+            }
+            states[stateCount] = state;
+            char[] buffer = terms[stateCount];
+            if (buffer == null || buffer.length < term.length())
+                buffer = terms[stateCount] = new char[ArrayUtil.oversize(term.length(), RamUsageEstimator.NUM_BYTES_CHAR)];
+            System.arraycopy(term.buffer(), 0, buffer, 0, term.length());
+            termLengths[stateCount] = term.length();
+            startOffsets[stateCount] = offset.startOffset();
+            endOffsets[stateCount] = offset.endOffset();
+            stateCount++;
+        }
+
+        void clear() {
+            for (int i = 0; i < stateCount; i++) {
+                states[i] = null;
+            }
+            stateCount = 0;
+            outputs.clear();
+            covered = false;
+        }
+    }
+
+    private static final class PendingOutput {
+        final String word;
+        final int startOffset;
+        final int endOffset;
+        final int positionLength;
+
+        PendingOutput(String word, int startOffset, int endOffset, int positionLength) {
+            this.word = word;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.positionLength = positionLength;
+        }
     }
 }
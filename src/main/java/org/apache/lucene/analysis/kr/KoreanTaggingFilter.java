@@ -0,0 +1,285 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.metrics.AnalysisMetrics;
+import org.apache.lucene.analysis.kr.metrics.Stage;
+import org.apache.lucene.analysis.kr.morph.*;
+import org.apache.lucene.analysis.kr.tagging.Tagger;
+import org.apache.lucene.analysis.tokenattributes.*;
+import org.apache.lucene.util.AttributeSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 문장 안에서 앞뒤 어절을 보고 어절마다 하나의 형태소 분석 결과만 색인하는 필터입니다.
+ * <p/>
+ * {@link KoreanFilter} 는 분석 후보의 어간을 모두 색인하므로 색인어가 부풀려집니다.
+ * 이 필터는 분석한 어절을 최대 windowSize 개까지 미리 읽어 두고, 각 한글 어절을 바로 다음 한글 어절과 함께
+ * {@link Tagger#tagging(String, String, List, List)} 에 넘겨서 선택된 분석 결과의 어간과 복합명사만 출력합니다.
+ * <p/>
+ * 한글이 아닌 토큰은 그대로 통과시키므로 {@link KoreanFilter} 앞에 둡니다.
+ * 이 필터가 출력한 토큰은 {@link KeywordAttribute} 가 설정되어 {@link KoreanFilter} 가 다시 분석하지 않습니다.
+ * 분석에 실패한 어간은 {@link KoreanNGramFilter} 가 처리하도록 타입을 표시합니다.
+ * 색인어가 없는 어절 (예: 용언) 의 위치 증가값은 다음에 출력하는 토큰에 더해서, 구문 검색의 위치 간격을 유지합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class KoreanTaggingFilter extends TokenFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(KoreanTaggingFilter.class);
+    private static final boolean isTraceEnabled = log.isTraceEnabled();
+
+    public static final int DEFAULT_WINDOW_SIZE = 3;
+
+    private static final String KOREAN_TYPE = KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOREAN];
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+    private final KeywordAttribute keywordAtt = addAttribute(KeywordAttribute.class);
+
+    private final int windowSize;
+    private boolean bigrammable = true;
+    private boolean hasOrigin = false;
+
+    private final MorphAnalyzer morph = new MorphAnalyzer();
+    private Tagger tagger = new Tagger();
+
+    /** 미리 읽은 토큰들 (첫번째가 현재 토큰) */
+    private final LinkedList<Eojeol> window = new LinkedList<Eojeol>();
+    private boolean exhausted;
+
+    /** 현재 어절에서 출력할 색인어 */
+    private final List<String> words = new ArrayList<String>();
+    private final List<Integer> offsets = new ArrayList<Integer>();
+    private final List<String> types = new ArrayList<String>();
+    private int wordUpto;
+    private int wordStart;
+
+    /** 색인어 없이 건너뛴 어절들의 위치 증가값, 다음에 출력하는 토큰에 더한다. */
+    private int skippedIncrement;
+
+    public KoreanTaggingFilter(TokenStream input) {
+        this(input, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param input      input token stream
+     * @param windowSize 다음 한글 어절을 찾기 위해 미리 읽을 토큰의 최대 수 (1 이상)
+     */
+    public KoreanTaggingFilter(TokenStream input, int windowSize) {
+        super(input);
+        if (windowSize < 1)
+            throw new IllegalArgumentException("windowSize must be positive. windowSize=" + windowSize);
+        this.windowSize = windowSize;
+    }
+
+    /** 분석에 실패한 어간을 n-gram 으로 색인하도록 표시할지 여부 (기본값 true) */
+    public void setBigrammable(boolean bigrammable) {
+        this.bigrammable = bigrammable;
+    }
+
+    /** 분석한 어절의 원어절도 색인어로 출력할지 여부 (기본값 false) */
+    public void setHasOrigin(boolean hasOrigin) {
+        this.hasOrigin = hasOrigin;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+        while (true) {
+            if (wordUpto < words.size()) {
+                emitWord();
+                return true;
+            }
+
+            if (window.isEmpty() && !fill())
+                return false;
+
+            Eojeol current = window.removeFirst();
+            if (current.outputs == null) {
+                restoreState(current.state);
+                addSkippedIncrement();
+                return true;
+            }
+
+            Eojeol next = nextKorean();
+            AnalysisOutput selected = null;
+            long start = AnalysisMetrics.start();
+            try {
+                if (!current.outputs.isEmpty())
+                    selected = (next == null)
+                               ? tagger.tagging(current.source, current.outputs)
+                               : tagger.tagging(current.source, next.source, current.outputs, next.outputs);
+            } catch (MorphException e) {
+                log.error("MorphException이 발생했습니다.", e);
+                throw new IOException("Korean Tagging Filter MorphException\n" + e.getMessage(), e);
+            }
+
+            AnalysisMetrics.stop(Stage.TAGGING, start);
+
+            if (isTraceEnabled)
+                log.trace("어절의 분석 결과를 선택했습니다. source=[{}], selected=[{}]", current.source, selected);
+
+            restoreState(current.state);
+            wordStart = offsetAtt.startOffset();
+            extractWords(current.source, selected);
+            if (words.isEmpty())
+                skippedIncrement += posIncrAtt.getPositionIncrement();
+        }
+    }
+
+    /** 건너뛴 어절들의 위치 증가값을 현재 토큰의 위치 증가값에 더한다. */
+    private void addSkippedIncrement() {
+        if (skippedIncrement > 0) {
+            posIncrAtt.setPositionIncrement(posIncrAtt.getPositionIncrement() + skippedIncrement);
+            skippedIncrement = 0;
+        }
+    }
+
+    /** 선택된 분석 결과에서 색인어를 추출한다. ({@link KoreanFilter} 의 색인어 추출 규칙과 같다) */
+    private void extractWords(String source, AnalysisOutput output) {
+        words.clear();
+        offsets.clear();
+        types.clear();
+        wordUpto = 0;
+        if (output == null)
+            return;
+
+        if (hasOrigin && source.length() > 1)
+            addWord(source, 0, null);
+
+        String stem = output.getStem();
+        int stemIndex = -1;
+        if (output.getPos() != PatternConstants.POS_VERB && stem.length() > 1) {
+            stemIndex = words.indexOf(stem);
+            if (stemIndex < 0) {
+                stemIndex = words.size();
+                addWord(stem, 0, null);
+            }
+        }
+
+        if (output.getScore() >= AnalysisOutput.SCORE_COMPOUNDS) {
+            int start = 0;
+            for (CompoundEntry cnoun : output.getCNounList()) {
+                String word = cnoun.getWord();
+                if (word.length() > 1 && !word.equals(stem) && !(hasOrigin && word.equals(source)))
+                    addWord(word, start, null);
+                start += word.length();
+            }
+        } else if (bigrammable && stem.length() > 1) {
+            if (stemIndex >= 0)
+                types.set(stemIndex, KoreanNGramFilter.TYPE_NGRAM);
+            else
+                addWord(stem, 0, KoreanNGramFilter.TYPE_NGRAM_ONLY);
+        }
+    }
+
+    private void addWord(String word, int offset, String type) {
+        words.add(word);
+        offsets.add(offset);
+        types.add(type);
+    }
+
+    /**
+     * 현재 어절의 다음 색인어를 attribute 에 설정한다.
+     * 첫번째 색인어는 어절의 위치 증가값에 앞에서 건너뛴 어절들의 위치 증가값을 더해서 쓴다.
+     */
+    private void emitWord() {
+        String word = words.get(wordUpto);
+        int offset = offsets.get(wordUpto);
+        String type = types.get(wordUpto);
+
+        if (wordUpto > 0) {
+            clearAttributes();
+            posIncrAtt.setPositionIncrement(offset == 0 ? 0 : 1);
+        } else {
+            addSkippedIncrement();
+        }
+        termAtt.setEmpty().append(word);
+        offsetAtt.setOffset(wordStart + offset, wordStart + offset + word.length());
+        typeAtt.setType(type == null ? TypeAttribute.DEFAULT_TYPE : type);
+        keywordAtt.setKeyword(true);
+        wordUpto++;
+    }
+
+    /** 미리 읽은 토큰 중 첫번째 한글 어절을 찾는다. 없으면 windowSize 까지 더 읽는다. */
+    private Eojeol nextKorean() throws IOException {
+        while (true) {
+            for (Eojeol eojeol : window) {
+                if (eojeol.outputs != null)
+                    return eojeol;
+            }
+            if (window.size() >= windowSize || !fill())
+                return null;
+        }
+    }
+
+    /** input 에서 토큰을 하나 읽어서 window 에 추가한다. */
+    private boolean fill() throws IOException {
+        if (exhausted || !input.incrementToken()) {
+            exhausted = true;
+            return false;
+        }
+
+        Eojeol eojeol = new Eojeol();
+        eojeol.state = captureState();
+        if (KOREAN_TYPE.equals(typeAtt.type()) && !keywordAtt.isKeyword()) {
+            eojeol.source = termAtt.toString();
+            try {
+                eojeol.outputs = morph.analyze(eojeol.source);
+            } catch (MorphException e) {
+                log.error("MorphException이 발생했습니다.", e);
+                throw new IOException("Korean Tagging Filter MorphException\n" + e.getMessage(), e);
+            }
+        }
+        window.add(eojeol);
+        return true;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        window.clear();
+        exhausted = false;
+        words.clear();
+        offsets.clear();
+        types.clear();
+        wordUpto = 0;
+        skippedIncrement = 0;
+        tagger = new Tagger();
+    }
+
+    /** 미리 읽은 토큰. 한글 어절이 아니면 outputs 는 null 이다. */
+    private static final class Eojeol {
+        AttributeSource.State state;
+        String source;
+        List<AnalysisOutput> outputs;
+    }
+}
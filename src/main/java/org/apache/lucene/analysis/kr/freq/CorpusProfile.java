@@ -0,0 +1,176 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.freq;
+
+import org.apache.lucene.analysis.kr.morph.AnalysisOutput;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link CorpusProfiler} 가 말뭉치에서 모은 형태소 빈도 통계입니다.
+ * <p/>
+ * 작업 스레드마다 하나씩 가지고 (shard) 빈도수를 더한 뒤, 마지막에 {@link #merge(CorpusProfile)} 로 합칩니다.
+ * thread-safe 하지 않습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class CorpusProfile {
+
+    private static final int MAX_POS = 128;
+    private static final int MAX_PATN = 64;
+
+    long lines;
+    long tokens;
+    long eojeols;
+    long unknownEojeols;
+
+    private final CountMap<String> stems = new CountMap<String>();
+    private final CountMap<String> unknowns = new CountMap<String>();
+    private final long[] posCounts = new long[MAX_POS];
+    private final long[] patnCounts = new long[MAX_PATN];
+
+    /** 어절의 최선 분석 결과를 더한다. output 이 null 이거나 추정한 결과이면 미등록어로 센다. */
+    void addEojeol(String source, AnalysisOutput output) {
+        eojeols++;
+        if (output == null || output.getScore() < AnalysisOutput.SCORE_COMPOUNDS) {
+            unknownEojeols++;
+            unknowns.add(source, 1);
+            return;
+        }
+        stems.add(output.getStem(), 1);
+        if (output.getPos() < MAX_POS)
+            posCounts[output.getPos()]++;
+        if (output.getPatn() >= 0 && output.getPatn() < MAX_PATN)
+            patnCounts[output.getPatn()]++;
+    }
+
+    /** 다른 shard 의 통계를 더한다. */
+    void merge(CorpusProfile other) {
+        lines += other.lines;
+        tokens += other.tokens;
+        eojeols += other.eojeols;
+        unknownEojeols += other.unknownEojeols;
+        stems.addAll(other.stems);
+        unknowns.addAll(other.unknowns);
+        for (int i = 0; i < MAX_POS; i++) {
+            posCounts[i] += other.posCounts[i];
+        }
+        for (int i = 0; i < MAX_PATN; i++) {
+            patnCounts[i] += other.patnCounts[i];
+        }
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getTokens() {
+        return tokens;
+    }
+
+    /** 형태소 분석한 한글 어절의 수 */
+    public long getEojeols() {
+        return eojeols;
+    }
+
+    /** 사전으로 분석하지 못한 어절의 수 */
+    public long getUnknownEojeols() {
+        return unknownEojeols;
+    }
+
+    public long getStemFreq(String stem) {
+        return stems.get(stem);
+    }
+
+    public long getUnknownFreq(String eojeol) {
+        return unknowns.get(eojeol);
+    }
+
+    /** 품사 ({@link org.apache.lucene.analysis.kr.morph.PatternConstants} 의 POS_*) 별 어절 수 */
+    public long getPosFreq(char pos) {
+        return (pos < MAX_POS) ? posCounts[pos] : 0;
+    }
+
+    /** 어절 패턴 ({@link org.apache.lucene.analysis.kr.morph.PatternConstants} 의 PTN_*) 별 어절 수 */
+    public long getPatnFreq(int patn) {
+        return (patn >= 0 && patn < MAX_PATN) ? patnCounts[patn] : 0;
+    }
+
+    /** 빈도수가 높은 어간 최대 n 개 (빈도수가 같으면 어간 순서) */
+    public List<Map.Entry<String, Long>> getTopStems(int n) {
+        return top(stems, n);
+    }
+
+    /** 빈도수가 높은 미등록 어절 최대 n 개 (빈도수가 같으면 어절 순서) */
+    public List<Map.Entry<String, Long>> getTopUnknowns(int n) {
+        return top(unknowns, n);
+    }
+
+    /**
+     * 통계를 탭으로 구분된 텍스트 보고서로 출력합니다.
+     *
+     * @param out  출력 대상
+     * @param topN 어간, 미등록 어절을 출력할 최대 갯수
+     */
+    public void writeReport(Writer out, int topN) throws IOException {
+        out.write("# lines=" + lines + ", tokens=" + tokens + ", eojeols=" + eojeols
+                          + ", unknown=" + unknownEojeols + " (" + percent(unknownEojeols, eojeols) + ")\n");
+
+        out.write("\n[POS]\n");
+        for (int i = 0; i < MAX_POS; i++) {
+            if (posCounts[i] > 0)
+                out.write((char) i + "\t" + posCounts[i] + "\t" + percent(posCounts[i], eojeols) + "\n");
+        }
+
+        out.write("\n[PATTERN]\n");
+        for (int i = 0; i < MAX_PATN; i++) {
+            if (patnCounts[i] > 0)
+                out.write(i + "\t" + patnCounts[i] + "\t" + percent(patnCounts[i], eojeols) + "\n");
+        }
+
+        writeRanking(out, "STEM", getTopStems(topN));
+        writeRanking(out, "UNKNOWN", getTopUnknowns(topN));
+        out.flush();
+    }
+
+    private static void writeRanking(Writer out, String title, List<Map.Entry<String, Long>> entries) throws IOException {
+        out.write("\n[" + title + "]\n");
+        int rank = 0;
+        for (Map.Entry<String, Long> entry : entries) {
+            out.write(++rank + "\t" + entry.getKey() + "\t" + entry.getValue() + "\n");
+        }
+    }
+
+    private static String percent(long count, long total) {
+        return (total == 0) ? "0.00%" : String.format("%.2f%%", count * 100.0 / total);
+    }
+
+    private static List<Map.Entry<String, Long>> top(CountMap<String> counts, int n) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>();
+        if (n <= 0 || counts.size() == 0)
+            return entries;
+        for (int slot : counts.topSlots(n)) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<String, Long>(counts.keyAt(slot), counts.countAt(slot)));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.freq;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.kr.KoreanTokenizer;
+import org.apache.lucene.analysis.kr.morph.AnalysisOutput;
+import org.apache.lucene.analysis.kr.morph.MorphAnalyzer;
+import org.apache.lucene.analysis.kr.utils.KoreanEnv;
+import org.apache.lucene.analysis.kr.utils.WorkQueue;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.Version;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 원문 말뭉치에서 어간, 품사, 어절 패턴, 미등록어의 빈도를 모으는 도구입니다.
+ * <p/>
+ * {@link HighFreqTerms} 는 이미 색인된 Term 만 읽을 수 있으므로, custom.dic 이나 동의어 사전을 보강할 때는
+ * 이 도구로 원문을 직접 분석합니다. 호출한 스레드가 말뭉치를 줄 단위로 읽어서 일정 크기의 묶음으로 큐에 넣고,
+ * 작업 스레드마다 자신의 {@link KoreanTokenizer}, {@link MorphAnalyzer}, {@link CorpusProfile} 로 분석합니다.
+ * 큐의 크기가 제한되어 있으므로 말뭉치 전체를 메모리에 올리지 않으며, 작업 스레드의 통계는 마지막에 합칩니다.
+ * <pre>
+ *     java org.apache.lucene.analysis.kr.freq.CorpusProfiler [-threads n] [-top n] [-out report.txt] file|dir...
+ * </pre>
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+@Slf4j
+public class CorpusProfiler {
+
+    /** 보고서에 출력할 어간, 미등록어의 기본 갯수 */
+    public static final int DEFAULT_TOP_N = 1000;
+
+    /** 작업 스레드에 한번에 넘기는 줄의 기본 갯수 */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final String KOREAN_TYPE = KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOREAN];
+
+    private final int threads;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public CorpusProfiler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** @param threads 분석할 작업 스레드의 수 */
+    public CorpusProfiler(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive. threads=" + threads);
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be positive. batchSize=" + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * UTF-8 파일들을 차례로 읽어서 분석합니다. 디렉토리이면 하위의 모든 파일을 읽습니다.
+     *
+     * @param files 말뭉치 파일 또는 디렉토리
+     * @return 말뭉치의 형태소 빈도 통계
+     * @throws IOException 파일을 읽거나 분석하는데 실패한 경우
+     */
+    public CorpusProfile profile(List<File> files) throws IOException {
+        ExecutorService executor = newExecutor();
+        try {
+            WorkQueue<List<String>, CorpusProfile> queue = startWorkers(executor);
+            for (File file : files) {
+                feed(file, queue);
+            }
+            return finish(queue);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 말뭉치를 줄 단위로 읽어서 분석합니다.
+     *
+     * @param corpus 말뭉치
+     * @return 말뭉치의 형태소 빈도 통계
+     * @throws IOException 말뭉치를 읽거나 분석하는데 실패한 경우
+     */
+    public CorpusProfile profile(Reader corpus) throws IOException {
+        ExecutorService executor = newExecutor();
+        try {
+            WorkQueue<List<String>, CorpusProfile> queue = startWorkers(executor);
+            feed(corpus, queue);
+            return finish(queue);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private WorkQueue<List<String>, CorpusProfile> startWorkers(ExecutorService executor) {
+        WorkQueue<List<String>, CorpusProfile> queue = new WorkQueue<List<String>, CorpusProfile>(threads * 2);
+        for (int i = 0; i < threads; i++) {
+            queue.start(executor, new Worker());
+        }
+        return queue;
+    }
+
+    private void feed(File file, WorkQueue<List<String>, CorpusProfile> queue) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null)
+                return;
+            Arrays.sort(children);
+            for (File child : children) {
+                feed(child, queue);
+            }
+            return;
+        }
+
+        if (log.isDebugEnabled())
+            log.debug("말뭉치 파일을 읽습니다. file=[{}]", file);
+
+        Reader reader = new InputStreamReader(new FileInputStream(file), KoreanEnv.UTF8);
+        try {
+            feed(reader, queue);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void feed(Reader corpus, WorkQueue<List<String>, CorpusProfile> queue) throws IOException {
+        BufferedReader reader = (corpus instanceof BufferedReader) ? (BufferedReader) corpus : new BufferedReader(corpus);
+        List<String> batch = new ArrayList<String>(batchSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            batch.add(line);
+            if (batch.size() == batchSize) {
+                queue.put(batch);
+                batch = new ArrayList<String>(batchSize);
+            }
+        }
+        if (batch.size() > 0)
+            queue.put(batch);
+    }
+
+    /** 작업 스레드들의 통계를 합친다. */
+    private static CorpusProfile finish(WorkQueue<List<String>, CorpusProfile> queue) throws IOException {
+        CorpusProfile profile = new CorpusProfile();
+        for (CorpusProfile workerProfile : queue.finish()) {
+            profile.merge(workerProfile);
+        }
+        return profile;
+    }
+
+    private ExecutorService newExecutor() {
+        return Executors.newFixedThreadPool(threads,
+                                            new ThreadFactoryBuilder()
+                                                    .setDaemon(true)
+                                                    .setNameFormat("corpus-profiler-%d")
+                                                    .build());
+    }
+
+    /** 큐에서 줄 묶음을 가져와서 분석하는 작업 스레드. 분석기와 통계를 스레드마다 따로 가진다. */
+    private static final class Worker implements WorkQueue.Worker<List<String>, CorpusProfile> {
+
+        private final MorphAnalyzer morph = new MorphAnalyzer();
+        private final KoreanTokenizer tokenizer = new KoreanTokenizer(Version.LUCENE_36, new StringReader(""));
+        private final CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+        private final TypeAttribute typeAtt = tokenizer.addAttribute(TypeAttribute.class);
+        private final CorpusProfile profile = new CorpusProfile();
+
+        @Override
+        public void process(List<String> batch) throws Exception {
+            for (String line : batch) {
+                analyze(line);
+            }
+        }
+
+        @Override
+        public CorpusProfile finish() {
+            return profile;
+        }
+
+        private void analyze(String line) throws Exception {
+            profile.lines++;
+            tokenizer.reset(new StringReader(line));
+            tokenizer.reset();
+            while (tokenizer.incrementToken()) {
+                profile.tokens++;
+                if (!KOREAN_TYPE.equals(typeAtt.type()))
+                    continue;
+
+                String source = termAtt.toString();
+                List<AnalysisOutput> outputs = morph.analyze(source);
+                profile.addEojeol(source, outputs.isEmpty() ? null : outputs.get(0));
+            }
+            tokenizer.end();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int topN = DEFAULT_TOP_N;
+        String out = null;
+        List<File> files = new ArrayList<File>();
+
+        for (int i = 0; i < args.length; i++) {
+            if ("-threads".equals(args[i]) && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else if ("-top".equals(args[i]) && i + 1 < args.length) topN = Integer.parseInt(args[++i]);
+            else if ("-out".equals(args[i]) && i + 1 < args.length) out = args[++i];
+            else files.add(new File(args[i]));
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: java " + CorpusProfiler.class.getName()
+                                       + " [-threads n] [-top n] [-out report.txt] file|dir...");
+            System.exit(1);
+        }
+
+        long start = System.currentTimeMillis();
+        CorpusProfile profile = new CorpusProfiler(threads).profile(files);
+        log.info("말뭉치 분석을 완료했습니다. lines=[{}], eojeols=[{}], elapsed=[{}] ms",
+                 profile.getLines(), profile.getEojeols(), System.currentTimeMillis() - start);
+
+        Writer writer = (out == null)
+                        ? new OutputStreamWriter(System.out, KoreanEnv.UTF8)
+                        : new OutputStreamWriter(new FileOutputStream(out), KoreanEnv.UTF8);
+        try {
+            profile.writeReport(new BufferedWriter(writer), topN);
+        } finally {
+            if (out != null) writer.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.freq;
+
+import org.apache.lucene.util.PriorityQueue;
+
+/**
+ * 키 (Term, 어간 등) 별 빈도수를 모으는 open addressing 해시맵입니다.
+ * <p/>
+ * 값을 long 배열에 그대로 저장하므로 빈도수를 더할 때 객체를 만들지 않습니다. thread-safe 하지 않습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+class CountMap<K> {
+
+    private Object[] keys;
+    private long[] counts;
+    private int size;
+    private int mask;
+
+    CountMap() {
+        this(1024);
+    }
+
+    CountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new Object[capacity];
+        counts = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /** key 의 빈도수에 count 를 더한다. */
+    void add(K key, long count) {
+        int slot = slotOf(key);
+        if (keys[slot] == null) {
+            keys[slot] = key;
+            counts[slot] = count;
+            if (++size > (mask + 1) >> 1)
+                rehash();
+        } else {
+            counts[slot] += count;
+        }
+    }
+
+    /** 다른 맵의 빈도수를 모두 더한다. */
+    void addAll(CountMap<K> other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != null)
+                add(other.keyAt(i), other.counts[i]);
+        }
+    }
+
+    long get(K key) {
+        int slot = slotOf(key);
+        return keys[slot] == null ? 0 : counts[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** 슬롯의 수. {@link #keyAt(int)}, {@link #countAt(int)} 로 순회할 때 사용한다. */
+    int capacity() {
+        return keys.length;
+    }
+
+    /** 슬롯의 키, 비어 있으면 null */
+    @SuppressWarnings("unchecked")
+    K keyAt(int slot) {
+        return (K) keys[slot];
+    }
+
+    long countAt(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * 빈도수가 높은 순으로 최대 n 개의 슬롯을 반환한다. 빈도수가 같으면 키 순서로 정렬한다. (키는 {@link Comparable} 이어야 한다)
+     */
+    int[] topSlots(int n) {
+        SlotQueue queue = new SlotQueue(Math.max(1, Math.min(n, size)));
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null)
+                queue.insertWithOverflow(i);
+        }
+        int[] slots = new int[queue.size()];
+        for (int i = slots.length - 1; i >= 0; i--) {
+            slots[i] = queue.pop();
+        }
+        return slots;
+    }
+
+    private int slotOf(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        int slot = (h * 0x9E3779B9) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        Object[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new Object[oldKeys.length << 1];
+        counts = new long[oldKeys.length << 1];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /** 빈도수가 가장 낮은 슬롯이 top 인 min-heap */
+    private final class SlotQueue extends PriorityQueue<Integer> {
+
+        SlotQueue(int capacity) {
+            initialize(capacity);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected boolean lessThan(Integer a, Integer b) {
+            if (counts[a] != counts[b])
+                return counts[a] < counts[b];
+            return ((Comparable<Object>) keys[a]).compareTo(keys[b]) > 0;
+        }
+    }
+}
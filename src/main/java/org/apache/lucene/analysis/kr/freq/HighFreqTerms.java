@@ -16,19 +16,26 @@
 
 package org.apache.lucene.analysis.kr.freq;
 
-import jodd.util.collection.SortedArrayList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermDocs;
 import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.util.PriorityQueue;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * 빈도수가 높은 Terms 를 조회합니다.
+ * <p/>
+ * 세그먼트 (sub-reader) 별로 병렬로 Term 을 읽어서 Term 별 문서 빈도수를 해시맵에 모으고,
+ * 크기가 numTerms 인 min-heap 으로 상위 Term 을 고릅니다. 문서 빈도수가 같으면 Term 순서로 정렬합니다.
  *
  * @author 배성혁 sunghyouk.bae@gmail.com
  * @since 13. 5. 30. 오후 9:10
@@ -49,33 +56,17 @@ public class HighFreqTerms {
      * @throws IOException 인덱스 파일 처리 실패 시
      */
     public static TermFreq[] getHighFreqTerms(IndexReader[] readers, int numTerms, String field) throws IOException {
-        HighFreqTermQueue queue = new HighFreqTermQueue(numTerms);
-        if (field != null) {
-            for (IndexReader reader : readers) {
-                TermEnum terms = reader.terms(new Term(field));
-                if (terms != null && terms.term() != null) {
-                    do {
-                        if (!terms.term().field().equals(field))
-                            break;
-                        queue.insertWithOverflow(new TermFreq(terms.term(), terms.docFreq()));
-
-                    } while (terms.next());
-                }
-            }
-        } else {
-            for (IndexReader reader : readers) {
-                TermEnum terms = reader.terms();
-                if (terms != null) {
-                    while (terms.next()) {
-                        queue.insertWithOverflow(new TermFreq(terms.term(), terms.docFreq()));
-                    }
-                }
-            }
+        List<IndexReader> segments = new ArrayList<IndexReader>();
+        for (IndexReader reader : readers) {
+            addSegments(reader, segments);
         }
 
-        TermFreq[] result = new TermFreq[queue.size()];
-        result = queue.toArray(result);
-        return result;
+        ExecutorService executor = newExecutor(segments.size());
+        try {
+            return getHighFreqTerms(segments, numTerms, field, executor);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     /**
@@ -88,33 +79,82 @@ public class HighFreqTerms {
      * @throws IOException 인덱스 파일 처리 실패 시
      */
     public static TermFreq[] getHighFreqTerms(IndexReader reader, int numTerms, String field) throws IOException {
-        HighFreqTermQueue queue = new HighFreqTermQueue(numTerms);
-        if (field != null) {
-            TermEnum terms = reader.terms(new Term(field));
-            if (terms != null && terms.term() != null) {
-                do {
-                    if (!terms.term().field().equals(field)) {
-                        break;
-                    }
-                    queue.insertWithOverflow(new TermFreq(terms.term(), terms.docFreq()));
-                } while (terms.next());
-            } else {
-                log.info("No terms for field=[{}]", field);
-            }
-        } else {
-            TermEnum terms = reader.terms();
-            if (terms != null) {
-                while (terms.next()) {
-                    queue.insertWithOverflow(new TermFreq(terms.term(), terms.docFreq()));
+        return getHighFreqTerms(new IndexReader[] { reader }, numTerms, field);
+    }
+
+    /**
+     * 세그먼트들을 executor 에서 병렬로 읽어서 빈도수가 높은 단어들을 조회합니다.
+     *
+     * @param segments 세그먼트 리더 (sub-reader)
+     * @param numTerms 조회할 단어의 최대 갯수
+     * @param field    엔티티의 필드 (null이면 모든 필드에서 찾는다)
+     * @param executor 세그먼트를 읽을 executor
+     * @return 빈도수가 높은 단어들의 배열
+     * @throws IOException 인덱스 파일 처리 실패 시
+     */
+    public static TermFreq[] getHighFreqTerms(List<IndexReader> segments,
+                                              int numTerms,
+                                              final String field,
+                                              ExecutorService executor) throws IOException {
+        List<Future<CountMap<Term>>> futures = new ArrayList<Future<CountMap<Term>>>(segments.size());
+        for (final IndexReader segment : segments) {
+            futures.add(executor.submit(new Callable<CountMap<Term>>() {
+                @Override
+                public CountMap<Term> call() throws Exception {
+                    return countDocFreqs(segment, field);
                 }
-            }
+            }));
+        }
+
+        CountMap<Term> counts = null;
+        for (Future<CountMap<Term>> future : futures) {
+            CountMap<Term> segmentCounts = getResult(future);
+            if (counts == null) counts = segmentCounts;
+            else counts.addAll(segmentCounts);
+        }
+        if (counts == null || counts.size() == 0) {
+            log.info("No terms for field=[{}]", field);
+            return new TermFreq[0];
+        }
+
+        HighFreqTermQueue queue = new HighFreqTermQueue(numTerms);
+        for (int i = 0; i < counts.capacity(); i++) {
+            Term term = counts.keyAt(i);
+            if (term != null)
+                queue.insertWithOverflow(new TermFreq(term, (int) counts.countAt(i)));
         }
 
         TermFreq[] result = new TermFreq[queue.size()];
-        result = queue.toArray(result);
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = queue.pop();
+        }
         return result;
     }
 
+    /** 세그먼트의 Term 별 문서 빈도수를 센다. */
+    private static CountMap<Term> countDocFreqs(IndexReader segment, String field) throws IOException {
+        CountMap<Term> counts = new CountMap<Term>();
+        TermEnum terms = (field != null) ? segment.terms(new Term(field)) : segment.terms();
+        try {
+            if (field != null) {
+                if (terms != null && terms.term() != null) {
+                    do {
+                        if (!terms.term().field().equals(field))
+                            break;
+                        counts.add(terms.term(), terms.docFreq());
+                    } while (terms.next());
+                }
+            } else if (terms != null) {
+                while (terms.next()) {
+                    counts.add(terms.term(), terms.docFreq());
+                }
+            }
+        } finally {
+            if (terms != null) terms.close();
+        }
+        return counts;
+    }
+
     /**
      * 검색한 단어의 빈도 정보를 전체 빈도 수에 따라 역순으로 정렬합니다.
      *
@@ -122,11 +162,55 @@ public class HighFreqTerms {
      * @param termFreqs 단어/빈도수 정보
      */
     public static TermFreq[] sortByTotalTermFreq(IndexReader reader, TermFreq[] termFreqs) throws Exception {
+        List<IndexReader> segments = new ArrayList<IndexReader>();
+        addSegments(reader, segments);
+
+        ExecutorService executor = newExecutor(segments.size());
+        try {
+            return sortByTotalTermFreq(segments, termFreqs, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 검색한 단어의 빈도 정보를 전체 빈도 수에 따라 역순으로 정렬합니다.
+     * <p/>
+     * 단어들을 정렬해 두고 세그먼트마다 하나의 {@link TermDocs} 로 순서대로 seek 하므로,
+     * 세그먼트의 Term 사전과 posting 을 한 방향으로 한 번만 읽습니다. 세그먼트들은 executor 에서 병렬로 읽습니다.
+     *
+     * @param segments  세그먼트 리더 (sub-reader)
+     * @param termFreqs 단어/빈도수 정보
+     * @param executor  세그먼트를 읽을 executor
+     * @return 전체 빈도수의 역순으로 정렬된 단어/빈도수 정보 (전체 빈도수가 같으면 termFreqs 의 순서를 유지)
+     * @throws IOException 인덱스 파일 처리 실패 시
+     */
+    public static TermFreq[] sortByTotalTermFreq(List<IndexReader> segments,
+                                                 TermFreq[] termFreqs,
+                                                 ExecutorService executor) throws IOException {
+        final Term[] terms = sortedTerms(termFreqs);
+
+        List<Future<long[]>> futures = new ArrayList<Future<long[]>>(segments.size());
+        for (final IndexReader segment : segments) {
+            futures.add(executor.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() throws Exception {
+                    return countTotalTermFreqs(segment, terms);
+                }
+            }));
+        }
+
+        long[] totals = new long[terms.length];
+        for (Future<long[]> future : futures) {
+            long[] segmentTotals = getResult(future);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += segmentTotals[i];
+            }
+        }
 
         TermFreq[] tfs = new TermFreq[termFreqs.length];
-        long totalTermFreq;
         for (int i = 0; i < termFreqs.length; i++) {
-            totalTermFreq = getTotalTermFreq(reader, termFreqs[i].term);
+            long totalTermFreq = totals[Arrays.binarySearch(terms, termFreqs[i].term)];
             tfs[i] = new TermFreq(termFreqs[i].term, termFreqs[i].docFreq, totalTermFreq);
         }
 
@@ -135,6 +219,41 @@ public class HighFreqTerms {
         return tfs;
     }
 
+    /** 중복을 제거하고 Term 순서로 정렬한 단어들 */
+    private static Term[] sortedTerms(TermFreq[] termFreqs) {
+        Term[] terms = new Term[termFreqs.length];
+        for (int i = 0; i < termFreqs.length; i++) {
+            terms[i] = termFreqs[i].term;
+        }
+        Arrays.sort(terms);
+
+        int size = 0;
+        for (int i = 0; i < terms.length; i++) {
+            if (size == 0 || !terms[i].equals(terms[size - 1]))
+                terms[size++] = terms[i];
+        }
+        return Arrays.copyOf(terms, size);
+    }
+
+    /** 정렬된 단어들의 세그먼트 내 전체 빈도수를 센다. */
+    private static long[] countTotalTermFreqs(IndexReader segment, Term[] terms) throws IOException {
+        long[] totals = new long[terms.length];
+        TermDocs docs = segment.termDocs();
+        try {
+            for (int i = 0; i < terms.length; i++) {
+                docs.seek(terms[i]);
+                long totalTermFreq = 0;
+                while (docs.next()) {
+                    totalTermFreq += docs.freq();
+                }
+                totals[i] = totalTermFreq;
+            }
+        } finally {
+            docs.close();
+        }
+        return totals;
+    }
+
     /**
      * 해당 단어가 들어간 문서들에서 모든 빈도 수 (문서의 수가 아닌)를 계산합니다.
      *
@@ -152,31 +271,54 @@ public class HighFreqTerms {
         return totalTermFreq;
     }
 
-    /** 빈도수가 높은 순으로 저장하는 큐입니다 */
-    public static class HighFreqTermQueue extends SortedArrayList<TermFreq> {
+    /** reader 의 세그먼트들을 추가한다. 세그먼트로 나눌 수 없으면 reader 자체를 추가한다. */
+    static void addSegments(IndexReader reader, List<IndexReader> segments) {
+        IndexReader[] subReaders = reader.getSequentialSubReaders();
+        if (subReaders == null) {
+            segments.add(reader);
+        } else {
+            for (IndexReader subReader : subReaders) {
+                addSegments(subReader, segments);
+            }
+        }
+    }
+
+    static ExecutorService newExecutor(int tasks) {
+        int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threads,
+                                            new ThreadFactoryBuilder()
+                                                    .setDaemon(true)
+                                                    .setNameFormat("high-freq-terms-%d")
+                                                    .build());
+    }
+
+    static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("세그먼트를 읽는 중에 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("세그먼트를 읽는데 실패했습니다.", e.getCause());
+        }
+    }
 
-        private final int capacity;
+    /** 빈도수가 높은 순으로 numTerms 개를 유지하는 min-heap 입니다. (가장 빈도수가 낮은 것이 top) */
+    public static class HighFreqTermQueue extends PriorityQueue<TermFreq> {
 
         public HighFreqTermQueue(int capacity) {
-            super(new DocFreqComparatorDescending());
-            this.capacity = capacity;
+            initialize(capacity);
         }
 
-        public void insertWithOverflow(TermFreq termFreq) {
-            int index = indexOf(termFreq);
-            if (index >= 0) {
-                termFreq.docFreq += get(index).docFreq;
-                remove(index);
-                add(termFreq);
-            } else {
-                add(termFreq);
-                if (size() > capacity) {
-                    remove(size() - 1);
-                }
-            }
+        @Override
+        protected boolean lessThan(TermFreq a, TermFreq b) {
+            if (a.docFreq != b.docFreq)
+                return a.docFreq < b.docFreq;
+            // 빈도수가 같으면 Term 순서가 뒤인 것이 먼저 밀려난다.
+            return a.term.compareTo(b.term) > 0;
         }
-
-        private static final long serialVersionUID = 7262421000814128023L;
     }
 
     public static class DocFreqComparatorDescending implements Comparator<TermFreq> {
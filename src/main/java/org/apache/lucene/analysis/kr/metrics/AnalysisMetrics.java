@@ -0,0 +1,249 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import org.apache.lucene.analysis.kr.KoreanTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 분석 단계별 소요 시간, 토큰 타입별 토큰 수, 대체 경로별 어절 수를 모읍니다.
+ * <p/>
+ * 기본값은 꺼져 있으며, 시스템 속성 {@value #ENABLED_PROPERTY}=true 로 시작하거나 {@link #setEnabled(boolean)} 로 켭니다.
+ * 꺼져 있으면 ({@link SlowAnalysisRecorder} 도 꺼져 있으면) {@link #start()} 가 0 을 반환하고 나머지 기록 메소드는 아무것도 하지 않으므로 volatile 읽기 한번의 비용만 듭니다.
+ * 켜지면 {@value #OBJECT_NAME} 으로 {@link AnalysisMetricsMXBean} 을 등록합니다.
+ * <pre>
+ *     long start = AnalysisMetrics.start();
+ *     ...
+ *     AnalysisMetrics.stop(Stage.WORD_SPACE, start);
+ * </pre>
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class AnalysisMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisMetrics.class);
+
+    public static final String ENABLED_PROPERTY = "lucene.korean.metrics";
+    public static final String OBJECT_NAME = "org.apache.lucene.analysis.kr:type=AnalysisMetrics";
+
+    private static final String OTHER_TYPE = "OTHER";
+
+    private static final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    private static final StripedCounter[] fallbacks = new StripedCounter[Fallback.values().length];
+    private static final StripedCounter[] tokens = new StripedCounter[KoreanTokenizer.TOKEN_TYPES.length + 1];
+    private static final Map<String, Integer> tokenTypes = new HashMap<String, Integer>();
+
+    private static volatile boolean enabled;
+
+    /** 이 클래스나 {@link SlowAnalysisRecorder} 중 하나라도 켜져 있으면 단계의 시간을 잰다. */
+    private static volatile boolean timing;
+    private static boolean registered;
+
+    static {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < fallbacks.length; i++) {
+            fallbacks[i] = new StripedCounter();
+        }
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = new StripedCounter();
+        }
+        for (int i = 0; i < KoreanTokenizer.TOKEN_TYPES.length; i++) {
+            tokenTypes.put(KoreanTokenizer.TOKEN_TYPES[i], i);
+        }
+        setEnabled(Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+    private AnalysisMetrics() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 기록을 켜거나 끈다. 처음 켤 때 MXBean 을 등록한다. */
+    public static void setEnabled(boolean enable) {
+        if (enable)
+            registerMBean();
+        enabled = enable;
+        updateTiming();
+    }
+
+    static void updateTiming() {
+        timing = enabled || SlowAnalysisRecorder.isEnabled();
+    }
+
+    /** 단계의 시작 시각. 꺼져 있으면 0 */
+    public static long start() {
+        return timing ? System.nanoTime() : 0L;
+    }
+
+    /** start 가 0 이 아니면 단계의 소요 시간을 기록한다. */
+    public static void stop(Stage stage, long start) {
+        if (start == 0L)
+            return;
+        long nanos = System.nanoTime() - start;
+        if (enabled)
+            stages[stage.ordinal()].record(nanos);
+        if (SlowAnalysisRecorder.isEnabled())
+            SlowAnalysisRecorder.stage(stage, nanos);
+    }
+
+    public static void fallback(Fallback fallback) {
+        if (enabled)
+            fallbacks[fallback.ordinal()].increment();
+    }
+
+    /** 토큰 타입 ({@link KoreanTokenizer#TOKEN_TYPES}) 별 토큰 수를 센다. */
+    public static void token(String type) {
+        if (enabled) {
+            Integer index = tokenTypes.get(type);
+            tokens[(index == null) ? tokens.length - 1 : index].increment();
+        }
+    }
+
+    public static LatencyHistogram getHistogram(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    public static long getFallbackCount(Fallback fallback) {
+        return fallbacks[fallback.ordinal()].sum();
+    }
+
+    public static long getTokenCount(String type) {
+        Integer index = tokenTypes.get(type);
+        return tokens[(index == null) ? tokens.length - 1 : index].sum();
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : stages) {
+            histogram.reset();
+        }
+        for (StripedCounter counter : fallbacks) {
+            counter.reset();
+        }
+        for (StripedCounter counter : tokens) {
+            counter.reset();
+        }
+    }
+
+    private static synchronized void registerMBean() {
+        if (registered)
+            return;
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            log.debug("MXBean 이 이미 등록되어 있습니다. name=[{}]", OBJECT_NAME);
+        } catch (Exception e) {
+            log.warn("MXBean 을 등록하지 못했습니다. name=[" + OBJECT_NAME + "]", e);
+        }
+    }
+
+    private static final class Bean implements AnalysisMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return AnalysisMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            AnalysisMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public Map<String, Long> getStageCounts() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Stage stage : Stage.values()) {
+                map.put(stage.name(), getHistogram(stage).getCount());
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getStageTotalMicros() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Stage stage : Stage.values()) {
+                map.put(stage.name(), getHistogram(stage).getTotalNanos() / 1000);
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Double> getStageMeanMicros() {
+            Map<String, Double> map = new LinkedHashMap<String, Double>();
+            for (Stage stage : Stage.values()) {
+                map.put(stage.name(), getHistogram(stage).getMeanNanos() / 1000);
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getStageP50Micros() {
+            return percentiles(50);
+        }
+
+        @Override
+        public Map<String, Long> getStageP99Micros() {
+            return percentiles(99);
+        }
+
+        private Map<String, Long> percentiles(double percentile) {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Stage stage : Stage.values()) {
+                map.put(stage.name(), getHistogram(stage).getPercentileNanos(percentile) / 1000);
+            }
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getTokenCounts() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < KoreanTokenizer.TOKEN_TYPES.length; i++) {
+                map.put(KoreanTokenizer.TOKEN_TYPES[i], tokens[i].sum());
+            }
+            map.put(OTHER_TYPE, tokens[tokens.length - 1].sum());
+            return map;
+        }
+
+        @Override
+        public Map<String, Long> getFallbackCounts() {
+            Map<String, Long> map = new LinkedHashMap<String, Long>();
+            for (Fallback fallback : Fallback.values()) {
+                map.put(fallback.name(), getFallbackCount(fallback));
+            }
+            return map;
+        }
+
+        @Override
+        public void reset() {
+            AnalysisMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import java.util.Map;
+
+/**
+ * {@link AnalysisMetrics} 를 JMX 로 공개하는 MXBean 입니다. 시간 단위는 micro seconds 입니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public interface AnalysisMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /** 단계별 실행 횟수 */
+    Map<String, Long> getStageCounts();
+
+    /** 단계별 누적 시간 */
+    Map<String, Long> getStageTotalMicros();
+
+    /** 단계별 평균 시간 */
+    Map<String, Double> getStageMeanMicros();
+
+    /** 단계별 50 백분위 시간 (2의 거듭제곱 구간의 상한) */
+    Map<String, Long> getStageP50Micros();
+
+    /** 단계별 99 백분위 시간 (2의 거듭제곱 구간의 상한) */
+    Map<String, Long> getStageP99Micros();
+
+    /** 토큰 타입 (KOREAN, CHINESE 등) 별 토큰 수 */
+    Map<String, Long> getTokenCounts();
+
+    /** 대체 경로 (UNKNOWN, WORD_SPACING, NGRAM) 별 어절 수 */
+    Map<String, Long> getFallbackCounts();
+
+    /** 모든 값을 0 으로 초기화한다. */
+    void reset();
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 사전 구조 (Trie, 조사/어미 맵, 한자 표, 동의어 FST, 문법 규칙 등) 가 유지하는 heap 크기를 추정합니다.
+ * <p/>
+ * 각 자원의 클래스 초기화 코드가 {@link #register(String, String, Object...)} 로 구조를 등록하고,
+ * 크기는 처음 조회할 때 {@link RamUsage} 로 계산해서 보관합니다. 사전을 다시 로드해서 같은 이름으로 등록하면 다시 계산합니다.
+ * 구조를 처음 등록할 때 {@value #OBJECT_NAME} 으로 {@link DictionaryMemoryMXBean} 을 등록합니다.
+ * <pre>
+ *     Map&lt;String, Long&gt; bytes = DictionaryMemory.getRetainedBytes();   // "DictionaryUtil.dictionary" -&gt; 80776280, ...
+ * </pre>
+ * 구조마다 따로 재므로 여러 구조가 공유하는 객체는 각 구조에 중복해서 셉니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class DictionaryMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(DictionaryMemory.class);
+
+    public static final String OBJECT_NAME = "org.apache.lucene.analysis.kr:type=DictionaryMemory";
+
+    private static final Map<String, Structure> structures = new LinkedHashMap<String, Structure>();
+    private static boolean registered;
+
+    private DictionaryMemory() {}
+
+    /**
+     * 사전 구조를 등록한다. 같은 이름의 구조가 있으면 바꾼다.
+     *
+     * @param resource  구조를 가진 자원 ({@link StartupReport#RESOURCES})
+     * @param structure 구조 이름
+     * @param roots     구조를 이루는 객체들
+     */
+    public static void register(String resource, String structure, Object... roots) {
+        synchronized (DictionaryMemory.class) {
+            structures.put(resource + "." + structure, new Structure(resource, roots));
+        }
+        registerMBean();
+    }
+
+    /** 구조 ("자원.구조") 별 heap 크기 추정치, 등록된 순서. 아직 계산하지 않은 구조는 계산한다. */
+    public static Map<String, Long> getRetainedBytes() {
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for (Map.Entry<String, Structure> entry : snapshot().entrySet()) {
+            map.put(entry.getKey(), entry.getValue().getRetainedBytes());
+        }
+        return map;
+    }
+
+    /** 자원 하나가 가진 구조들의 heap 크기 추정치의 합, 등록된 구조가 없으면 0 */
+    public static long getRetainedBytes(String resource) {
+        long bytes = 0;
+        for (Structure structure : snapshot().values()) {
+            if (structure.resource.equals(resource))
+                bytes += structure.getRetainedBytes();
+        }
+        return bytes;
+    }
+
+    /** 자원별 heap 크기 추정치, 등록된 순서 */
+    public static Map<String, Long> getResourceBytes() {
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for (Structure structure : snapshot().values()) {
+            Long bytes = map.get(structure.resource);
+            map.put(structure.resource, (bytes == null ? 0L : bytes) + structure.getRetainedBytes());
+        }
+        return map;
+    }
+
+    /** 모든 구조의 heap 크기 추정치의 합 */
+    public static long getTotalBytes() {
+        long bytes = 0;
+        for (Structure structure : snapshot().values()) {
+            bytes += structure.getRetainedBytes();
+        }
+        return bytes;
+    }
+
+    /** 계산해 둔 크기를 버린다. 사전의 내용을 직접 바꾼 후에 호출한다. */
+    public static void refresh() {
+        for (Structure structure : snapshot().values()) {
+            structure.retainedBytes = -1L;
+        }
+    }
+
+    private static synchronized Map<String, Structure> snapshot() {
+        return new LinkedHashMap<String, Structure>(structures);
+    }
+
+    private static synchronized void registerMBean() {
+        if (registered)
+            return;
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            log.debug("MXBean 이 이미 등록되어 있습니다. name=[{}]", OBJECT_NAME);
+        } catch (Exception e) {
+            log.warn("MXBean 을 등록하지 못했습니다. name=[" + OBJECT_NAME + "]", e);
+        }
+    }
+
+    private static final class Structure {
+
+        final String resource;
+        final Object[] roots;
+        volatile long retainedBytes = -1L;
+
+        Structure(String resource, Object[] roots) {
+            this.resource = resource;
+            this.roots = roots;
+        }
+
+        long getRetainedBytes() {
+            long bytes = retainedBytes;
+            if (bytes < 0) {
+                bytes = RamUsage.sizeOf(roots);
+                retainedBytes = bytes;
+            }
+            return bytes;
+        }
+    }
+
+    private static final class Bean implements DictionaryMemoryMXBean {
+
+        @Override
+        public Map<String, Long> getRetainedBytes() {
+            return DictionaryMemory.getRetainedBytes();
+        }
+
+        @Override
+        public Map<String, Long> getResourceBytes() {
+            return DictionaryMemory.getResourceBytes();
+        }
+
+        @Override
+        public long getTotalBytes() {
+            return DictionaryMemory.getTotalBytes();
+        }
+
+        @Override
+        public void refresh() {
+            DictionaryMemory.refresh();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import java.util.Map;
+
+/**
+ * {@link DictionaryMemory} 를 JMX 로 공개하는 MXBean 입니다. 크기 단위는 byte 입니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public interface DictionaryMemoryMXBean {
+
+    /** 사전 구조 ("자원.구조") 별 heap 크기 추정치 */
+    Map<String, Long> getRetainedBytes();
+
+    /** 자원 (DictionaryUtil, HanjaUtils 등) 별 heap 크기 추정치 */
+    Map<String, Long> getResourceBytes();
+
+    /** 모든 사전 구조의 heap 크기 추정치의 합 */
+    long getTotalBytes();
+
+    /** 계산해 둔 크기를 버린다. 다음 조회 때 다시 계산한다. */
+    void refresh();
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+/**
+ * 사전 분석에 실패해서 대체 경로로 처리한 어절의 종류입니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public enum Fallback {
+
+    /** 사전으로 분석하지 못한 어절 (최선의 분석 결과가 SCORE_COMPOUNDS 미만) */
+    UNKNOWN,
+
+    /** 띄어쓰기 복원을 시도한 어절 */
+    WORD_SPACING,
+
+    /** n-gram 으로 색인하도록 표시한 어간 */
+    NGRAM
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 소요 시간 (nano seconds) 의 분포를 2의 거듭제곱 구간으로 세는 히스토그램입니다.
+ * <p/>
+ * 구간 i 는 [2^(i-1), 2^i) 나노초이며, 기록할 때 비교나 나눗셈 없이 leading zero 수로 구간을 정합니다.
+ * {@link StripedCounter} 와 같이 스레드마다 다른 stripe 에 기록합니다.
+ * 백분위 값은 해당 구간의 상한이므로 최대 2배까지 크게 나올 수 있습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class LatencyHistogram {
+
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(StripedCounter.STRIPES * BUCKETS);
+    private final StripedCounter totalNanos = new StripedCounter();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        buckets.incrementAndGet(StripedCounter.stripe() * BUCKETS + bucket);
+        totalNanos.add(nanos);
+    }
+
+    /** 구간별 기록 수 */
+    public long[] snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int s = 0; s < StripedCounter.STRIPES; s++) {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] += buckets.get(s * BUCKETS + b);
+            }
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (long c : snapshot()) {
+            count += c;
+        }
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return (count == 0) ? 0 : getTotalNanos() / (double) count;
+    }
+
+    /**
+     * 백분위 값 (구간의 상한)
+     *
+     * @param percentile 0 ~ 100
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = snapshot();
+        long count = 0;
+        for (long c : counts) {
+            count += c;
+        }
+        if (count == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= Math.max(1, rank))
+                return (b == 0) ? 0 : (b >= 63 ? Long.MAX_VALUE : 1L << b);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0L);
+        }
+        totalNanos.reset();
+    }
+}
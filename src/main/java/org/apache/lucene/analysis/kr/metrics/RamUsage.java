@@ -0,0 +1,220 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * 객체 그래프가 차지하는 heap 크기를 추정합니다.
+ * <p/>
+ * {@link RamUsageEstimator#sizeOf(Object)} 처럼 참조를 따라가며 객체마다 한번씩 크기를 더하지만,
+ * Java 9 이후로는 java.* 클래스의 필드에 reflection 으로 접근할 수 없으므로 JDK 의 컬렉션은 내부 필드 대신
+ * 공개 API (크기, 원소) 로 노드와 해시 테이블의 크기를 추정합니다. String 은 compact string 을 고려하고,
+ * 그 밖의 JDK 객체는 얕은 크기만 셉니다. static 필드는 따라가지 않습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class RamUsage {
+
+    private static final int REF = RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+    private static final int HEADER = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER;
+
+    /** Java 9 부터 Latin-1 문자만 가진 문자열은 문자당 1 바이트를 쓴다. */
+    private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version", "1.").startsWith("1.");
+
+    private static final long STRING_SIZE = RamUsageEstimator.shallowSizeOfInstance(String.class);
+
+    /** HashMap.Node: hash, key, value, next */
+    private static final long HASH_NODE_SIZE = RamUsageEstimator.alignObjectSize(HEADER + RamUsageEstimator.NUM_BYTES_INT + 3 * REF);
+
+    /** LinkedHashMap.Entry: HashMap.Node + before, after */
+    private static final long LINKED_NODE_SIZE = RamUsageEstimator.alignObjectSize(HASH_NODE_SIZE + 2 * REF);
+
+    /** TreeMap.Entry: key, value, left, right, parent, color */
+    private static final long TREE_NODE_SIZE = RamUsageEstimator.alignObjectSize(HEADER + 5 * REF + RamUsageEstimator.NUM_BYTES_BOOLEAN);
+
+    /** LinkedList.Node: item, next, prev */
+    private static final long LIST_NODE_SIZE = RamUsageEstimator.alignObjectSize(HEADER + 3 * REF);
+
+    private static final Map<Class<?>, ClassInfo> classCache = new IdentityHashMap<Class<?>, ClassInfo>();
+
+    private RamUsage() {}
+
+    /**
+     * 객체들과 그 객체들에서 닿는 모든 객체의 크기를 더한다. 여러 객체가 공유하는 객체는 한번만 센다.
+     *
+     * @param roots 크기를 잴 객체들, null 은 무시한다.
+     * @return 추정한 byte 수
+     */
+    public static long sizeOf(Object... roots) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        ArrayList<Object> stack = new ArrayList<Object>();
+        for (Object root : roots) {
+            if (root != null) stack.add(root);
+        }
+
+        long size = 0;
+        while (!stack.isEmpty()) {
+            Object obj = stack.remove(stack.size() - 1);
+            if (obj == null || !seen.add(obj))
+                continue;
+
+            Class<?> clazz = obj.getClass();
+            if (clazz.isArray()) {
+                size += sizeOfArray(obj, clazz, stack);
+            } else if (obj instanceof String) {
+                size += sizeOfString((String) obj);
+            } else if (obj instanceof Class) {
+                // 클래스 메타데이터는 heap 크기에서 뺀다.
+            } else if (isJdkClass(clazz)) {
+                size += sizeOfJdkObject(obj, clazz, stack);
+            } else {
+                ClassInfo info = classInfo(clazz);
+                size += info.shallowSize;
+                for (Field field : info.references) {
+                    try {
+                        stack.add(field.get(obj));
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException("필드를 읽을 수 없습니다. field=" + field, e);
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /** 문자열 하나의 크기 (String 객체 + 문자 배열) */
+    public static long sizeOfString(String s) {
+        int bytesPerChar = 2;
+        if (COMPACT_STRINGS) {
+            bytesPerChar = 1;
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) > 0xFF) {
+                    bytesPerChar = 2;
+                    break;
+                }
+            }
+        }
+        return STRING_SIZE + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) s.length() * bytesPerChar);
+    }
+
+    private static long sizeOfArray(Object array, Class<?> clazz, List<Object> stack) {
+        Class<?> component = clazz.getComponentType();
+        int length = Array.getLength(array);
+        if (!component.isPrimitive()) {
+            Object[] objects = (Object[]) array;
+            for (Object element : objects) {
+                if (element != null) stack.add(element);
+            }
+            return RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) length * REF);
+        }
+        return RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) length * primitiveSize(component));
+    }
+
+    /** 해시 테이블의 크기. load factor 0.75 에서 size 개를 담는 2의 거듭제곱 크기의 참조 배열 */
+    private static long hashTableSize(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)));
+        if (capacity < size / 0.75f) capacity <<= 1;
+        return RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) capacity * REF);
+    }
+
+    private static long sizeOfJdkObject(Object obj, Class<?> clazz, List<Object> stack) {
+        long size = RamUsageEstimator.shallowSizeOfInstance(clazz);
+
+        if (obj instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) obj;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                stack.add(entry.getKey());
+                stack.add(entry.getValue());
+            }
+            if (obj instanceof SortedMap)
+                size += map.size() * TREE_NODE_SIZE;
+            else if (obj instanceof LinkedHashMap)
+                size += map.size() * LINKED_NODE_SIZE + hashTableSize(map.size());
+            else
+                size += map.size() * HASH_NODE_SIZE + hashTableSize(map.size());
+        } else if (obj instanceof Collection) {
+            Collection<?> collection = (Collection<?>) obj;
+            for (Object element : collection) {
+                stack.add(element);
+            }
+            int n = collection.size();
+            if (obj instanceof RandomAccess) {
+                // ArrayList 등: 원소 참조 배열
+                size += RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) n * REF);
+            } else if (obj instanceof SortedSet) {
+                // TreeSet: 내부 TreeMap
+                size += RamUsageEstimator.shallowSizeOfInstance(TreeMap.class) + n * TREE_NODE_SIZE;
+            } else if (obj instanceof Set) {
+                // HashSet: 내부 HashMap
+                size += RamUsageEstimator.shallowSizeOfInstance(HashMap.class) + n * HASH_NODE_SIZE + hashTableSize(n);
+            } else {
+                size += n * LIST_NODE_SIZE;
+            }
+        }
+        return size;
+    }
+
+    private static boolean isJdkClass(Class<?> clazz) {
+        String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("sun.") || name.startsWith("jdk.");
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == boolean.class || type == byte.class) return 1;
+        if (type == char.class || type == short.class) return 2;
+        if (type == int.class || type == float.class) return 4;
+        return 8;
+    }
+
+    private static synchronized ClassInfo classInfo(Class<?> clazz) {
+        ClassInfo info = classCache.get(clazz);
+        if (info == null) {
+            List<Field> references = new ArrayList<Field>();
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                if (isJdkClass(c))
+                    continue;
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive())
+                        continue;
+                    field.setAccessible(true);
+                    references.add(field);
+                }
+            }
+            info = new ClassInfo(RamUsageEstimator.shallowSizeOfInstance(clazz), references.toArray(new Field[references.size()]));
+            classCache.put(clazz, info);
+        }
+        return info;
+    }
+
+    private static final class ClassInfo {
+
+        final long shallowSize;
+        final Field[] references;
+
+        ClassInfo(long shallowSize, Field[] references) {
+            this.shallowSize = shallowSize;
+            this.references = references;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link SlowAnalysisRecorder} 가 기록한, 분석 시간이 임계값을 넘은 입력 하나입니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class SlowAnalysis {
+
+    private final String text;
+    private final long totalNanos;
+    private final long timestamp;
+    private final String threadName;
+    private final long[] stageNanos;
+    private final int[] stageCounts;
+
+    SlowAnalysis(String text, long totalNanos, long[] stageNanos, int[] stageCounts) {
+        this.text = text;
+        this.totalNanos = totalNanos;
+        this.timestamp = System.currentTimeMillis();
+        this.threadName = Thread.currentThread().getName();
+        this.stageNanos = stageNanos.clone();
+        this.stageCounts = stageCounts.clone();
+    }
+
+    /** 분석한 어절 (또는 토큰) */
+    public String getText() {
+        return text;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /** 기록한 시각 (epoch millis) */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /** 실행된 단계별 누적 시간 (nano seconds), 실행 순서가 아닌 {@link Stage} 순서 */
+    public Map<Stage, Long> getStageNanos() {
+        Map<Stage, Long> map = new LinkedHashMap<Stage, Long>();
+        for (Stage stage : Stage.values()) {
+            if (stageCounts[stage.ordinal()] > 0)
+                map.put(stage, stageNanos[stage.ordinal()]);
+        }
+        return map;
+    }
+
+    /** 단계의 실행 횟수 */
+    public int getStageCount(Stage stage) {
+        return stageCounts[stage.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%.3f ms", totalNanos / 1e6)).append('\t').append(text).append('\t');
+        boolean first = true;
+        for (Map.Entry<Stage, Long> entry : getStageNanos().entrySet()) {
+            if (!first) sb.append(", ");
+            sb.append(entry.getKey()).append('=').append(String.format("%.3f ms", entry.getValue() / 1e6))
+              .append(" x").append(stageCounts[entry.getKey().ordinal()]);
+            first = false;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 분석 시간이 임계값을 넘은 어절을 기록합니다.
+ * <p/>
+ * {@link org.apache.lucene.analysis.kr.KoreanFilter} 의 토큰 분석과 {@link org.apache.lucene.analysis.kr.morph.MorphAnalyzer#analyze(String, int)}
+ * 를 {@link #begin()} / {@link #end(String, long)} 로 감싸고, 그 안에서 실행된 {@link Stage} 들의 시간을 스레드별로 모읍니다.
+ * 중첩된 경우 가장 바깥쪽 구간만 기록합니다. 전체 시간이 임계값 이상이면 가장 느린 capacity 개만 메모리에 보관합니다.
+ * <p/>
+ * 기본값은 꺼져 있으며, 시스템 속성 {@value #THRESHOLD_PROPERTY} (ms) 나 {@link #setThreshold(long, TimeUnit)} 로 켭니다.
+ * 켜지면 {@value #OBJECT_NAME} 으로 {@link SlowAnalysisRecorderMXBean} 을 등록합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class SlowAnalysisRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowAnalysisRecorder.class);
+
+    public static final String THRESHOLD_PROPERTY = "lucene.korean.slowAnalysisMillis";
+    public static final String OBJECT_NAME = "org.apache.lucene.analysis.kr:type=SlowAnalysisRecorder";
+
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private static final int STAGES = Stage.values().length;
+
+    /** 분석 시간이 짧은 것이 먼저 나온다. */
+    private static final Comparator<SlowAnalysis> FASTEST_FIRST = new Comparator<SlowAnalysis>() {
+        @Override
+        public int compare(SlowAnalysis a, SlowAnalysis b) {
+            return (a.getTotalNanos() < b.getTotalNanos()) ? -1 : ((a.getTotalNanos() == b.getTotalNanos()) ? 0 : 1);
+        }
+    };
+
+    private static final ThreadLocal<Trace> TRACE = new ThreadLocal<Trace>() {
+        @Override
+        protected Trace initialValue() {
+            return new Trace();
+        }
+    };
+
+    /** 음수이면 꺼져 있다. */
+    private static volatile long thresholdNanos = -1;
+
+    private static int capacity = DEFAULT_CAPACITY;
+    private static final PriorityQueue<SlowAnalysis> slowest = new PriorityQueue<SlowAnalysis>(DEFAULT_CAPACITY, FASTEST_FIRST);
+    private static final AtomicLong slowCount = new AtomicLong();
+    private static boolean registered;
+
+    static {
+        long millis = Long.getLong(THRESHOLD_PROPERTY, -1L);
+        if (millis >= 0)
+            setThreshold(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private SlowAnalysisRecorder() {}
+
+    public static boolean isEnabled() {
+        return thresholdNanos >= 0;
+    }
+
+    /** 임계값을 설정하고 기록을 켠다. 0 이면 모든 입력을 기록한다. */
+    public static void setThreshold(long threshold, TimeUnit unit) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("threshold must not be negative. threshold=" + threshold);
+        registerMBean();
+        thresholdNanos = unit.toNanos(threshold);
+        AnalysisMetrics.updateTiming();
+    }
+
+    public static long getThreshold(TimeUnit unit) {
+        long nanos = thresholdNanos;
+        return (nanos < 0) ? -1 : unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** 기록을 끈다. 이미 기록한 것은 남겨둔다. */
+    public static void disable() {
+        thresholdNanos = -1;
+        AnalysisMetrics.updateTiming();
+    }
+
+    public static synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public static synchronized void setCapacity(int newCapacity) {
+        if (newCapacity < 1)
+            throw new IllegalArgumentException("capacity must be positive. capacity=" + newCapacity);
+        capacity = newCapacity;
+        while (slowest.size() > capacity) {
+            slowest.poll();
+        }
+    }
+
+    /**
+     * 분석 구간을 시작한다.
+     *
+     * @return 시작 시각, 꺼져 있으면 0
+     */
+    public static long begin() {
+        if (thresholdNanos < 0)
+            return 0L;
+        Trace trace = TRACE.get();
+        if (trace.depth++ == 0)
+            trace.clear();
+        return System.nanoTime();
+    }
+
+    /**
+     * 분석 구간을 끝낸다. 가장 바깥쪽 구간이고 임계값을 넘었으면 기록한다.
+     *
+     * @param text  분석한 어절
+     * @param start {@link #begin()} 의 반환값
+     */
+    public static void end(String text, long start) {
+        if (start == 0L)
+            return;
+        Trace trace = TRACE.get();
+        if (--trace.depth > 0)
+            return;
+
+        long elapsed = System.nanoTime() - start;
+        long threshold = thresholdNanos;
+        if (threshold >= 0 && elapsed >= threshold)
+            record(new SlowAnalysis(text, elapsed, trace.nanos, trace.counts));
+    }
+
+    /** 현재 스레드가 분석 구간 안에 있으면 단계의 시간을 더한다. */
+    static void stage(Stage stage, long nanos) {
+        Trace trace = TRACE.get();
+        if (trace.depth > 0) {
+            trace.nanos[stage.ordinal()] += nanos;
+            trace.counts[stage.ordinal()]++;
+        }
+    }
+
+    private static synchronized void record(SlowAnalysis analysis) {
+        slowCount.incrementAndGet();
+        if (log.isDebugEnabled())
+            log.debug("분석 시간이 임계값을 넘었습니다. {}", analysis);
+
+        if (slowest.size() < capacity) {
+            slowest.add(analysis);
+        } else if (FASTEST_FIRST.compare(slowest.peek(), analysis) < 0) {
+            slowest.poll();
+            slowest.add(analysis);
+        }
+    }
+
+    /** 보관 중인 기록을 가장 느린 순서로 반환한다. */
+    public static synchronized List<SlowAnalysis> getSlowest() {
+        List<SlowAnalysis> list = new ArrayList<SlowAnalysis>(slowest);
+        Collections.sort(list, Collections.reverseOrder(FASTEST_FIRST));
+        return list;
+    }
+
+    public static long getSlowCount() {
+        return slowCount.get();
+    }
+
+    public static synchronized void clear() {
+        slowest.clear();
+        slowCount.set(0);
+    }
+
+    private static synchronized void registerMBean() {
+        if (registered)
+            return;
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            log.debug("MXBean 이 이미 등록되어 있습니다. name=[{}]", OBJECT_NAME);
+        } catch (Exception e) {
+            log.warn("MXBean 을 등록하지 못했습니다. name=[" + OBJECT_NAME + "]", e);
+        }
+    }
+
+    /** 스레드별 분석 구간의 단계별 시간 */
+    private static final class Trace {
+        int depth;
+        final long[] nanos = new long[STAGES];
+        final int[] counts = new int[STAGES];
+
+        void clear() {
+            Arrays.fill(nanos, 0L);
+            Arrays.fill(counts, 0);
+        }
+    }
+
+    private static final class Bean implements SlowAnalysisRecorderMXBean {
+
+        @Override
+        public long getThresholdMillis() {
+            return getThreshold(TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void setThresholdMillis(long thresholdMillis) {
+            if (thresholdMillis < 0) disable();
+            else setThreshold(thresholdMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int getCapacity() {
+            return SlowAnalysisRecorder.getCapacity();
+        }
+
+        @Override
+        public void setCapacity(int capacity) {
+            SlowAnalysisRecorder.setCapacity(capacity);
+        }
+
+        @Override
+        public long getSlowCount() {
+            return SlowAnalysisRecorder.getSlowCount();
+        }
+
+        @Override
+        public String[] getSlowest() {
+            List<SlowAnalysis> list = SlowAnalysisRecorder.getSlowest();
+            String[] lines = new String[list.size()];
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = list.get(i).toString();
+            }
+            return lines;
+        }
+
+        @Override
+        public void clear() {
+            SlowAnalysisRecorder.clear();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+/**
+ * {@link SlowAnalysisRecorder} 를 JMX 로 공개하는 MXBean 입니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public interface SlowAnalysisRecorderMXBean {
+
+    /** 기록할 분석 시간의 임계값, 음수이면 기록하지 않는다. */
+    long getThresholdMillis();
+
+    void setThresholdMillis(long thresholdMillis);
+
+    /** 보관할 최대 기록 수 */
+    int getCapacity();
+
+    void setCapacity(int capacity);
+
+    /** 임계값을 넘은 전체 횟수 (보관하지 못한 것 포함) */
+    long getSlowCount();
+
+    /** 가장 느린 순서로 정렬한 기록 ("시간 \t 어절 \t 단계별 시간") */
+    String[] getSlowest();
+
+    void clear();
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+/**
+ * 소요 시간을 재는 분석 단계입니다. 단계는 겹칠 수 있습니다. (예: MORPH_ANALYZE 는 ANALYSIS_BY_RULE 을 포함)
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public enum Stage {
+
+    /** {@link org.apache.lucene.analysis.kr.morph.MorphAnalyzer#analyze(String, int)} 전체 */
+    MORPH_ANALYZE,
+
+    /** 조사, 어미 규칙에 의한 분석 후보 생성 */
+    ANALYSIS_BY_RULE,
+
+    /** 복합명사 분해 */
+    CONFIRM_CNOUN,
+
+    /** {@link org.apache.lucene.analysis.kr.morph.WordSpaceAnalyzer} 의 띄어쓰기 복원 */
+    WORD_SPACE,
+
+    /** 동의어 탐색 */
+    SYNONYM,
+
+    /** 한자 -> 한글 변환 */
+    HANJA,
+
+    /** {@link org.apache.lucene.analysis.kr.tagging.Tagger} 의 분석 결과 선택 */
+    TAGGING
+}
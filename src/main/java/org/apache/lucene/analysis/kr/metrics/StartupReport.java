@@ -0,0 +1,290 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사전 등 정적 자원의 초기화 비용을 기록합니다.
+ * <p/>
+ * 자원 ({@link #RESOURCES}) 마다 읽기 (파일에서 줄을 읽는 시간), 파싱 (줄을 항목으로 바꾸는 시간), 빌드 (조회 구조를 만드는 시간),
+ * 항목 수, 유지하는 heap 크기를 기록합니다. 각 자원의 클래스 초기화 코드가 {@link Timer} 로 단계를 표시합니다.
+ * <pre>
+ *     StartupReport.Timer timer = StartupReport.start(StartupReport.SYLLABLE_UTIL);
+ *     List&lt;String&gt; lines = FileUtil.readLines(...);
+ *     timer.read();
+ *     ...
+ *     timer.parse();
+ *     timer.finish(syllables.size());
+ * </pre>
+ * 모든 자원이 로드되면 시간과 항목 수를 한 줄로 로그에 남깁니다.
+ * heap 크기는 자원이 {@link DictionaryMemory} 에 등록한 구조들의 크기의 합이며, 객체 그래프를 훑어야 하므로 처음 요청할 때 계산합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class StartupReport {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    public static final String KOREAN_ENV = "KoreanEnv";
+    public static final String DICTIONARY_UTIL = "DictionaryUtil";
+    public static final String SYLLABLE_UTIL = "SyllableUtil";
+    public static final String HANJA_UTILS = "HanjaUtils";
+    public static final String SYNONYM_UTIL = "SynonymUtil";
+    public static final String TAGGER = "Tagger";
+
+    /** 기록하는 자원들, 로드 순서 */
+    public static final String[] RESOURCES = { KOREAN_ENV, DICTIONARY_UTIL, SYLLABLE_UTIL, HANJA_UTILS, SYNONYM_UTIL, TAGGER };
+
+    private static final String[] CLASS_NAMES = {
+            "org.apache.lucene.analysis.kr.utils.KoreanEnv",
+            "org.apache.lucene.analysis.kr.utils.DictionaryUtil",
+            "org.apache.lucene.analysis.kr.utils.SyllableUtil",
+            "org.apache.lucene.analysis.kr.utils.HanjaUtils",
+            "org.apache.lucene.analysis.kr.utils.SynonymUtil",
+            "org.apache.lucene.analysis.kr.tagging.Tagger"
+    };
+
+    private static final List<Entry> entries = new ArrayList<Entry>();
+    private static boolean logged;
+
+    private StartupReport() {}
+
+    /** 자원 하나의 초기화 시간 측정을 시작한다. {@link Timer#finish(int)} 를 호출해야 기록된다. */
+    public static Timer start(String resource) {
+        return new Timer(resource, true);
+    }
+
+    /**
+     * 기록하지 않는 timer. 초기화가 끝난 뒤에 사전을 다시 로드하는 코드가 초기화 코드와 같은 메소드를 쓸 때 넘긴다.
+     * {@link Timer#finish(int)} 를 호출하지 않아도 되고, 호출해도 초기화 기록을 바꾸지 않는다.
+     */
+    public static Timer untracked(String resource) {
+        return new Timer(resource, false);
+    }
+
+    /**
+     * 아직 로드되지 않은 자원들의 클래스를 초기화한다.
+     *
+     * @return 모든 자원의 기록
+     */
+    public static List<Entry> loadAll() {
+        ClassLoader loader = StartupReport.class.getClassLoader();
+        for (String className : CLASS_NAMES) {
+            try {
+                Class.forName(className, true, loader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("자원 클래스를 찾을 수 없습니다. class=" + className, e);
+            }
+        }
+        return getEntries();
+    }
+
+    /** 지금까지 로드된 자원들의 기록, 로드된 순서 */
+    public static synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<Entry>(entries));
+    }
+
+    /** 자원의 기록, 아직 로드되지 않았으면 null */
+    public static synchronized Entry getEntry(String resource) {
+        for (Entry entry : entries) {
+            if (entry.getResource().equals(resource))
+                return entry;
+        }
+        return null;
+    }
+
+    /** 로드된 자원들의 초기화 시간의 합 */
+    public static long getTotalNanos() {
+        long total = 0;
+        for (Entry entry : getEntries()) {
+            total += entry.getTotalNanos();
+        }
+        return total;
+    }
+
+    /**
+     * 로드된 자원들의 기록을 한 줄로 만든다.
+     *
+     * @param retainedHeap heap 크기를 포함할지 여부. 포함하면 아직 계산하지 않은 자원의 크기를 계산한다.
+     */
+    public static String getSummary(boolean retainedHeap) {
+        List<Entry> list = getEntries();
+        StringBuilder sb = new StringBuilder();
+        sb.append("startup ").append(toMillis(getTotalNanos())).append(" ms:");
+        for (Entry entry : list) {
+            sb.append(' ').append(entry.getResource())
+              .append(" [").append(toMillis(entry.getTotalNanos())).append(" ms")
+              .append(" read=").append(toMillis(entry.getReadNanos()))
+              .append(" parse=").append(toMillis(entry.getParseNanos()))
+              .append(" build=").append(toMillis(entry.getBuildNanos()))
+              .append(" entries=").append(entry.getEntries());
+            if (retainedHeap)
+                sb.append(" heap=").append(RamUsageEstimator.humanReadableUnits(entry.getRetainedBytes()));
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /** heap 크기를 포함한 기록을 한 줄로 로그에 남긴다. */
+    public static void logSummary() {
+        log.info(getSummary(true));
+    }
+
+    private static void record(Entry entry) {
+        boolean complete;
+        synchronized (StartupReport.class) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).getResource().equals(entry.getResource())) {
+                    entries.remove(i);
+                    break;
+                }
+            }
+            entries.add(entry);
+            complete = !logged && entries.size() == RESOURCES.length;
+            if (complete)
+                logged = true;
+        }
+        if (log.isDebugEnabled())
+            log.debug("자원을 로드했습니다. {}", entry);
+        if (complete)
+            log.info(getSummary(false));
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * 초기화 단계의 시간을 잰다. 각 메소드는 직전 표시 (또는 시작) 이후의 시간을 해당 단계에 더하므로,
+     * 같은 단계가 여러번 나와도 ({@code read(); parse(); read(); parse();}) 된다.
+     */
+    public static final class Timer {
+
+        private final String resource;
+        private final boolean tracked;
+        private final long start;
+        private long mark;
+        private long readNanos;
+        private long parseNanos;
+        private long buildNanos;
+
+        private Timer(String resource, boolean tracked) {
+            this.resource = resource;
+            this.tracked = tracked;
+            this.start = System.nanoTime();
+            this.mark = start;
+        }
+
+        private long lap() {
+            long now = System.nanoTime();
+            long elapsed = now - mark;
+            mark = now;
+            return elapsed;
+        }
+
+        /** 직전 표시 이후의 시간을 읽기 시간에 더한다. */
+        public void read() {
+            readNanos += lap();
+        }
+
+        /** 직전 표시 이후의 시간을 파싱 시간에 더한다. */
+        public void parse() {
+            parseNanos += lap();
+        }
+
+        /** 직전 표시 이후의 시간을 빌드 시간에 더한다. */
+        public void build() {
+            buildNanos += lap();
+        }
+
+        /**
+         * 마지막 표시 이후의 시간은 빌드 시간에 더하고 기록한다. ({@link #untracked(String)} 로 만든 timer 는 기록하지 않는다)
+         *
+         * @param entries 로드한 항목 수
+         */
+        public Entry finish(int entries) {
+            build();
+            Entry entry = new Entry(resource, readNanos, parseNanos, buildNanos, entries);
+            if (tracked)
+                record(entry);
+            return entry;
+        }
+    }
+
+    /** 자원 하나의 초기화 기록 */
+    public static final class Entry {
+
+        private final String resource;
+        private final long readNanos;
+        private final long parseNanos;
+        private final long buildNanos;
+        private final int entries;
+
+        Entry(String resource, long readNanos, long parseNanos, long buildNanos, int entries) {
+            this.resource = resource;
+            this.readNanos = readNanos;
+            this.parseNanos = parseNanos;
+            this.buildNanos = buildNanos;
+            this.entries = entries;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public long getReadNanos() {
+            return readNanos;
+        }
+
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        public long getBuildNanos() {
+            return buildNanos;
+        }
+
+        public long getTotalNanos() {
+            return readNanos + parseNanos + buildNanos;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        /** 자원이 유지하는 heap 크기의 추정치 ({@link DictionaryMemory#getRetainedBytes(String)}) */
+        public long getRetainedBytes() {
+            return DictionaryMemory.getRetainedBytes(resource);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: read=%d ms, parse=%d ms, build=%d ms, entries=%d",
+                                 resource, toMillis(readNanos), toMillis(parseNanos), toMillis(buildNanos), entries);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 여러 스레드가 동시에 더하는 카운터입니다.
+ * <p/>
+ * 스레드 id 로 고른 stripe 에만 더하므로 스레드들이 하나의 캐시 라인을 두고 경쟁하지 않습니다.
+ * stripe 사이는 캐시 라인 크기만큼 떨어뜨려 놓습니다. 값을 읽을 때 모든 stripe 를 더합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class StripedCounter {
+
+    /** 64 바이트 (long 8개) 마다 stripe 하나 */
+    static final int PAD = 8;
+
+    static final int STRIPES;
+    private static final int MASK;
+
+    static {
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        STRIPES = Math.min(64, stripes);
+        MASK = STRIPES - 1;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    /** 현재 스레드의 stripe 번호 */
+    static int stripe() {
+        return (int) (Thread.currentThread().getId() & MASK);
+    }
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void add(long x) {
+        cells.addAndGet(stripe() * PAD, x);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+    public void reset() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells.set(i * PAD, 0L);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.morph;
+
+import org.apache.lucene.analysis.kr.utils.DictionaryUtil;
+import org.apache.lucene.analysis.kr.utils.DictionarySource;
+import org.apache.lucene.analysis.kr.utils.HanjaUtils;
+import org.apache.lucene.analysis.kr.utils.KoreanEnv;
+import org.apache.lucene.analysis.kr.utils.StringUtil;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 한자 어절을 단어 단위로 한글로 변환하고, 변환과 동시에 단어로 분리한다.
+ * <p/>
+ * 왼쪽부터 한 번만 훑으면서 각 위치에서 가장 긴 단어를 찾는다.
+ * <ol>
+ * <li>한자 단어 사전 (cj.dic) 을 컴파일한 FST 에서 한자 그대로 가장 긴 단어를 찾고, 있으면 사전의 음으로 읽는다.
+ * (樂 처럼 음이 여러 개인 한자를 단어에 맞게 읽을 수 있다)</li>
+ * <li>한자의 대표음으로 읽은 한글을 형태소 사전의 Trie 에서 접두어로 찾아서 가장 긴 명사를 고른다.</li>
+ * <li>어느 사전에도 없는 한자는 이어 붙여서 하나의 미등록 단어로 만든다.</li>
+ * </ol>
+ * 한 위치에서 살펴보는 사전 단어의 수와 길이는 {@link #getMaxCandidates()}, {@link #getMaxWordLength()} 로 제한한다.
+ * 버퍼를 재사용하므로 thread-safe 하지 않다. 필터마다 인스턴스를 만들어 사용한다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class HanjaWordConverter {
+
+    private static final Logger log = LoggerFactory.getLogger(HanjaWordConverter.class);
+
+    public static final int DEFAULT_MAX_WORD_LENGTH = 8;
+    public static final int DEFAULT_MAX_CANDIDATES = 8;
+
+    /** 컴파일한 한자 단어 사전, {@link #reloadCJWords(List)} 로 바꾼다. */
+    private static volatile CJDictionary cjDictionary = CJDictionary.compile(DictionarySource.readLines(KoreanEnv.FILE_CJ));
+
+    /**
+     * 한자 단어 사전 (cj.dic) 의 줄들로 사전을 다시 컴파일한다. 이미 만든 변환기도 다음 변환부터 새 사전을 쓴다.
+     * ({@link DictionaryUtil#reloadChanged()} 가 cj.dic 이 바뀌면 호출한다)
+     *
+     * @param lines cj.dic 의 줄들, "한자:음" 형식
+     */
+    public static void reloadCJWords(List<String> lines) throws MorphException {
+        cjDictionary = CJDictionary.compile(lines);
+    }
+
+    /** 한자 단어 -> 음의 순번인 FST 와 순번별 음. 만든 후에 변경하지 않는다. */
+    private static final class CJDictionary {
+
+        /** 단어가 없으면 null */
+        final FST<Long> fst;
+        final char[][] readings;
+
+        private CJDictionary(FST<Long> fst, char[][] readings) {
+            this.fst = fst;
+            this.readings = readings;
+        }
+
+        static CJDictionary compile(List<String> lines) throws MorphException {
+            // FST 는 정렬된 입력이 필요하다.
+            TreeMap<String, String> words = new TreeMap<String, String>();
+            for (String line : lines) {
+                String[] infos = StringUtil.split(line, ":");
+                if (infos.length != 2) continue;
+                String hanja = infos[0].trim();
+                String hangul = infos[1].trim();
+                // 음은 한자와 글자 단위로 대응해야 분리한 위치를 한자에도 그대로 쓸 수 있다.
+                if (hanja.length() == 0 || hanja.length() != hangul.length()) continue;
+                words.put(hanja, hangul);
+            }
+
+            try {
+                org.apache.lucene.util.fst.Builder<Long> builder =
+                        new org.apache.lucene.util.fst.Builder<Long>(FST.INPUT_TYPE.BYTE2, PositiveIntOutputs.getSingleton(true));
+                char[][] readings = new char[words.size()][];
+                IntsRef scratch = new IntsRef();
+                int ordinal = 0;
+                for (Map.Entry<String, String> entry : words.entrySet()) {
+                    String hanja = entry.getKey();
+                    scratch.grow(hanja.length());
+                    scratch.length = hanja.length();
+                    for (int i = 0; i < hanja.length(); i++) {
+                        scratch.ints[i] = hanja.charAt(i);
+                    }
+                    builder.add(scratch, (long) ordinal);
+                    readings[ordinal++] = entry.getValue().toCharArray();
+                }
+                FST<Long> fst = words.isEmpty() ? null : builder.finish();
+                log.info("한자 단어 사전을 컴파일했습니다. 단어수=[{}], 등록수=[{}]", lines.size(), words.size());
+                return new CJDictionary(fst, readings);
+            } catch (IOException e) {
+                throw new MorphException("한자 단어 사전을 컴파일하는데 실패했습니다.", e);
+            }
+        }
+    }
+
+    private final int maxWordLength;
+    private final int maxCandidates;
+
+    private final WordEntry[] entries;
+    private final int[] lengths;
+    private final FST.Arc<Long> arc = new FST.Arc<Long>();
+
+    /** fstReader 를 만든 사전, 사전이 바뀌면 reader 를 다시 만든다. */
+    private CJDictionary dictionary;
+    private FST.BytesReader fstReader;
+
+    /** 한자의 한글 음 */
+    private char[] reading = new char[16];
+
+    public HanjaWordConverter() {
+        this(DEFAULT_MAX_WORD_LENGTH, DEFAULT_MAX_CANDIDATES);
+    }
+
+    /**
+     * @param maxWordLength 사전에서 찾을 단어의 최대 길이
+     * @param maxCandidates 한 위치에서 살펴볼 사전 단어의 최대 수
+     */
+    public HanjaWordConverter(int maxWordLength, int maxCandidates) {
+        this.maxWordLength = maxWordLength;
+        this.maxCandidates = maxCandidates;
+        this.entries = new WordEntry[maxCandidates];
+        this.lengths = new int[maxCandidates];
+    }
+
+    public int getMaxWordLength() {
+        return maxWordLength;
+    }
+
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    /**
+     * 한자 어절을 한글로 변환하고, 단어로 분리한다.
+     *
+     * @param hanja    한자 어절
+     * @param segments 분리한 단어를 추가할 목록. 단어는 한글이고, offset 은 어절에서의 시작 위치,
+     *                 exist 는 사전에 있는 단어인지 여부이다. 한자와 한글은 글자 단위로 대응한다.
+     * @return 어절 전체의 한글 음
+     */
+    public String convert(String hanja, List<CompoundEntry> segments) throws MorphException {
+        final int length = hanja.length();
+        if (reading.length < length)
+            reading = new char[ArrayUtil.oversize(length, RamUsageEstimator.NUM_BYTES_CHAR)];
+
+        for (int i = 0; i < length; i++) {
+            reading[i] = HanjaUtils.firstReading(hanja.charAt(i));
+        }
+
+        int unknownStart = -1;
+        int i = 0;
+        while (i < length) {
+            int matchLength = matchCJWord(hanja, i);
+            WordEntry matched = null;
+
+            int count = DictionaryUtil.findPrefixes(reading, i, Math.min(length - i, maxWordLength), entries, lengths);
+            for (int k = count - 1; k >= 0; k--) {
+                if (lengths[k] < 2 || lengths[k] <= matchLength)
+                    break;
+                if (isNoun(entries[k])) {
+                    matchLength = lengths[k];
+                    matched = entries[k];
+                    break;
+                }
+            }
+
+            if (matchLength == 0) {
+                if (unknownStart < 0) unknownStart = i;
+                i++;
+                continue;
+            }
+
+            if (unknownStart >= 0) {
+                segments.add(new CompoundEntry(new String(reading, unknownStart, i - unknownStart), unknownStart, false));
+                unknownStart = -1;
+            }
+            addSegment(i, matchLength, matched, segments);
+            i += matchLength;
+        }
+
+        if (unknownStart >= 0)
+            segments.add(new CompoundEntry(new String(reading, unknownStart, length - unknownStart), unknownStart, false));
+
+        return new String(reading, 0, length);
+    }
+
+    /**
+     * 한자 단어 사전에서 start 부터 시작하는 가장 긴 단어를 찾아서, 그 음을 reading 에 기록한다.
+     *
+     * @return 찾은 단어의 길이, 없으면 0
+     */
+    private int matchCJWord(String hanja, int start) throws MorphException {
+        CJDictionary current = cjDictionary;
+        if (current != dictionary) {
+            dictionary = current;
+            fstReader = (current.fst == null) ? null : current.fst.getBytesReader(0);
+        }
+        FST<Long> cjFst = current.fst;
+        if (cjFst == null)
+            return 0;
+
+        try {
+            cjFst.getFirstArc(arc);
+            long output = 0;
+            int matchLength = 0;
+            long matchOutput = 0;
+            final int end = Math.min(hanja.length(), start + maxWordLength);
+
+            for (int i = start; i < end; i++) {
+                if (cjFst.findTargetArc(hanja.charAt(i), arc, arc, fstReader) == null)
+                    break;
+                output += arc.output;
+                if (arc.isFinal()) {
+                    matchLength = i - start + 1;
+                    matchOutput = output + arc.nextFinalOutput;
+                }
+            }
+
+            if (matchLength > 0)
+                System.arraycopy(current.readings[(int) matchOutput], 0, reading, start, matchLength);
+            return matchLength;
+        } catch (IOException e) {
+            throw new MorphException("한자 단어 사전을 탐색하는데 실패했습니다. hanja=" + hanja, e);
+        }
+    }
+
+    /** 복합명사로 등록된 단어는 구성 명사로 나누어서 추가한다. */
+    private void addSegment(int start, int length, WordEntry entry, List<CompoundEntry> segments) {
+        if (entry != null && entry.getFeature(WordEntry.IDX_NOUN) == '2' &&
+                entry.getCompounds() != null && entry.getCompounds().size() > 1) {
+            int offset = start;
+            for (CompoundEntry part : entry.getCompounds()) {
+                int partLength = part.getWord().length();
+                if (offset + partLength > start + length) break;
+                segments.add(new CompoundEntry(part.getWord(), offset, true));
+                offset += partLength;
+            }
+            if (offset == start + length)
+                return;
+            // 구성 명사가 단어와 맞지 않으면 단어 전체를 쓴다.
+            while (segments.size() > 0 && segments.get(segments.size() - 1).getOffset() >= start)
+                segments.remove(segments.size() - 1);
+        }
+        segments.add(new CompoundEntry(new String(reading, start, length), start, true));
+    }
+
+    private static boolean isNoun(WordEntry entry) {
+        char noun = entry.getFeature(WordEntry.IDX_NOUN);
+        return noun == '1' || noun == '2';
+    }
+}
@@ -16,6 +16,9 @@
 
 package org.apache.lucene.analysis.kr.morph;
 
+import org.apache.lucene.analysis.kr.metrics.AnalysisMetrics;
+import org.apache.lucene.analysis.kr.metrics.SlowAnalysisRecorder;
+import org.apache.lucene.analysis.kr.metrics.Stage;
 import org.apache.lucene.analysis.kr.utils.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,16 +59,30 @@ public class MorphAnalyzer {
         return analyze(input, POS_MID);
     }
 
-    @SuppressWarnings("unchecked")
     public List<AnalysisOutput> analyze(String input, int pos) throws MorphException {
 
         if (isTraceEnabled)
             log.trace("analyze input=[{}], pos=[{}]", input, pos);
 
+        long slowStart = SlowAnalysisRecorder.begin();
+        long start = AnalysisMetrics.start();
+        try {
+            return analyzeCandidates(input);
+        } finally {
+            AnalysisMetrics.stop(Stage.MORPH_ANALYZE, start);
+            SlowAnalysisRecorder.end(input, slowStart);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AnalysisOutput> analyzeCandidates(String input) throws MorphException {
+
         List<AnalysisOutput> candidates = new ArrayList<AnalysisOutput>();
         boolean isVerbOnly = MorphUtil.hasVerbOnly(input);
 
+        long ruleStart = AnalysisMetrics.start();
         analysisByRule(input, candidates);
+        AnalysisMetrics.stop(Stage.ANALYSIS_BY_RULE, ruleStart);
 
         if (!isVerbOnly || candidates.size() == 0)
             addSingleWord(input, candidates);
@@ -84,7 +101,11 @@ public class MorphAnalyzer {
                 continue;
             }
             if (o.getPatn() < PatternConstants.PTN_VM && o.getStem().length() > 2) {
-                if (!(correct && o.getPatn() == PatternConstants.PTN_N)) confirmCNoun(o);
+                if (!(correct && o.getPatn() == PatternConstants.PTN_N)) {
+                    long cnounStart = AnalysisMetrics.start();
+                    confirmCNoun(o);
+                    AnalysisMetrics.stop(Stage.CONFIRM_CNOUN, cnounStart);
+                }
                 if (o.getScore() >= AnalysisOutput.SCORE_COMPOUNDS) changed = true;
             }
         }
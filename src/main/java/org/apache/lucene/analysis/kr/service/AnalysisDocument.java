@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 분석할 문서입니다. 문서 id 와 필드 이름별 본문으로 이루어집니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class AnalysisDocument {
+
+    private final String id;
+    private final Map<String, String> fields = new LinkedHashMap<String, String>();
+
+    public AnalysisDocument(String id) {
+        this.id = id;
+    }
+
+    public AnalysisDocument(String id, String field, String text) {
+        this(id);
+        addField(field, text);
+    }
+
+    /** 필드를 추가한다. 같은 이름의 필드가 있으면 본문을 바꾼다. */
+    public AnalysisDocument addField(String field, String text) {
+        fields.put(field, text);
+        return this;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** 필드 이름별 본문, 추가한 순서 */
+    public Map<String, String> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisDocument{id=" + id + ", fields=" + fields.keySet() + "}";
+    }
+}
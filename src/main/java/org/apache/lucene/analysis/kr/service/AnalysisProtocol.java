@@ -0,0 +1,291 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import org.apache.lucene.analysis.kr.utils.KoreanEnv;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.InputStreamDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AnalysisServer} 와 {@link RemoteAnalysisClient} 사이의 이진 프로토콜입니다. 연결 하나에 하나씩 만들어 씁니다.
+ * <pre>
+ *     연결      : int MAGIC (client -> server)
+ *     요청      : vint n, n * (string field, string text)     (n &lt;= MAX_TEXTS, string &lt;= MAX_STRING_BYTES, 합 &lt;= MAX_REQUEST_BYTES)
+ *     응답      : byte OK, n * (vint tokens, tokens * token)  또는  byte ERROR, string message
+ *     token    : string term, vint startOffset, vint (endOffset - startOffset), vint positionIncrement, vint type
+ *     type     : 연결에서 처음 보내는 type 이면 새 번호 다음에 string type 이 온다.
+ * </pre>
+ * 숫자와 문자열의 형식은 Lucene 의 {@link DataOutput#writeVInt(int)}, {@link DataOutput#writeString(String)} 과 같습니다.
+ * 서버는 한도를 넘는 요청을 읽기 전에 거절하고 ({@link RequestRejectedException}) 연결을 닫습니다. 클라이언트는 한도를 넘는 요청을 보내지 않습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+final class AnalysisProtocol {
+
+    /** "KOR1" */
+    static final int MAGIC = 0x4B4F5231;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    /** 요청 하나에 담을 수 있는 본문의 최대 수 */
+    static final int MAX_TEXTS = 16 * 1024;
+
+    /** 요청의 문자열 (필드 이름, 본문) 하나의 최대 크기 (UTF-8 bytes) */
+    static final int MAX_STRING_BYTES = 32 * 1024 * 1024;
+
+    /** 요청 하나의 문자열 크기 합의 최대값 (UTF-8 bytes) */
+    static final long MAX_REQUEST_BYTES = 64L * 1024 * 1024;
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final DataInput input;
+    private final DataOutput output;
+
+    private final Map<String, Integer> sentTypes = new HashMap<String, Integer>();
+    private final List<String> receivedTypes = new ArrayList<String>();
+    private char[] termBuffer = new char[16];
+
+    AnalysisProtocol(InputStream in, OutputStream out) {
+        this.in = new BufferedInputStream(in);
+        this.out = new BufferedOutputStream(out);
+        this.input = new InputStreamDataInput(this.in);
+        this.output = new OutputStreamDataOutput(this.out);
+    }
+
+    void writeMagic() throws IOException {
+        output.writeInt(MAGIC);
+        out.flush();
+    }
+
+    void readMagic() throws IOException {
+        int magic = input.readInt();
+        if (magic != MAGIC)
+            throw new IOException("알 수 없는 프로토콜입니다. magic=0x" + Integer.toHexString(magic));
+    }
+
+    /**
+     * 요청 하나를 보낸다. 한도를 넘는 요청은 아무것도 보내지 않고 거절한다.
+     *
+     * @throws IllegalArgumentException 본문이 너무 많거나 너무 큰 경우
+     */
+    void writeRequest(List<String> fields, List<String> texts) throws IOException {
+        if (texts.size() > MAX_TEXTS)
+            throw new IllegalArgumentException("too many texts in one request. texts=" + texts.size() + ", max=" + MAX_TEXTS);
+        long total = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            total += checkLength(fields.get(i)) + checkLength(texts.get(i));
+        }
+        if (total > MAX_REQUEST_BYTES)
+            throw new IllegalArgumentException("request too large. bytes=" + total + ", max=" + MAX_REQUEST_BYTES);
+
+        output.writeVInt(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            output.writeString(fields.get(i));
+            output.writeString(texts.get(i));
+        }
+        out.flush();
+    }
+
+    /**
+     * 요청 하나를 읽는다. 본문의 수와 문자열의 크기는 메모리를 잡기 전에 한도를 검사한다.
+     *
+     * @return 필드 이름, 본문 순서로 번갈아 담은 목록, 상대가 연결을 닫았으면 null
+     * @throws RequestRejectedException 요청이 한도를 넘는 경우, 나머지 요청을 읽지 않았으므로 연결을 닫아야 한다.
+     */
+    List<String> readRequest() throws IOException {
+        int first = in.read();
+        if (first < 0)
+            return null;
+
+        // vint 의 첫 byte 는 이미 읽었다.
+        int count = readRequestVInt(first);
+        if (count < 0 || count > MAX_TEXTS)
+            throw new RequestRejectedException("본문의 수가 한도를 넘습니다. texts=" + count + ", max=" + MAX_TEXTS);
+
+        List<String> request = new ArrayList<String>(count * 2);
+        long remaining = MAX_REQUEST_BYTES;
+        for (int i = 0; i < count * 2; i++) {
+            int length = readRequestVInt(input.readByte());
+            if (length < 0 || length > MAX_STRING_BYTES)
+                throw new RequestRejectedException("문자열이 한도를 넘습니다. bytes=" + length + ", max=" + MAX_STRING_BYTES);
+            if (length > remaining)
+                throw new RequestRejectedException("요청이 한도를 넘습니다. max=" + MAX_REQUEST_BYTES);
+            remaining -= length;
+
+            byte[] bytes = new byte[length];
+            input.readBytes(bytes, 0, length);
+            request.add(new String(bytes, 0, length, KoreanEnv.UTF8));
+        }
+        return request;
+    }
+
+    /**
+     * 요청의 vint 를 읽는다. 32 bit 값의 vint 는 5 byte 를 넘지 않으므로, 더 이어지는 vint 는 읽지 않고 거절한다.
+     * (이어지는 byte 를 끝없이 보내서 연결을 붙잡아 두지 못하게 한다)
+     *
+     * @param first 이미 읽은 첫 byte
+     */
+    private int readRequestVInt(int first) throws IOException {
+        int b = first;
+        int value = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            if (shift > 28)
+                throw new RequestRejectedException("vint 가 5 byte 를 넘습니다.");
+            b = input.readByte();
+            value |= (b & 0x7F) << shift;
+        }
+        return value;
+    }
+
+    /** 문자열의 UTF-8 크기, 한도를 넘으면 {@link IllegalArgumentException} */
+    private static int checkLength(String str) {
+        int length = utf8Length(str);
+        if (length > MAX_STRING_BYTES)
+            throw new IllegalArgumentException("text too large. bytes=" + length + ", max=" + MAX_STRING_BYTES);
+        return length;
+    }
+
+    /** {@link DataOutput#writeString(String)} 이 쓰는 UTF-8 의 크기 */
+    static int utf8Length(String str) {
+        int length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            if (ch < 0x80) {
+                length++;
+            } else if (ch < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(ch) && i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    void writeResponse(List<TokenArray> results) throws IOException {
+        output.writeByte(OK);
+        for (TokenArray tokens : results) {
+            output.writeVInt(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                int length = tokens.term(i, termBuffer);
+                if (length < 0) {
+                    termBuffer = new char[-length];
+                    length = tokens.term(i, termBuffer);
+                }
+                output.writeString(new String(termBuffer, 0, length));
+                output.writeVInt(tokens.startOffset(i));
+                output.writeVInt(tokens.endOffset(i) - tokens.startOffset(i));
+                output.writeVInt(tokens.positionIncrement(i));
+                writeType(tokens.type(i));
+            }
+        }
+        out.flush();
+    }
+
+    void writeError(String message) throws IOException {
+        output.writeByte(ERROR);
+        output.writeString(message == null ? "" : message);
+        out.flush();
+    }
+
+    /**
+     * 응답 하나를 읽는다.
+     *
+     * @param count 요청한 본문의 수
+     * @throws RemoteAnalysisException 서버가 분석에 실패한 경우
+     */
+    List<TokenArray> readResponse(int count) throws IOException {
+        byte status = input.readByte();
+        if (status == ERROR)
+            throw new RemoteAnalysisException(input.readString());
+        if (status != OK)
+            throw new IOException("알 수 없는 응답입니다. status=" + status);
+
+        List<TokenArray> results = new ArrayList<TokenArray>(count);
+        for (int n = 0; n < count; n++) {
+            int size = input.readVInt();
+            TokenArray.Builder builder = new TokenArray.Builder();
+            for (int i = 0; i < size; i++) {
+                String term = input.readString();
+                if (termBuffer.length < term.length())
+                    termBuffer = new char[term.length()];
+                term.getChars(0, term.length(), termBuffer, 0);
+                int start = input.readVInt();
+                int end = start + input.readVInt();
+                int posInc = input.readVInt();
+                builder.add(termBuffer, term.length(), start, end, posInc, readType());
+            }
+            results.add(builder.build());
+        }
+        return results;
+    }
+
+    private void writeType(String type) throws IOException {
+        Integer code = sentTypes.get(type);
+        if (code != null) {
+            output.writeVInt(code);
+            return;
+        }
+        code = sentTypes.size();
+        sentTypes.put(type, code);
+        output.writeVInt(code);
+        output.writeString(type);
+    }
+
+    private String readType() throws IOException {
+        int code = input.readVInt();
+        if (code < receivedTypes.size())
+            return receivedTypes.get(code);
+        if (code != receivedTypes.size())
+            throw new IOException("잘못된 type 번호입니다. code=" + code);
+        String type = input.readString().intern();
+        receivedTypes.add(type);
+        return type;
+    }
+
+    /** 요청이 프로토콜의 한도를 넘어서 서버가 읽지 않고 거절했음을 알린다. 연결은 더 쓸 수 없다. */
+    static final class RequestRejectedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        RequestRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /** 서버가 요청을 분석하지 못했음을 알린다. 연결은 계속 쓸 수 있다. */
+    static final class RemoteAnalysisException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        RemoteAnalysisException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 사전과 분석기를 한번만 로드해 두고 같은 호스트의 여러 JVM (색인기, 검색 서비스, 배치 작업 등) 에게 분석을 제공하는 서버입니다.
+ * <p/>
+ * loopback 주소의 TCP 포트에서만 연결을 받으며, 연결마다 작업 스레드 하나가 {@link AnalysisProtocol} 의 요청을 차례로 처리합니다.
+ * 요청 하나에 여러 본문을 담을 수 있으므로 왕복 비용은 본문 수만큼 나누어집니다. 작업 스레드마다 분석기의 재사용 token stream 을 씁니다.
+ * 프로토콜의 한도를 넘는 요청을 보내거나 idleTimeout 동안 요청이 없는 연결은 닫습니다.
+ * 클라이언트는 {@link RemoteAnalysisClient} 또는 {@link RemoteKoreanAnalyzer} 를 씁니다.
+ * <pre>
+ *     java org.apache.lucene.analysis.kr.service.AnalysisServer [-port n] [-connections n]
+ * </pre>
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+@Slf4j
+public class AnalysisServer implements Closeable {
+
+    /** 기본 포트 */
+    public static final int DEFAULT_PORT = 7390;
+
+    /** 동시에 처리하는 연결의 기본 최대 수 */
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+    /** 요청이 없는 연결을 닫기까지의 기본 시간 (ms) */
+    public static final int DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    /** 연결을 받지 못할 때 다시 시도하기 전에 기다리는 최대 시간 (ms) */
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+    private final Analyzer analyzer;
+    private final boolean ownsAnalyzer;
+    private final ServerSocket serverSocket;
+    private final ThreadPoolExecutor executor;
+    private final Set<Socket> connections = Collections.synchronizedSet(new HashSet<Socket>());
+    private final Thread acceptor;
+    private final int idleTimeoutMillis;
+    private volatile boolean closed;
+
+    /** 기본 설정의 {@link KoreanAnalyzer} 로 분석한다. port 가 0 이면 비어 있는 포트를 쓴다. */
+    public AnalysisServer(int port) throws IOException {
+        this(new KoreanAnalyzer(), true, port, DEFAULT_MAX_CONNECTIONS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param analyzer       분석기, 서버를 닫아도 분석기는 닫지 않는다.
+     * @param port           loopback 포트, 0 이면 비어 있는 포트를 쓴다.
+     * @param maxConnections 동시에 처리하는 연결의 최대 수, 넘는 연결은 바로 닫는다.
+     */
+    public AnalysisServer(Analyzer analyzer, int port, int maxConnections) throws IOException {
+        this(analyzer, false, port, maxConnections, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param analyzer          분석기, 서버를 닫아도 분석기는 닫지 않는다.
+     * @param port              loopback 포트, 0 이면 비어 있는 포트를 쓴다.
+     * @param maxConnections    동시에 처리하는 연결의 최대 수, 넘는 연결은 바로 닫는다.
+     * @param idleTimeoutMillis 요청을 기다리는 최대 시간 (ms), 지나면 연결을 닫는다. 0 이면 계속 기다린다.
+     */
+    public AnalysisServer(Analyzer analyzer, int port, int maxConnections, int idleTimeoutMillis) throws IOException {
+        this(analyzer, false, port, maxConnections, idleTimeoutMillis);
+    }
+
+    private AnalysisServer(Analyzer analyzer, boolean ownsAnalyzer, int port, int maxConnections, int idleTimeoutMillis) throws IOException {
+        if (maxConnections < 1)
+            throw new IllegalArgumentException("maxConnections must be positive. maxConnections=" + maxConnections);
+        if (idleTimeoutMillis < 0)
+            throw new IllegalArgumentException("idleTimeoutMillis must not be negative. idleTimeoutMillis=" + idleTimeoutMillis);
+
+        this.analyzer = analyzer;
+        this.ownsAnalyzer = ownsAnalyzer;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+
+        // 연결을 받기 전에 사전을 모두 로드한다.
+        StartupReport.loadAll();
+
+        this.executor = new ThreadPoolExecutor(0, maxConnections, 60L, TimeUnit.SECONDS,
+                                               new SynchronousQueue<Runnable>(),
+                                               new ThreadFactoryBuilder().setDaemon(true).setNameFormat("analysis-server-%d").build());
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+        this.acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "analysis-server-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+
+        log.info("분석 서버를 시작합니다. address=[{}], maxConnections=[{}], idleTimeoutMillis=[{}]",
+                 serverSocket.getLocalSocketAddress(), maxConnections, idleTimeoutMillis);
+    }
+
+    /** 서버가 연결을 받는 포트 */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** 지금 열려 있는 연결의 수 */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /** 연결을 받는다. 계속 실패하면 (파일 핸들이 모자란 경우 등) 다시 시도하는 간격을 {@link #MAX_ACCEPT_BACKOFF_MILLIS} 까지 늘린다. */
+    private void accept() {
+        long backoff = 0;
+        while (!closed) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+                backoff = 0;
+            } catch (IOException e) {
+                if (closed)
+                    break;
+                backoff = Math.min(Math.max(backoff * 2, 10), MAX_ACCEPT_BACKOFF_MILLIS);
+                log.warn("연결을 받지 못했습니다. {} ms 후에 다시 시도합니다.", backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.warn("연결이 너무 많아서 닫습니다. remote=[{}]", socket.getRemoteSocketAddress());
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /** 연결 하나의 요청들을 차례로 처리한다. */
+    private void serve(Socket socket) {
+        connections.add(socket);
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(idleTimeoutMillis);
+            AnalysisProtocol protocol = new AnalysisProtocol(socket.getInputStream(), socket.getOutputStream());
+            protocol.readMagic();
+
+            List<String> request;
+            while ((request = protocol.readRequest()) != null) {
+                List<TokenArray> results;
+                try {
+                    results = analyze(request);
+                } catch (Exception e) {
+                    log.warn("요청을 분석하지 못했습니다.", e);
+                    protocol.writeError(String.valueOf(e));
+                    continue;
+                }
+                protocol.writeResponse(results);
+            }
+        } catch (AnalysisProtocol.RequestRejectedException e) {
+            log.warn("한도를 넘는 요청을 거절하고 연결을 닫습니다. remote=[{}], reason=[{}]", socket.getRemoteSocketAddress(), e.getMessage());
+        } catch (SocketTimeoutException e) {
+            log.debug("요청이 없는 연결을 닫습니다. remote=[{}], idleTimeoutMillis=[{}]", socket.getRemoteSocketAddress(), idleTimeoutMillis);
+        } catch (IOException e) {
+            if (!closed && !(e instanceof SocketException))
+                log.warn("연결을 처리하지 못했습니다. remote=[{}]", socket.getRemoteSocketAddress(), e);
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private List<TokenArray> analyze(List<String> request) throws IOException {
+        List<TokenArray> results = new ArrayList<TokenArray>(request.size() / 2);
+        for (int i = 0; i < request.size(); i += 2) {
+            String field = request.get(i);
+            String text = request.get(i + 1);
+            results.add(text.length() == 0
+                        ? TokenArray.empty()
+                        : TokenArray.read(analyzer.reusableTokenStream(field, new StringReader(text))));
+        }
+        return results;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** 새 연결을 받지 않고 열려 있는 연결을 모두 닫는다. */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            serverSocket.close();
+            synchronized (connections) {
+                for (Socket socket : connections) {
+                    closeQuietly(socket);
+                }
+            }
+            executor.shutdown();
+            acceptor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (ownsAnalyzer)
+                analyzer.close();
+        }
+        log.info("분석 서버를 닫았습니다.");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("-port".equals(args[i])) port = Integer.parseInt(args[++i]);
+            else if ("-connections".equals(args[i])) maxConnections = Integer.parseInt(args[++i]);
+        }
+
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        final AnalysisServer server = new AnalysisServer(analyzer, port, maxConnections);
+        Runtime.getRuntime().addShutdownHook(new Thread("analysis-server-shutdown") {
+            @Override
+            public void run() {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    log.warn("분석 서버를 닫지 못했습니다.", e);
+                }
+            }
+        });
+        System.out.println("Analysis server listening on 127.0.0.1:" + server.getPort());
+        server.acceptor.join();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 분석한 문서입니다. 필드 이름별로 {@link TokenArray} 를 가집니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class AnalyzedDocument {
+
+    private final String id;
+    private final Map<String, TokenArray> fields;
+
+    public AnalyzedDocument(String id, Map<String, TokenArray> fields) {
+        this.id = id;
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** 필드 이름별 토큰, 원래 문서의 필드 순서 */
+    public Map<String, TokenArray> getFields() {
+        return fields;
+    }
+
+    /** 필드의 토큰, 필드가 없으면 null */
+    public TokenArray getField(String field) {
+        return fields.get(field);
+    }
+
+    @Override
+    public String toString() {
+        return "AnalyzedDocument{id=" + id + ", fields=" + fields + "}";
+    }
+}
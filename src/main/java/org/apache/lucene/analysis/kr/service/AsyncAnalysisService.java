@@ -0,0 +1,271 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 호출한 스레드를 막지 않는 비동기 분석 API 입니다.
+ * <p/>
+ * 이벤트 루프 스레드에서 {@link KoreanAnalyzer#tokenStream(String, Reader)} 를 직접 호출하면 분석이 끝날 때까지 스레드가 멈추므로,
+ * 분석은 크기가 제한된 전용 스레드 풀에서 하고 결과는 {@link ListenableFuture} 로 돌려줍니다.
+ * 대기열이 가득 차면 호출한 스레드를 기다리게 하지 않고 {@link RejectedExecutionException} 으로 실패한 future 를 돌려줍니다.
+ * <ul>
+ * <li>{@link #analyze(String, String)}, {@link #analyze(AnalysisDocument)} : 본문 전체의 토큰을 한번에 받는다.</li>
+ * <li>{@link #stream(String, Reader, TokenListener)} : 긴 본문의 토큰을 batchSize 개씩 나누어 listener 에게 차례로 보낸다.</li>
+ * </ul>
+ * future 를 취소하면 시작하지 않은 분석은 실행하지 않고, 진행 중인 stream 은 다음 batch 를 보내기 전에 멈춥니다.
+ * 사전은 생성할 때 모두 로드하고 ({@link StartupReport#loadAll()}) 작업 스레드도 미리 띄우며, 작업 스레드마다 분석기의 재사용 token stream 을 쓰므로
+ * 요청마다 드는 준비 비용이 없습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class AsyncAnalysisService implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncAnalysisService.class);
+
+    /** 작업 스레드 하나당 기본 대기 요청 수 */
+    public static final int DEFAULT_QUEUE_CAPACITY_PER_THREAD = 256;
+
+    /** {@link #stream(String, Reader, TokenListener)} 가 한번에 보내는 기본 토큰 수 */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /** stream 으로 분석한 토큰을 받는다. 메소드는 작업 스레드에서 호출된다. */
+    public interface TokenListener {
+
+        /**
+         * 토큰 묶음을 받는다. offset 은 본문 기준이다.
+         *
+         * @param tokens 다음 토큰들, 토큰이 하나 이상이다.
+         */
+        void onTokens(TokenArray tokens) throws Exception;
+    }
+
+    private final Analyzer analyzer;
+    private final boolean ownsAnalyzer;
+    private final ThreadPoolExecutor executor;
+    private final ListeningExecutorService service;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public AsyncAnalysisService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** 기본 설정의 {@link KoreanAnalyzer} 로 분석한다. 분석기는 {@link #close()} 할 때 닫는다. */
+    public AsyncAnalysisService(int threads) {
+        this(new KoreanAnalyzer(), true, threads, threads * DEFAULT_QUEUE_CAPACITY_PER_THREAD);
+    }
+
+    /**
+     * @param analyzer      분석기, 여러 스레드가 함께 쓴다. 서비스를 닫아도 분석기는 닫지 않는다.
+     * @param threads       작업 스레드의 수
+     * @param queueCapacity 실행을 기다리는 요청 수의 상한
+     */
+    public AsyncAnalysisService(Analyzer analyzer, int threads, int queueCapacity) {
+        this(analyzer, false, threads, queueCapacity);
+    }
+
+    private AsyncAnalysisService(Analyzer analyzer, boolean ownsAnalyzer, int threads, int queueCapacity) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive. threads=" + threads);
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("queueCapacity must be positive. queueCapacity=" + queueCapacity);
+
+        this.analyzer = analyzer;
+        this.ownsAnalyzer = ownsAnalyzer;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<Runnable>(queueCapacity),
+                                               new ThreadFactoryBuilder().setDaemon(true).setNameFormat("async-analysis-%d").build(),
+                                               new ThreadPoolExecutor.AbortPolicy());
+        this.service = MoreExecutors.listeningDecorator(executor);
+
+        StartupReport.loadAll();
+        executor.prestartAllCoreThreads();
+
+        log.info("비동기 분석 서비스를 시작합니다. threads=[{}], queueCapacity=[{}]", threads, queueCapacity);
+    }
+
+    public int getThreads() {
+        return executor.getCorePoolSize();
+    }
+
+    /** 실행을 기다리는 요청 수 */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be positive. batchSize=" + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 본문 하나를 분석한다.
+     *
+     * @return 본문의 토큰들
+     */
+    public ListenableFuture<TokenArray> analyze(final String field, final String text) {
+        return submit(new Callable<TokenArray>() {
+            @Override
+            public TokenArray call() throws Exception {
+                if (text == null || text.length() == 0)
+                    return TokenArray.empty();
+                return TokenArray.read(analyzer.reusableTokenStream(field, new StringReader(text)));
+            }
+        });
+    }
+
+    /**
+     * 문서의 모든 필드를 분석한다.
+     *
+     * @return 필드별 토큰들
+     */
+    public ListenableFuture<AnalyzedDocument> analyze(final AnalysisDocument document) {
+        return submit(new Callable<AnalyzedDocument>() {
+            @Override
+            public AnalyzedDocument call() throws Exception {
+                return DocumentAnalysisService.analyzeDocument(analyzer, document);
+            }
+        });
+    }
+
+    /**
+     * 본문을 분석하면서 토큰을 batchSize 개씩 listener 에게 보낸다. 본문 전체의 토큰을 메모리에 모으지 않는다.
+     * listener 가 예외를 던지면 분석을 멈추고 future 가 그 예외로 실패한다. reader 는 분석이 끝나거나, 대기열이 가득 차서 실행하지 못하면 닫는다.
+     * <p/>
+     * 작업 스레드는 batch 를 보내기 전마다 future 가 취소되었는지 확인한다. cancel(false) 는 작업 스레드를 인터럽트하지 않으므로
+     * listener 가 받고 있는 batch 는 끝까지 받고, 그 다음 batch 부터 보내지 않는다. cancel(true) 는 작업 스레드도 인터럽트하므로
+     * listener 가 인터럽트에 반응하면 더 빨리 멈춘다. 어느 경우든 시작하지 않은 stream 은 실행하지 않는다.
+     *
+     * @return listener 에게 보낸 토큰 수
+     */
+    public ListenableFuture<Long> stream(final String field, final Reader reader, final TokenListener listener) {
+        final int size = batchSize;
+        // 작업 스레드가 자신의 future 가 취소되었는지 확인할 수 있도록 실행하기 전에 넣어 둔다.
+        final AtomicReference<Future<Long>> self = new AtomicReference<Future<Long>>();
+        ListenableFutureTask<Long> task = ListenableFutureTask.create(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                try {
+                    return stream(analyzer.reusableTokenStream(field, reader), listener, size, self.get());
+                } finally {
+                    reader.close();
+                }
+            }
+        });
+        self.set(task);
+        try {
+            service.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            try {
+                reader.close();
+            } catch (IOException closeFailure) {
+                log.warn("실행하지 못한 stream 의 reader 를 닫지 못했습니다.", closeFailure);
+            }
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    /**
+     * token stream 의 토큰을 batchSize 개씩 listener 에게 보낸다. future 가 취소되거나 스레드가 인터럽트 되면 다음 batch 를 보내지 않는다.
+     * 취소되어 멈출 때도 {@link TokenStream#end()} 를 호출한다.
+     */
+    private static long stream(TokenStream stream, TokenListener listener, int batchSize, Future<?> future) throws Exception {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+        OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+        PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+
+        long count = 0;
+        TokenArray.Builder batch = new TokenArray.Builder();
+        int batched = 0;
+        boolean cancelled = false;
+        stream.reset();
+        while (stream.incrementToken()) {
+            batch.add(termAtt.buffer(), termAtt.length(), offsetAtt.startOffset(), offsetAtt.endOffset(),
+                      posIncAtt.getPositionIncrement(), typeAtt.type());
+            if (++batched == batchSize) {
+                cancelled = isCancelled(future);
+                if (cancelled)
+                    break;
+                listener.onTokens(batch.build());
+                count += batched;
+                batch = new TokenArray.Builder();
+                batched = 0;
+            }
+        }
+        stream.end();
+        if (!cancelled && batched > 0 && !isCancelled(future)) {
+            listener.onTokens(batch.build());
+            count += batched;
+        }
+        return count;
+    }
+
+    private static boolean isCancelled(Future<?> future) {
+        return future.isCancelled() || Thread.currentThread().isInterrupted();
+    }
+
+    /** 대기열이 가득 찼거나 서비스가 닫혔으면 호출한 스레드를 기다리게 하지 않고 실패한 future 를 돌려준다. */
+    private <T> ListenableFuture<T> submit(Callable<T> task) {
+        try {
+            return service.submit(task);
+        } catch (RejectedExecutionException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+    }
+
+    /** 맡긴 분석이 끝나기를 기다린 후 작업 스레드를 종료한다. */
+    @Override
+    public void close() throws IOException {
+        service.shutdown();
+        try {
+            if (!service.awaitTermination(1, TimeUnit.MINUTES))
+                log.warn("비동기 분석이 1분 안에 끝나지 않았습니다. 대기 요청=[{}]", getQueuedCount());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (ownsAnalyzer)
+                analyzer.close();
+        }
+    }
+}
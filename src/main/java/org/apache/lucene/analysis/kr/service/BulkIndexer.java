@@ -0,0 +1,408 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.utils.KoreanEnv;
+import org.apache.lucene.analysis.kr.utils.WorkQueue;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Version;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 여러 스레드가 하나의 {@link IndexWriter} 를 함께 써서 문서를 대량으로 색인하는 도구입니다.
+ * <p/>
+ * 호출한 스레드가 문서를 읽어서 크기가 제한된 큐에 넣고, 작업 스레드들이 큐에서 문서를 꺼내 {@link IndexWriter#addDocument(Iterable)} 로
+ * 색인합니다. 분석은 addDocument 안에서 작업 스레드마다 분석기의 재사용 token stream 으로 하므로, 스레드 수만큼 분석이 병렬로 진행됩니다.
+ * RAM buffer 크기는 최대 heap 과 스레드 수로 정하며 ({@link #autoRamBufferSizeMB(long, int)}), 색인 중에는 초당 문서 수를 주기적으로 로그에 남깁니다.
+ * <pre>
+ *     java org.apache.lucene.analysis.kr.service.BulkIndexer -index dir [-threads n] [-ramMB n] [-field name] [-append] file|dir...
+ * </pre>
+ * 파일은 UTF-8 이며 한 줄이 문서 하나입니다. 줄에 탭이 있으면 탭 앞을 문서 id 로, 없으면 "파일 이름:줄 번호" 를 문서 id 로 씁니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+@Slf4j
+public class BulkIndexer implements Closeable {
+
+    /** 문서 id 를 저장하는 필드 */
+    public static final String ID_FIELD = "id";
+
+    /** 파일에서 읽은 본문을 색인하는 기본 필드 */
+    public static final String DEFAULT_FIELD = "text";
+
+    /** 진행 상황을 로그에 남기는 기본 주기 (초) */
+    public static final int DEFAULT_REPORT_INTERVAL_SECONDS = 10;
+
+    /** 작업 스레드 하나당 큐에 대기할 수 있는 문서 수 */
+    private static final int QUEUE_CAPACITY_PER_THREAD = 64;
+
+    private final IndexWriter writer;
+    private final Analyzer analyzer;
+    private final boolean ownsAnalyzer;
+    private final int threads;
+    private final AtomicLong indexedCount = new AtomicLong();
+
+    private boolean storeFields = false;
+    private int reportIntervalSeconds = DEFAULT_REPORT_INTERVAL_SECONDS;
+
+    /** 기본 설정의 {@link KoreanAnalyzer} 로 색인한다. 색인이 있으면 이어서 추가한다. */
+    public BulkIndexer(Directory directory, int threads) throws IOException {
+        this(directory, new KoreanAnalyzer(), true, threads, IndexWriterConfig.OpenMode.CREATE_OR_APPEND, 0);
+    }
+
+    /**
+     * @param directory         색인 디렉토리
+     * @param analyzer          분석기, 색인기를 닫아도 분석기는 닫지 않는다.
+     * @param threads           색인할 작업 스레드의 수
+     * @param openMode          색인을 새로 만들지, 이어서 추가할지
+     * @param ramBufferSizeMB   RAM buffer 크기, 0 이하이면 {@link #autoRamBufferSizeMB(long, int)} 로 정한다.
+     */
+    public BulkIndexer(Directory directory,
+                       Analyzer analyzer,
+                       int threads,
+                       IndexWriterConfig.OpenMode openMode,
+                       double ramBufferSizeMB) throws IOException {
+        this(directory, analyzer, false, threads, openMode, ramBufferSizeMB);
+    }
+
+    private BulkIndexer(Directory directory,
+                        Analyzer analyzer,
+                        boolean ownsAnalyzer,
+                        int threads,
+                        IndexWriterConfig.OpenMode openMode,
+                        double ramBufferSizeMB) throws IOException {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive. threads=" + threads);
+
+        if (ramBufferSizeMB <= 0)
+            ramBufferSizeMB = autoRamBufferSizeMB(Runtime.getRuntime().maxMemory(), threads);
+
+        IndexWriterConfig config = new IndexWriterConfig(Version.LUCENE_36, analyzer);
+        config.setOpenMode(openMode);
+        config.setMaxThreadStates(threads);
+        config.setRAMBufferSizeMB(ramBufferSizeMB);
+
+        this.writer = new IndexWriter(directory, config);
+        this.analyzer = analyzer;
+        this.ownsAnalyzer = ownsAnalyzer;
+        this.threads = threads;
+
+        log.info("대량 색인을 시작합니다. directory=[{}], threads=[{}], ramBufferSizeMB=[{}]", directory, threads, ramBufferSizeMB);
+    }
+
+    /**
+     * 최대 heap 의 1/8 을 RAM buffer 로 쓴다. 스레드마다 동시에 분석 중인 문서가 있으므로 스레드 하나당 16 MB 와 Lucene 의 기본값 보다
+     * 작게 하지 않지만, heap 의 절반과 1 GB 는 넘지 않는다. heap 이 작으면 상한이 하한보다 우선한다.
+     * (flush 할 segment 가 너무 크면 merge 비용만 커지고 처리량은 거의 늘지 않는다)
+     *
+     * @param maxHeapBytes 최대 heap 크기
+     * @param threads      색인할 작업 스레드의 수
+     * @return RAM buffer 크기 (MB)
+     */
+    public static double autoRamBufferSizeMB(long maxHeapBytes, int threads) {
+        long heapMB = maxHeapBytes / (1024 * 1024);
+        double size = Math.max(heapMB / 8, 16L * threads);
+        size = Math.max(size, IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+        return Math.min(size, Math.max(1, Math.min(heapMB / 2, 1024)));
+    }
+
+    public IndexWriter getWriter() {
+        return writer;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /** 지금까지 색인한 문서 수 */
+    public long getIndexedCount() {
+        return indexedCount.get();
+    }
+
+    /** 본문을 색인과 함께 저장할지 여부, 기본은 저장하지 않는다. */
+    public void setStoreFields(boolean storeFields) {
+        this.storeFields = storeFields;
+    }
+
+    /** 진행 상황을 로그에 남기는 주기, 0 이하이면 남기지 않는다. */
+    public void setReportIntervalSeconds(int reportIntervalSeconds) {
+        this.reportIntervalSeconds = reportIntervalSeconds;
+    }
+
+    /**
+     * 문서들을 색인한다. 문서의 id 는 {@link #ID_FIELD} 에 저장하고, 필드들은 분석해서 색인한다.
+     *
+     * @return 색인 결과
+     * @throws IOException 색인에 실패한 경우
+     */
+    public Stats index(Iterator<AnalysisDocument> documents) throws IOException {
+        Run run = start();
+        try {
+            while (documents.hasNext()) {
+                run.put(documents.next());
+            }
+            return run.finish();
+        } finally {
+            run.stop();
+        }
+    }
+
+    /**
+     * UTF-8 파일들을 한 줄에 문서 하나씩 읽어서 field 에 색인한다. 디렉토리이면 하위의 모든 파일을 읽는다.
+     *
+     * @return 색인 결과
+     * @throws IOException 파일을 읽거나 색인하는데 실패한 경우
+     */
+    public Stats index(List<File> files, String field) throws IOException {
+        Run run = start();
+        try {
+            for (File file : files) {
+                feed(file, field, run);
+            }
+            return run.finish();
+        } finally {
+            run.stop();
+        }
+    }
+
+    private void feed(File file, String field, Run run) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null)
+                return;
+            Arrays.sort(children);
+            for (File child : children) {
+                feed(child, field, run);
+            }
+            return;
+        }
+
+        if (log.isDebugEnabled())
+            log.debug("문서 파일을 읽습니다. file=[{}]", file);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), KoreanEnv.UTF8));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.length() == 0)
+                    continue;
+                int tab = line.indexOf('\t');
+                String id = (tab < 0) ? file.getName() + ":" + lineNumber : line.substring(0, tab);
+                run.put(new AnalysisDocument(id, field, (tab < 0) ? line : line.substring(tab + 1)));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private Run start() {
+        final Run run = new Run();
+        for (int i = 0; i < threads; i++) {
+            run.queue.start(run.executor, new Worker());
+        }
+        if (reportIntervalSeconds > 0)
+            run.reporter.scheduleAtFixedRate(new Runnable() {
+                long lastCount = run.startCount;
+                long lastNanos = System.nanoTime();
+
+                @Override
+                public void run() {
+                    long count = indexedCount.get();
+                    long now = System.nanoTime();
+                    log.info("색인 중입니다. docs=[{}], docs/s=[{}]",
+                             count - run.startCount, Math.round((count - lastCount) * 1e9 / (now - lastNanos)));
+                    lastCount = count;
+                    lastNanos = now;
+                }
+            }, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        return run;
+    }
+
+    /** 분석한 필드를 담은 Lucene 문서를 만든다. */
+    Document toDocument(AnalysisDocument source) {
+        Document doc = new Document();
+        if (source.getId() != null)
+            doc.add(new Field(ID_FIELD, source.getId(), Field.Store.YES, Field.Index.NOT_ANALYZED_NO_NORMS));
+
+        Field.Store store = storeFields ? Field.Store.YES : Field.Store.NO;
+        for (Map.Entry<String, String> field : source.getFields().entrySet()) {
+            if (field.getValue() != null)
+                doc.add(new Field(field.getKey(), field.getValue(), store, Field.Index.ANALYZED));
+        }
+        return doc;
+    }
+
+    /** 색인을 commit 하고 닫는다. */
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            if (ownsAnalyzer)
+                analyzer.close();
+        }
+    }
+
+    /** 색인 한번의 작업 스레드, 큐, 진행 보고를 묶는다. */
+    private final class Run {
+
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(threads,
+                                             new ThreadFactoryBuilder().setDaemon(true).setNameFormat("bulk-indexer-%d").build());
+        final ScheduledExecutorService reporter =
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true)
+                                                                                     .setNameFormat("bulk-indexer-report")
+                                                                                     .build());
+        final WorkQueue<AnalysisDocument, Long> queue =
+                new WorkQueue<AnalysisDocument, Long>(threads * QUEUE_CAPACITY_PER_THREAD);
+        final long startCount = indexedCount.get();
+        final long startNanos = System.nanoTime();
+        long chars;
+
+        /** 큐에 자리가 나기를 기다리면서 작업 스레드가 실패했는지 확인한다. 실패한 스레드가 있으면 예외를 던진다. */
+        void put(AnalysisDocument document) throws IOException {
+            for (String text : document.getFields().values()) {
+                if (text != null) chars += text.length();
+            }
+            queue.put(document);
+        }
+
+        Stats finish() throws IOException {
+            long docs = 0;
+            for (long workerDocs : queue.finish()) {
+                docs += workerDocs;
+            }
+            writer.commit();
+
+            Stats stats = new Stats(docs, chars, System.nanoTime() - startNanos);
+            log.info("색인을 완료했습니다. {}", stats);
+            return stats;
+        }
+
+        void stop() {
+            reporter.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    /** 큐에서 문서를 꺼내 색인하는 작업 스레드. 색인한 문서 수를 반환한다. */
+    private final class Worker implements WorkQueue.Worker<AnalysisDocument, Long> {
+
+        private long docs;
+
+        @Override
+        public void process(AnalysisDocument document) throws IOException {
+            writer.addDocument(toDocument(document));
+            indexedCount.incrementAndGet();
+            docs++;
+        }
+
+        @Override
+        public Long finish() {
+            return docs;
+        }
+    }
+
+    /** 색인 한번의 결과 */
+    public static class Stats {
+
+        private final long docs;
+        private final long chars;
+        private final long elapsedNanos;
+
+        Stats(long docs, long chars, long elapsedNanos) {
+            this.docs = docs;
+            this.chars = chars;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getDocs() {
+            return docs;
+        }
+
+        public long getChars() {
+            return chars;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getDocsPerSecond() {
+            return (elapsedNanos == 0) ? 0 : docs * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("docs=%d, chars=%d, elapsed=%d ms, docs/s=%.1f",
+                                 docs, chars, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getDocsPerSecond());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        double ramBufferSizeMB = 0;
+        String index = null;
+        String field = DEFAULT_FIELD;
+        IndexWriterConfig.OpenMode openMode = IndexWriterConfig.OpenMode.CREATE;
+        List<File> files = new ArrayList<File>();
+
+        for (int i = 0; i < args.length; i++) {
+            if ("-threads".equals(args[i]) && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else if ("-ramMB".equals(args[i]) && i + 1 < args.length) ramBufferSizeMB = Double.parseDouble(args[++i]);
+            else if ("-index".equals(args[i]) && i + 1 < args.length) index = args[++i];
+            else if ("-field".equals(args[i]) && i + 1 < args.length) field = args[++i];
+            else if ("-append".equals(args[i])) openMode = IndexWriterConfig.OpenMode.CREATE_OR_APPEND;
+            else files.add(new File(args[i]));
+        }
+        if (index == null || files.isEmpty()) {
+            System.err.println("Usage: java " + BulkIndexer.class.getName()
+                                       + " -index dir [-threads n] [-ramMB n] [-field name] [-append] file|dir...");
+            System.exit(1);
+        }
+
+        Directory directory = FSDirectory.open(new File(index));
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        try {
+            BulkIndexer indexer = new BulkIndexer(directory, analyzer, threads, openMode, ramBufferSizeMB);
+            try {
+                indexer.index(files, field);
+            } finally {
+                indexer.close();
+            }
+        } finally {
+            analyzer.close();
+            directory.close();
+        }
+    }
+}
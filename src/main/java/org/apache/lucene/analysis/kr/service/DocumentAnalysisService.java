@@ -0,0 +1,277 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 여러 문서를 병렬로 분석하는 서비스입니다.
+ * <p/>
+ * 문서는 작업 훔치기 (work-stealing) 방식의 {@link ForkJoinPool} 에서 분석합니다. 작업 스레드의 수는 parallelism 으로 고정되며,
+ * 분석기의 {@link Analyzer#reusableTokenStream(String, java.io.Reader)} 는 스레드마다 token stream 을 하나씩 만들어 재사용하므로
+ * 작업 스레드마다 token stream 이 하나씩만 만들어집니다.
+ * 분석 중이거나 대기 중인 문서가 queueCapacity 개가 되면 {@link #submit(AnalysisDocument)} 가 자리가 날 때까지 기다리므로
+ * 문서를 읽는 쪽이 분석보다 빨라도 메모리에 쌓이지 않습니다.
+ * <pre>
+ *     DocumentAnalysisService service = new DocumentAnalysisService(8);
+ *     try {
+ *         Iterator&lt;AnalyzedDocument&gt; results = service.analyze(documents);   // 넣은 순서대로 나온다.
+ *         while (results.hasNext()) {
+ *             AnalyzedDocument doc = results.next();
+ *             ...
+ *         }
+ *     } finally {
+ *         service.close();
+ *     }
+ * </pre>
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class DocumentAnalysisService implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentAnalysisService.class);
+
+    /** 작업 스레드 하나당 기본 대기 문서 수 */
+    public static final int DEFAULT_QUEUE_CAPACITY_PER_THREAD = 64;
+
+    private final Analyzer analyzer;
+    private final boolean ownsAnalyzer;
+    private final ForkJoinPool pool;
+    private final int queueCapacity;
+    private final Semaphore permits;
+
+    public DocumentAnalysisService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** 기본 설정의 {@link KoreanAnalyzer} 로 분석한다. 분석기는 {@link #close()} 할 때 닫는다. */
+    public DocumentAnalysisService(int parallelism) {
+        this(new KoreanAnalyzer(), true, parallelism, parallelism * DEFAULT_QUEUE_CAPACITY_PER_THREAD);
+    }
+
+    /**
+     * @param analyzer      분석기, 여러 스레드가 함께 쓴다. 서비스를 닫아도 분석기는 닫지 않는다.
+     * @param parallelism   작업 스레드의 수
+     * @param queueCapacity 분석 중이거나 대기 중인 문서 수의 상한
+     */
+    public DocumentAnalysisService(Analyzer analyzer, int parallelism, int queueCapacity) {
+        this(analyzer, false, parallelism, queueCapacity);
+    }
+
+    private DocumentAnalysisService(Analyzer analyzer, boolean ownsAnalyzer, int parallelism, int queueCapacity) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive. parallelism=" + parallelism);
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("queueCapacity must be positive. queueCapacity=" + queueCapacity);
+
+        this.analyzer = analyzer;
+        this.ownsAnalyzer = ownsAnalyzer;
+        this.queueCapacity = queueCapacity;
+        this.permits = new Semaphore(queueCapacity);
+        this.pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("document-analysis-" + thread.getPoolIndex());
+                return thread;
+            }
+        }, null, true);
+
+        log.info("문서 분석 서비스를 시작합니다. parallelism=[{}], queueCapacity=[{}]", parallelism, queueCapacity);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /** 분석 중이거나 대기 중인 문서 수 */
+    public int getPendingCount() {
+        return queueCapacity - permits.availablePermits();
+    }
+
+    /**
+     * 문서 하나의 분석을 맡긴다. 대기 중인 문서가 queueCapacity 개이면 자리가 날 때까지 기다린다.
+     * 자리는 분석이 끝나거나 실패하거나 반환한 {@link Future} 를 취소하면 돌려받는다. (분석 중에 취소하면 분석이 끝나기 전에 돌려받는다)
+     *
+     * @return 분석 결과, 분석에 실패하면 {@link ExecutionException} 으로 실패 원인을 알린다.
+     */
+    public Future<AnalyzedDocument> submit(AnalysisDocument document) throws InterruptedException {
+        permits.acquire();
+        AnalysisTask task = new AnalysisTask(document);
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.cancel(false);
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * 문서 하나의 분석 작업. 대기열의 자리는 한번만 돌려준다.
+     * 분석이 끝나면 결과를 알리기 전에 돌려주고, 실행 전에 취소되거나 거절되면 {@link #done()} 에서 돌려준다.
+     */
+    private final class AnalysisTask extends FutureTask<AnalyzedDocument> {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        AnalysisTask(final AnalysisDocument document) {
+            super(new Callable<AnalyzedDocument>() {
+                @Override
+                public AnalyzedDocument call() throws Exception {
+                    return analyzeDocument(document);
+                }
+            });
+        }
+
+        @Override
+        protected void set(AnalyzedDocument result) {
+            releasePermit();
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            releasePermit();
+            super.setException(t);
+        }
+
+        @Override
+        protected void done() {
+            releasePermit();
+        }
+
+        private void releasePermit() {
+            if (released.compareAndSet(false, true))
+                permits.release();
+        }
+    }
+
+    /**
+     * 문서들을 분석한 결과를 넣은 순서대로 반환한다. 결과를 읽는 만큼 다음 문서를 맡기며, 결과를 기다리는 문서는 queueCapacity 개를 넘지 않는다.
+     * 분석에 실패한 문서의 결과를 읽으면 {@link IllegalStateException} 이 발생한다.
+     */
+    public Iterator<AnalyzedDocument> analyze(final Iterator<AnalysisDocument> documents) {
+        return new Iterator<AnalyzedDocument>() {
+
+            private final ArrayDeque<Future<AnalyzedDocument>> pending = new ArrayDeque<Future<AnalyzedDocument>>();
+            private final ArrayDeque<String> ids = new ArrayDeque<String>();
+
+            private void fill() {
+                try {
+                    while (pending.size() < queueCapacity && documents.hasNext()) {
+                        AnalysisDocument document = documents.next();
+                        pending.add(submit(document));
+                        ids.add(document.getId());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("문서를 맡기는 중에 인터럽트 되었습니다.", e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                fill();
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public AnalyzedDocument next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                String id = ids.poll();
+                try {
+                    return pending.poll().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("분석 결과를 기다리는 중에 인터럽트 되었습니다. id=" + id, e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("문서를 분석하지 못했습니다. id=" + id, e.getCause());
+                }
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /** 현재 스레드에서 문서를 분석한다. 스레드의 재사용 token stream 을 쓴다. */
+    AnalyzedDocument analyzeDocument(AnalysisDocument document) throws IOException {
+        return analyzeDocument(analyzer, document);
+    }
+
+    static AnalyzedDocument analyzeDocument(Analyzer analyzer, AnalysisDocument document) throws IOException {
+        Map<String, TokenArray> fields = new LinkedHashMap<String, TokenArray>();
+        for (Map.Entry<String, String> field : document.getFields().entrySet()) {
+            String text = field.getValue();
+            if (text == null || text.length() == 0) {
+                fields.put(field.getKey(), TokenArray.empty());
+                continue;
+            }
+            fields.put(field.getKey(), TokenArray.read(analyzer.reusableTokenStream(field.getKey(), new StringReader(text))));
+        }
+        return new AnalyzedDocument(document.getId(), fields);
+    }
+
+    /**
+     * 맡긴 문서의 분석이 끝나기를 기다린 후 작업 스레드를 종료한다. 1분 안에 끝나지 않으면 작업을 중단한다.
+     * 작업 스레드가 모두 끝났을 때만 이 서비스가 만든 analyzer 를 닫는다. (끝나지 않은 스레드가 token stream 을 쓰고 있을 수 있다)
+     */
+    @Override
+    public void close() throws IOException {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("문서 분석이 1분 안에 끝나지 않아서 작업을 중단합니다. 대기 문서=[{}]", getPendingCount());
+                pool.shutdownNow();
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (!ownsAnalyzer)
+            return;
+        if (pool.isTerminated())
+            analyzer.close();
+        else
+            log.warn("작업 스레드가 끝나지 않아서 analyzer 를 닫지 않습니다.");
+    }
+}
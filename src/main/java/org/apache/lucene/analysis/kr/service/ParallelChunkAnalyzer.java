@@ -0,0 +1,267 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import com.google.common.util.concurrent.Futures;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 아주 긴 본문 (책 한 권, 긴 판결문 등) 을 여러 조각으로 나누어 병렬로 분석하는 Analyzer 입니다.
+ * <p/>
+ * {@link org.apache.lucene.analysis.kr.KoreanTokenizer} 와 {@link org.apache.lucene.analysis.kr.KoreanFilter} 는 필드 하나를 한 스레드에서만 분석하므로,
+ * 본문이 chunkSize 보다 길면 문장 끝이나 공백에서 조각을 나누고 조각들을 {@link ForkJoinPool} 의 작업 스레드들이 delegate 로 분석합니다.
+ * 조각의 결과는 나눈 순서대로 이어서 내보내며, offset 은 본문 기준으로 고치고 position increment 는 그대로 둡니다.
+ * 조각은 공백에서만 나누므로 tokenizer 의 토큰은 나누지 않았을 때와 같습니다. 다만 앞뒤 토큰을 함께 보는 filter
+ * (예: {@link org.apache.lucene.analysis.kr.KoreanTaggingFilter} 의 문맥 창) 에게는 조각의 경계가 stream 의 끝처럼 보입니다.
+ * <p/>
+ * 일반 Analyzer 와 같은 token stream 을 만들므로 {@link org.apache.lucene.index.IndexWriter} 에 그대로 쓸 수 있습니다.
+ * 본문이 chunkSize 이하이면 호출한 스레드에서 바로 분석합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class ParallelChunkAnalyzer extends Analyzer {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelChunkAnalyzer.class);
+
+    /** 조각의 기본 크기 (문자 수) */
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    /** 조각의 끝으로 삼는 문장 부호 */
+    private static final String SENTENCE_ENDS = ".?!。";
+
+    private final Analyzer delegate;
+    private final boolean ownsDelegate;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /** 기본 설정의 {@link KoreanAnalyzer} 로 분석한다. */
+    public ParallelChunkAnalyzer() {
+        this(new KoreanAnalyzer(), true, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param delegate    조각을 분석할 Analyzer, 이 Analyzer 를 닫아도 delegate 는 닫지 않는다.
+     * @param parallelism 조각을 분석할 작업 스레드의 수
+     * @param chunkSize   조각의 크기 (문자 수), 공백을 찾기 위해 절반까지 줄어들 수 있다.
+     */
+    public ParallelChunkAnalyzer(Analyzer delegate, int parallelism, int chunkSize) {
+        this(delegate, false, parallelism, chunkSize);
+    }
+
+    private ParallelChunkAnalyzer(Analyzer delegate, boolean ownsDelegate, int parallelism, int chunkSize) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive. parallelism=" + parallelism);
+        if (chunkSize < 2)
+            throw new IllegalArgumentException("chunkSize must be greater than 1. chunkSize=" + chunkSize);
+
+        this.delegate = delegate;
+        this.ownsDelegate = ownsDelegate;
+        this.chunkSize = chunkSize;
+        this.pool = new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("chunk-analysis-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, null, true);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public TokenStream tokenStream(String fieldName, Reader reader) {
+        return new ChunkTokenizer(fieldName, reader);
+    }
+
+    @Override
+    public TokenStream reusableTokenStream(String fieldName, Reader reader) throws IOException {
+        ChunkTokenizer stream = (ChunkTokenizer) getPreviousTokenStream();
+        if (stream == null) {
+            stream = new ChunkTokenizer(fieldName, reader);
+            setPreviousTokenStream(stream);
+        } else {
+            stream.fieldName = fieldName;
+            stream.reset(reader);
+        }
+        return stream;
+    }
+
+    @Override
+    public int getPositionIncrementGap(String fieldName) {
+        return delegate.getPositionIncrementGap(fieldName);
+    }
+
+    @Override
+    public int getOffsetGap(org.apache.lucene.document.Fieldable field) {
+        return delegate.getOffsetGap(field);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        pool.shutdown();
+        if (ownsDelegate)
+            delegate.close();
+    }
+
+    /**
+     * 본문을 나눌 조각의 시작 위치들을 구한다. 첫번째는 항상 0 이다.
+     * <p/>
+     * 조각의 끝은 chunkSize 위치부터 거꾸로 chunkSize 의 절반까지 문장의 끝 (문장 부호 뒤의 공백, 줄바꿈) 을 찾고, 없으면 공백을 찾는다.
+     * 그래도 없으면 앞으로 가면서 처음 나오는 공백에서 나눈다.
+     */
+    public static int[] splitPoints(CharSequence text, int chunkSize) {
+        List<Integer> starts = new ArrayList<Integer>();
+        starts.add(0);
+        int start = 0;
+        while (text.length() - start > chunkSize) {
+            start = boundary(text, start + chunkSize / 2, start + chunkSize);
+            if (start < text.length())
+                starts.add(start);
+        }
+
+        int[] points = new int[starts.size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = starts.get(i);
+        }
+        return points;
+    }
+
+    private static int boundary(CharSequence text, int min, int target) {
+        for (int i = target; i > min; i--) {
+            char c = text.charAt(i - 1);
+            if (c == '\n' || (Character.isWhitespace(c) && SENTENCE_ENDS.indexOf(text.charAt(i - 2)) >= 0))
+                return i;
+        }
+        for (int i = target; i > min; i--) {
+            if (Character.isWhitespace(text.charAt(i - 1)))
+                return i;
+        }
+        for (int i = target + 1; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i - 1)))
+                return i;
+        }
+        return text.length();
+    }
+
+    /** 작업 스레드에서 조각 하나를 분석한다. 스레드의 재사용 token stream 을 쓴다. */
+    private TokenArray analyzeChunk(String fieldName, String chunk) throws IOException {
+        return TokenArray.read(delegate.reusableTokenStream(fieldName, new StringReader(chunk)));
+    }
+
+    /** 본문을 조각으로 나누어 분석하고, 조각의 토큰들을 순서대로 내보낸다. */
+    private final class ChunkTokenizer extends TokenArrayTokenizer {
+
+        private final List<Future<TokenArray>> chunks = new ArrayList<Future<TokenArray>>();
+
+        String fieldName;
+        private int[] starts;
+        private boolean started;
+        private int chunkUpto;
+
+        ChunkTokenizer(String fieldName, Reader input) {
+            super(input);
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        protected boolean nextTokens() throws IOException {
+            if (!started)
+                start();
+            if (chunkUpto >= chunks.size())
+                return false;
+
+            setTokens(getChunk(chunkUpto), starts[chunkUpto]);
+            chunks.set(chunkUpto++, null);
+            return true;
+        }
+
+        /** 본문을 모두 읽고 조각들의 분석을 맡긴다. 조각이 하나뿐이면 호출한 스레드에서 분석한다. */
+        private void start() throws IOException {
+            started = true;
+            readText();
+
+            starts = splitPoints(text, chunkSize);
+            if (starts.length == 1) {
+                chunks.add(Futures.immediateFuture(analyzeChunk(fieldName, text.toString())));
+                return;
+            }
+
+            if (log.isDebugEnabled())
+                log.debug("본문을 나누어 분석합니다. field=[{}], length=[{}], chunks=[{}]",
+                          new Object[] { fieldName, text.length(), starts.length });
+
+            for (int i = 0; i < starts.length; i++) {
+                final String chunk = text.substring(starts[i], (i + 1 < starts.length) ? starts[i + 1] : text.length());
+                final String field = fieldName;
+                chunks.add(pool.submit(new Callable<TokenArray>() {
+                    @Override
+                    public TokenArray call() throws Exception {
+                        return analyzeChunk(field, chunk);
+                    }
+                }));
+            }
+        }
+
+        private TokenArray getChunk(int i) throws IOException {
+            try {
+                return chunks.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("조각의 분석을 기다리는 중에 중단되었습니다.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOException("조각을 분석하지 못했습니다. chunk=" + i, e.getCause());
+            }
+        }
+
+        /** 소비하지 않은 조각의 분석을 취소하고 상태를 지운다. */
+        @Override
+        protected void clear() {
+            super.clear();
+            for (Future<TokenArray> chunk : chunks) {
+                if (chunk != null)
+                    chunk.cancel(false);
+            }
+            chunks.clear();
+            starts = null;
+            started = false;
+            chunkUpto = 0;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.*;
+
+/**
+ * {@link AnalysisServer} 에 분석을 요청하는 클라이언트입니다. 연결 하나를 유지하며, 요청은 한번에 하나씩 보냅니다.
+ * <p/>
+ * 여러 본문을 {@link #analyze(List, List)} 나 {@link #analyzeDocuments(List)} 로 한번에 보내면 왕복 비용이 한번만 듭니다.
+ * 여러 스레드가 함께 쓰면 요청이 차례로 처리되므로, 스레드마다 클라이언트를 하나씩 두는 것이 좋습니다.
+ * 서버가 분석에 실패한 경우가 아닌 입출력 오류 (연결이 끊겼거나 서버가 유휴 연결을 닫은 경우 등) 가 나면 응답의 경계를 알 수 없으므로 연결을 닫습니다.
+ * 응답을 기다리는 시간도 제한하므로, 서버가 멈추면 {@link java.net.SocketTimeoutException} 으로 실패하고 연결을 닫습니다.
+ * 닫힌 클라이언트는 {@link #isClosed()} 로 확인하고 새로 만들어야 합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class RemoteAnalysisClient implements Closeable {
+
+    /** 연결의 기본 제한 시간 (ms) */
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+
+    /** 응답을 기다리는 기본 제한 시간 (ms) */
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+
+    private final Socket socket;
+    private final AnalysisProtocol protocol;
+
+    /** 이 호스트의 서버에 연결한다. */
+    public RemoteAnalysisClient(int port) throws IOException {
+        this("127.0.0.1", port);
+    }
+
+    public RemoteAnalysisClient(String host, int port) throws IOException {
+        this(host, port, DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param readTimeoutMillis 응답을 기다리는 최대 시간 (ms), 0 이면 제한하지 않는다.
+     *                          제한 시간 안에 응답이 오지 않으면 연결을 닫는다.
+     */
+    public RemoteAnalysisClient(String host, int port, int readTimeoutMillis) throws IOException {
+        if (readTimeoutMillis < 0)
+            throw new IllegalArgumentException("readTimeoutMillis must not be negative. readTimeoutMillis=" + readTimeoutMillis);
+        this.socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(readTimeoutMillis);
+            socket.connect(new InetSocketAddress(host, port), DEFAULT_CONNECT_TIMEOUT_MILLIS);
+            this.protocol = new AnalysisProtocol(socket.getInputStream(), socket.getOutputStream());
+            protocol.writeMagic();
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /** 본문 하나를 분석한다. */
+    public TokenArray analyze(String field, String text) throws IOException {
+        return analyze(Collections.singletonList(field), Collections.singletonList(text)).get(0);
+    }
+
+    /**
+     * 본문들을 한번의 요청으로 분석한다.
+     *
+     * @param fields 본문마다의 필드 이름
+     * @param texts  본문들
+     * @return 본문마다의 토큰들, 본문과 같은 순서
+     * @throws IOException 연결이 끊겼거나, 응답 제한 시간이 지났거나, 서버가 분석에 실패한 경우.
+     *                     서버가 분석에 실패한 경우가 아니면 연결을 닫는다.
+     * @throws IllegalArgumentException 본문이 프로토콜의 한도보다 많거나 큰 경우
+     */
+    public synchronized List<TokenArray> analyze(List<String> fields, List<String> texts) throws IOException {
+        if (fields.size() != texts.size())
+            throw new IllegalArgumentException("fields and texts must have the same size. fields=" + fields.size() + ", texts=" + texts.size());
+        if (texts.isEmpty())
+            return Collections.emptyList();
+
+        try {
+            protocol.writeRequest(fields, texts);
+            return protocol.readResponse(texts.size());
+        } catch (AnalysisProtocol.RemoteAnalysisException e) {
+            throw e;
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /** 문서들의 모든 필드를 한번의 요청으로 분석한다. */
+    public List<AnalyzedDocument> analyzeDocuments(List<AnalysisDocument> documents) throws IOException {
+        List<String> fields = new ArrayList<String>();
+        List<String> texts = new ArrayList<String>();
+        for (AnalysisDocument document : documents) {
+            for (Map.Entry<String, String> field : document.getFields().entrySet()) {
+                fields.add(field.getKey());
+                texts.add(field.getValue() == null ? "" : field.getValue());
+            }
+        }
+
+        Iterator<TokenArray> results = analyze(fields, texts).iterator();
+        List<AnalyzedDocument> analyzed = new ArrayList<AnalyzedDocument>(documents.size());
+        for (AnalysisDocument document : documents) {
+            Map<String, TokenArray> tokens = new LinkedHashMap<String, TokenArray>();
+            for (String field : document.getFields().keySet()) {
+                tokens.put(field, results.next());
+            }
+            analyzed.add(new AnalyzedDocument(document.getId(), tokens));
+        }
+        return analyzed;
+    }
+
+    public boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link AnalysisServer} 에게 분석을 맡기는 Analyzer 입니다. 이 JVM 에서는 사전을 로드하지 않습니다.
+ * <p/>
+ * 스레드마다 {@link RemoteAnalysisClient} 연결을 하나씩 두고, 필드 하나를 분석할 때마다 요청 하나를 보냅니다.
+ * 토큰의 offset 은 Tokenizer 의 correctOffset 을 거치므로 CharFilter 와 함께 쓸 수 있습니다.
+ * 여러 본문을 한번에 보내서 왕복 비용을 줄이려면 {@link #getClient()} 의 일괄 분석을 씁니다.
+ * 연결이 끊기거나 (서버가 유휴 연결을 닫은 경우 등) 응답 제한 시간이 지나서 요청이 실패하면 새로 연결해서 한번 더 보냅니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class RemoteKoreanAnalyzer extends Analyzer {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteKoreanAnalyzer.class);
+
+    private final String host;
+    private final int port;
+    private final int readTimeoutMillis;
+    private final ThreadLocal<RemoteAnalysisClient> clients = new ThreadLocal<RemoteAnalysisClient>();
+    private final List<RemoteAnalysisClient> opened = new ArrayList<RemoteAnalysisClient>();
+
+    /** 이 호스트의 서버를 쓴다. */
+    public RemoteKoreanAnalyzer(int port) {
+        this("127.0.0.1", port);
+    }
+
+    public RemoteKoreanAnalyzer(String host, int port) {
+        this(host, port, RemoteAnalysisClient.DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    /** @param readTimeoutMillis 응답을 기다리는 최대 시간 (ms), 0 이면 제한하지 않는다. */
+    public RemoteKoreanAnalyzer(String host, int port, int readTimeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /** 현재 스레드의 연결, 처음 호출하면 서버에 연결한다. */
+    public RemoteAnalysisClient getClient() throws IOException {
+        RemoteAnalysisClient client = clients.get();
+        if (client == null || client.isClosed()) {
+            RemoteAnalysisClient closed = client;
+            client = new RemoteAnalysisClient(host, port, readTimeoutMillis);
+            synchronized (opened) {
+                if (closed != null)
+                    opened.remove(closed);
+                opened.add(client);
+            }
+            clients.set(client);
+        }
+        return client;
+    }
+
+    @Override
+    public TokenStream tokenStream(String fieldName, Reader reader) {
+        return new RemoteTokenizer(fieldName, reader);
+    }
+
+    @Override
+    public TokenStream reusableTokenStream(String fieldName, Reader reader) throws IOException {
+        RemoteTokenizer stream = (RemoteTokenizer) getPreviousTokenStream();
+        if (stream == null) {
+            stream = new RemoteTokenizer(fieldName, reader);
+            setPreviousTokenStream(stream);
+        } else {
+            stream.fieldName = fieldName;
+            stream.reset(reader);
+        }
+        return stream;
+    }
+
+    /** 모든 스레드의 연결을 닫는다. */
+    @Override
+    public void close() {
+        super.close();
+        synchronized (opened) {
+            for (RemoteAnalysisClient client : opened) {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    log.warn("분석 서버와의 연결을 닫지 못했습니다.", e);
+                }
+            }
+            opened.clear();
+        }
+    }
+
+    /** 본문을 모두 읽어서 서버에 보내고, 받은 토큰들을 내보낸다. */
+    private final class RemoteTokenizer extends TokenArrayTokenizer {
+
+        String fieldName;
+        private boolean done;
+
+        RemoteTokenizer(String fieldName, Reader input) {
+            super(input);
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        protected boolean nextTokens() throws IOException {
+            if (done)
+                return false;
+            done = true;
+            readText();
+            String source = text.toString();
+            TokenArray tokens;
+            try {
+                tokens = getClient().analyze(fieldName, source);
+            } catch (AnalysisProtocol.RemoteAnalysisException e) {
+                throw e;
+            } catch (IOException e) {
+                // 클라이언트가 연결을 닫았으므로 새 연결로 한번 더 보낸다.
+                log.debug("분석 서버와의 연결이 끊겨서 다시 연결합니다. {}", e.toString());
+                tokens = getClient().analyze(fieldName, source);
+            }
+            setTokens(tokens, 0);
+            return true;
+        }
+
+        @Override
+        protected void clear() {
+            super.clear();
+            done = false;
+        }
+    }
+}
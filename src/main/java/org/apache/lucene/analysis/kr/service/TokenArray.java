@@ -0,0 +1,180 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 필드 하나를 분석한 토큰들을 토큰 객체 없이 배열로 담습니다.
+ * <p/>
+ * 모든 term 은 하나의 char 배열에 이어 붙이고, i 번째 term 은 termStarts[i] ~ termStarts[i+1] 구간입니다.
+ * offset, position increment 는 int 배열에, type 은 토큰 타입 상수 문자열의 참조로 담습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class TokenArray {
+
+    private static final TokenArray EMPTY = new TokenArray(new char[0], new int[1], new int[0], new int[0], new int[0], new String[0]);
+
+    private final char[] terms;
+    private final int[] termStarts;
+    private final int[] startOffsets;
+    private final int[] endOffsets;
+    private final int[] positionIncrements;
+    private final String[] types;
+
+    private TokenArray(char[] terms, int[] termStarts, int[] startOffsets, int[] endOffsets, int[] positionIncrements, String[] types) {
+        this.terms = terms;
+        this.termStarts = termStarts;
+        this.startOffsets = startOffsets;
+        this.endOffsets = endOffsets;
+        this.positionIncrements = positionIncrements;
+        this.types = types;
+    }
+
+    /** 토큰이 없는 배열 */
+    public static TokenArray empty() {
+        return EMPTY;
+    }
+
+    /** stream 의 토큰을 모두 읽어서 배열로 만든다. stream 을 reset 하고 end 까지 호출한다. */
+    public static TokenArray read(TokenStream stream) throws IOException {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+        OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+        PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+
+        Builder builder = new Builder();
+        stream.reset();
+        while (stream.incrementToken()) {
+            builder.add(termAtt.buffer(), termAtt.length(), offsetAtt.startOffset(), offsetAtt.endOffset(),
+                        posIncAtt.getPositionIncrement(), typeAtt.type());
+        }
+        stream.end();
+        return builder.build();
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    public String term(int i) {
+        return new String(terms, termStarts[i], termStarts[i + 1] - termStarts[i]);
+    }
+
+    /** i 번째 term 을 dest 에 복사하고 길이를 반환한다. dest 가 작으면 복사하지 않고 필요한 길이를 음수로 반환한다. */
+    public int term(int i, char[] dest) {
+        int length = termStarts[i + 1] - termStarts[i];
+        if (dest.length < length)
+            return -length;
+        System.arraycopy(terms, termStarts[i], dest, 0, length);
+        return length;
+    }
+
+    public int startOffset(int i) {
+        return startOffsets[i];
+    }
+
+    public int endOffset(int i) {
+        return endOffsets[i];
+    }
+
+    public int positionIncrement(int i) {
+        return positionIncrements[i];
+    }
+
+    public String type(int i) {
+        return types[i];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TokenArray)) return false;
+        TokenArray other = (TokenArray) o;
+        return Arrays.equals(terms, other.terms) && Arrays.equals(termStarts, other.termStarts)
+                && Arrays.equals(startOffsets, other.startOffsets) && Arrays.equals(endOffsets, other.endOffsets)
+                && Arrays.equals(positionIncrements, other.positionIncrements) && Arrays.equals(types, other.types);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(terms) + Arrays.hashCode(startOffsets);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(term(i)).append('/').append(types[i]).append('/').append(startOffsets[i]).append('-').append(endOffsets[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    /** 토큰을 차례로 추가해서 {@link TokenArray} 를 만든다. */
+    public static final class Builder {
+
+        private char[] terms = new char[64];
+        private int[] termStarts = new int[17];
+        private int[] startOffsets = new int[16];
+        private int[] endOffsets = new int[16];
+        private int[] positionIncrements = new int[16];
+        private String[] types = new String[16];
+        private int size;
+
+        public Builder add(char[] term, int length, int startOffset, int endOffset, int positionIncrement, String type) {
+            if (size == types.length) {
+                int capacity = size << 1;
+                termStarts = Arrays.copyOf(termStarts, capacity + 1);
+                startOffsets = Arrays.copyOf(startOffsets, capacity);
+                endOffsets = Arrays.copyOf(endOffsets, capacity);
+                positionIncrements = Arrays.copyOf(positionIncrements, capacity);
+                types = Arrays.copyOf(types, capacity);
+            }
+            int termStart = termStarts[size];
+            if (termStart + length > terms.length)
+                terms = Arrays.copyOf(terms, Math.max(terms.length << 1, termStart + length));
+            System.arraycopy(term, 0, terms, termStart, length);
+
+            termStarts[size + 1] = termStart + length;
+            startOffsets[size] = startOffset;
+            endOffsets[size] = endOffset;
+            positionIncrements[size] = positionIncrement;
+            types[size] = type;
+            size++;
+            return this;
+        }
+
+        /** 추가한 토큰 수에 맞게 배열을 잘라서 만든다. */
+        public TokenArray build() {
+            if (size == 0)
+                return EMPTY;
+            return new TokenArray(Arrays.copyOf(terms, termStarts[size]), Arrays.copyOf(termStarts, size + 1),
+                                  Arrays.copyOf(startOffsets, size), Arrays.copyOf(endOffsets, size),
+                                  Arrays.copyOf(positionIncrements, size), Arrays.copyOf(types, size));
+        }
+    }
+}
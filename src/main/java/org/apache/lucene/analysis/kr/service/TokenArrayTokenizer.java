@@ -0,0 +1,132 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.service;
+
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 다른 곳에서 분석한 {@link TokenArray} 들을 차례로 내보내는 Tokenizer 입니다.
+ * <p/>
+ * 하위 클래스는 본문을 모두 읽은 뒤 ({@link #readText()}) 토큰 배열을 {@link #nextTokens()} 로 하나씩 넘기며,
+ * 배열의 offset 에 배열의 시작 위치를 더하고 {@link #correctOffset(int)} 로 고쳐서 내보냅니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+abstract class TokenArrayTokenizer extends Tokenizer {
+
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+    private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+    private final PositionIncrementAttribute posIncrAtt = addAttribute(PositionIncrementAttribute.class);
+    private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+    /** 읽은 본문 */
+    protected final StringBuilder text = new StringBuilder();
+
+    private char[] termBuffer = new char[16];
+    private TokenArray current;
+    private int base;
+    private int tokenUpto;
+
+    protected TokenArrayTokenizer(Reader input) {
+        super(input);
+    }
+
+    /**
+     * 다음 토큰 배열을 {@link #setTokens(TokenArray, int)} 로 넘긴다.
+     *
+     * @return 더 이상 토큰 배열이 없으면 false
+     */
+    protected abstract boolean nextTokens() throws IOException;
+
+    /** @param base 배열의 offset 에 더할 본문에서의 시작 위치 */
+    protected final void setTokens(TokenArray tokens, int base) {
+        this.current = tokens;
+        this.base = base;
+        this.tokenUpto = 0;
+    }
+
+    /** 입력을 모두 읽어서 {@link #text} 에 담는다. */
+    protected final void readText() throws IOException {
+        char[] buffer = new char[4096];
+        int read;
+        while ((read = input.read(buffer)) > 0) {
+            text.append(buffer, 0, read);
+        }
+    }
+
+    @Override
+    public final boolean incrementToken() throws IOException {
+        while (current == null || tokenUpto >= current.size()) {
+            if (!nextTokens())
+                return false;
+        }
+
+        clearAttributes();
+        int length = current.term(tokenUpto, termBuffer);
+        if (length < 0) {
+            termBuffer = new char[-length];
+            length = current.term(tokenUpto, termBuffer);
+        }
+        termAtt.copyBuffer(termBuffer, 0, length);
+        offsetAtt.setOffset(correctOffset(base + current.startOffset(tokenUpto)),
+                            correctOffset(base + current.endOffset(tokenUpto)));
+        posIncrAtt.setPositionIncrement(current.positionIncrement(tokenUpto));
+        typeAtt.setType(current.type(tokenUpto));
+        tokenUpto++;
+        return true;
+    }
+
+    @Override
+    public void end() throws IOException {
+        int finalOffset = correctOffset(text.length());
+        offsetAtt.setOffset(finalOffset, finalOffset);
+    }
+
+    @Override
+    public void reset() throws IOException {
+        super.reset();
+        clear();
+    }
+
+    @Override
+    public void reset(Reader input) throws IOException {
+        super.reset(input);
+        clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        clear();
+        super.close();
+    }
+
+    /** 본문과 내보내던 배열을 지운다. 하위 클래스는 자신의 상태도 지워야 한다. */
+    protected void clear() {
+        text.setLength(0);
+        current = null;
+        base = 0;
+        tokenUpto = 0;
+    }
+}
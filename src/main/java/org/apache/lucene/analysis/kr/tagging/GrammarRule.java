@@ -0,0 +1,169 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.tagging;
+
+import org.apache.lucene.analysis.kr.morph.AnalysisOutput;
+import org.apache.lucene.analysis.kr.morph.PatternConstants;
+import org.apache.lucene.analysis.kr.utils.ConstraintUtil;
+import org.apache.lucene.analysis.kr.utils.StringUtil;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * occurrence.dic 의 문법 규칙 하나를 컴파일한 불변 객체입니다.
+ * <p/>
+ * 규칙은 앞 어절 (어휘, 어미, 패턴), 뒷 어절 (어휘, 어미, 패턴), 배타 여부의 7개 값으로 이루어집니다.
+ * 어휘와 어미는 HashSet, 패턴은 BitSet 으로 미리 풀어 두어서, 검사할 때 문자열을 나누거나 만들지 않습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+final class GrammarRule {
+
+    private static final String NILL = "NILL";
+    private static final String NOPATN = "0";
+
+    /** 사전에 기록된 그대로의 값 ({@link Tagger#getGR(String)} 용) */
+    final String[] values;
+
+    final Term pword;
+    final Set<String> pends;
+    final Pattern ppatn;
+    final Term rword;
+    final Set<String> rends;
+    final Pattern rpatn;
+
+    /** 이 규칙이 맞지 않으면 해당 분석 결과를 후보에서 제외한다. */
+    final boolean exclusive;
+
+    GrammarRule(String[] values) {
+        this.values = values;
+        this.pword = Term.parse(values[0]);
+        this.pends = parseSet(values[1]);
+        this.ppatn = Pattern.parse(values[2]);
+        this.rword = Term.parse(values[3]);
+        this.rends = parseSet(values[4]);
+        this.rpatn = Pattern.parse(values[5]);
+        this.exclusive = "1".equals(values[6]);
+    }
+
+    /**
+     * 규칙이 두 어절의 분석 결과에 맞는지 검사한다.
+     *
+     * @param depFront true 면 앞 어절의 어휘를, false 면 뒷 어절의 어휘를 검사한다.
+     */
+    boolean matches(String psource, String rsource, AnalysisOutput pmorph, AnalysisOutput rmorph, boolean depFront) {
+
+        if (depFront && pword != null && !pword.matches(psource, pmorph)) // 앞 어절의 어휘
+            return false;
+
+        if (pends != null && !pends.contains(endOf(pmorph))) // 앞 어절의 어미
+            return false;
+
+        if (ppatn != null && !ppatn.matches(pmorph.getPatn())) // 앞 어절의 패턴
+            return false;
+
+        if (!depFront && rword != null && !rword.matches(rsource, rmorph)) // 뒷 어절의 어휘
+            return false;
+
+        if (rends != null && !rends.contains(endOf(rmorph))) // 뒷 어절의 어미
+            return false;
+
+        if (rpatn != null && !rpatn.matches(rmorph.getPatn())) // 뒷 어절의 패턴
+            return false;
+
+        return true;
+    }
+
+    private static String endOf(AnalysisOutput morph) {
+        String end = morph.getJosa();
+        return (end == null) ? morph.getEomi() : end;
+    }
+
+    /** "a,b,c" 를 집합으로 만든다. NILL 이면 null (검사하지 않음) */
+    static Set<String> parseSet(String value) {
+        if (NILL.equals(value))
+            return null;
+        Set<String> set = new HashSet<String>();
+        Collections.addAll(set, StringUtil.split(value, ","));
+        return Collections.unmodifiableSet(set);
+    }
+
+    /** 어휘 조건: "단어,단어^W" (표층형) 또는 "단어,단어^S" (어간) */
+    static final class Term {
+
+        /** 사전에 기록된 단어 목록 그대로 ("단어,단어"). 색인의 키로 쓴다. */
+        final String field;
+        final Set<String> words;
+        final boolean stem;
+
+        private Term(String field, Set<String> words, boolean stem) {
+            this.field = field;
+            this.words = words;
+            this.stem = stem;
+        }
+
+        static Term parse(String value) {
+            if (NILL.equals(value))
+                return null;
+            String[] types = StringUtil.split(value, "^");
+            return new Term(types[0], parseSet(types[0]), types.length > 1 && "S".equals(types[1]));
+        }
+
+        boolean matches(String source, AnalysisOutput morph) {
+            return words.contains(stem ? morph.getStem() : source);
+        }
+    }
+
+    /** 패턴 조건: 패턴 번호의 목록, E 는 어미로 끝나는 패턴, J 는 조사로 끝나는 체언 패턴 */
+    static final class Pattern {
+
+        final BitSet patns;
+        final boolean eomi;
+        final boolean josa;
+
+        private Pattern(BitSet patns, boolean eomi, boolean josa) {
+            this.patns = patns;
+            this.eomi = eomi;
+            this.josa = josa;
+        }
+
+        static Pattern parse(String value) {
+            if (NOPATN.equals(value))
+                return null;
+            BitSet patns = new BitSet();
+            boolean eomi = false;
+            boolean josa = false;
+            for (String str : StringUtil.split(value, ",")) {
+                if ("E".equals(str)) eomi = true;
+                else if ("J".equals(str)) josa = true;
+                else patns.set(Integer.parseInt(str));
+            }
+            return new Pattern(patns, eomi, josa);
+        }
+
+        boolean matches(int ptn) {
+            if (ptn >= 0 && patns.get(ptn))
+                return true;
+            if (eomi && ConstraintUtil.isEomiPhrase(ptn))
+                return true;
+            return josa && (ConstraintUtil.isJosaNounPhrase(ptn) || ptn == PatternConstants.PTN_N);
+        }
+    }
+}
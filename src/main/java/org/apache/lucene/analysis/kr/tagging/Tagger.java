@@ -16,21 +16,24 @@
 
 package org.apache.lucene.analysis.kr.tagging;
 
+import org.apache.lucene.analysis.kr.metrics.DictionaryMemory;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
 import org.apache.lucene.analysis.kr.morph.AnalysisOutput;
 import org.apache.lucene.analysis.kr.morph.MorphException;
-import org.apache.lucene.analysis.kr.morph.PatternConstants;
 import org.apache.lucene.analysis.kr.utils.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 
 /**
  * 여러개의 형태소분석 결과 중에 최적의 것을 선택한다.
  * 이 함수는 문장단위로 호출되어야 한다.
+ * <p/>
+ * 문법 규칙 (occurrence.dic) 은 로드할 때 {@link GrammarRule} 로 컴파일해서 조회 방식별 색인 ({@link RuleIndex}) 에 담는다.
+ * 색인은 만든 후에 변경하지 않으므로 여러 쓰레드가 잠금 없이 조회한다. {@link #reloadRules()} 는 새 색인을 만들어서 바꾸고,
+ * 각 Tagger 는 {@link #tagging(String, String, List, List)} 를 호출할 때마다 그때의 색인을 쓴다.
  *
  * @author user
  */
@@ -38,20 +41,24 @@ public class Tagger {
 
     private static final Logger log = LoggerFactory.getLogger(Tagger.class);
 
-    private static Trie<String, String[]> occurrences = new Trie<String, String[]>(true);
+    private static final String tagDicLoc = KoreanEnv.FILE_TAGGER;
 
-    static {
-        loadTaggerDic();
-    }
+    private static final String NILL = "NILL";
 
-    private static final String tagDicLoc = "tagger.dic";
+    private static final GrammarRule[] NO_RULES = new GrammarRule[0];
 
-    private static final String NILL = "NILL";
+    private static volatile RuleIndex ruleIndex = loadTaggerDic(StartupReport.start(StartupReport.TAGGER));
 
-    private static final String NOPATN = "0";
+    /** 현재 tagging 에서 사용하는 색인 */
+    private RuleIndex rules = ruleIndex;
 
     private AnalysisOutput po;
 
+    /** 문법 규칙 사전을 다시 읽는다. ({@link DictionaryUtil#reloadChanged()} 가 사전이 바뀌면 호출한다) */
+    public static void reloadRules() throws MorphException {
+        ruleIndex = loadTaggerDic(StartupReport.untracked(StartupReport.TAGGER));
+    }
+
     public AnalysisOutput tagging(String psource, List<AnalysisOutput> pmorphs) throws MorphException {
 
         return tagging(psource, null, pmorphs, null);
@@ -62,6 +69,7 @@ public class Tagger {
 
         if ((pmorphs == null || pmorphs.size() == 0) && (rmorphs == null || rmorphs.size() == 0)) return null;
 
+        rules = ruleIndex;
         po = lookupBest(psource, rsource, pmorphs, rmorphs);
         po.setSource(psource);
 
@@ -103,13 +111,10 @@ public class Tagger {
 
         for (AnalysisOutput morph : rmorphs) {
 
-            Iterator<String[]> iterw = getGR("F" + rsource + "^W");
-
-            AnalysisOutput best = selectBest(iterw, po.getSource(), rsource, po, morph, true, removes);
+            AnalysisOutput best = selectBest(rules.get(rules.fSurface, rsource), po.getSource(), rsource, po, morph, true, removes);
             if (best != null) return best;
 
-            Iterator<String[]> iters = getGR("F" + morph.getStem() + "^S");
-            best = selectBest(iters, po.getSource(), rsource, po, morph, true, removes);
+            best = selectBest(rules.get(rules.fStem, morph.getStem()), po.getSource(), rsource, po, morph, true, removes);
             if (best != null) return best;
         }
 
@@ -136,25 +141,18 @@ public class Tagger {
 
             if (rmorph.getScore() != AnalysisOutput.SCORE_CORRECT) break;
 
-            String rend = rmorph.getJosa();
-            if (rend == null) rend = rmorph.getEomi();
-
             for (AnalysisOutput pmorph : pmorphs) {
 
-                Iterator<String[]> iterw = getGR("R" + psource + "^W/");
-
                 String pend = pmorph.getJosa();
                 if (pend == null) pend = pmorph.getEomi();
 
-                AnalysisOutput best = selectBest(iterw, psource, rsource, pmorph, rmorph, false, removes);
+                AnalysisOutput best = selectBest(rules.get(rules.rSurface, psource), psource, rsource, pmorph, rmorph, false, removes);
                 if (best != null) return best;
 
-                Iterator<String[]> iters = getGR("R" + NILL + "/" + pend + "/");
-                best = selectBest(iters, psource, rsource, pmorph, rmorph, false, removes);
+                best = selectBest(rules.get(rules.rNill, pend), psource, rsource, pmorph, rmorph, false, removes);
                 if (best != null) return best;
 
-                iters = getGR("R" + pmorph.getStem() + "^S/");
-                best = selectBest(iters, psource, rsource, pmorph, rmorph, false, removes);
+                best = selectBest(rules.get(rules.rStem, pmorph.getStem()), psource, rsource, pmorph, rmorph, false, removes);
 
                 if (best != null)
                     return best;
@@ -168,7 +166,7 @@ public class Tagger {
         return null;
     }
 
-    private AnalysisOutput selectBest(Iterator<String[]> iter,
+    private AnalysisOutput selectBest(GrammarRule[] candidates,
                                       String psource,
                                       String rsource,
                                       AnalysisOutput pmorph,
@@ -176,14 +174,12 @@ public class Tagger {
                                       boolean rear,
                                       List<AnalysisOutput> removes) {
 
-        while (iter.hasNext()) {
-
-            String[] values = iter.next();
+        for (GrammarRule rule : candidates) {
 
-            if (checkGrammer(values, psource, rsource, pmorph, rmorph, rear)) {
+            if (rule.matches(psource, rsource, pmorph, rmorph, rear)) {
                 if (rear) return rmorph;
                 else return pmorph;
-            } else if ("1".equals(values[6])) {
+            } else if (rule.exclusive) {
                 if (!removes.contains(pmorph)) removes.add(pmorph);
                 break;
             }
@@ -193,107 +189,27 @@ public class Tagger {
 
     }
 
-    private boolean checkGrammer(String[] values,
-                                 String psource,
-                                 String rsource,
-                                 AnalysisOutput pmorph,
-                                 AnalysisOutput rmorph,
-                                 boolean depFront) {
-
-        boolean ok = true;
-
-        String pend = pmorph.getJosa();
-        if (pend == null) pend = pmorph.getEomi();
-
-        String rend = rmorph.getJosa();
-        if (rend == null) rend = rmorph.getEomi();
-
-        if (depFront && !NILL.equals(values[0]) && !checkWord(psource, values[0], pmorph)) { // 앞 어절의 어휘
-            return false;
-        }
-
-        if (!NILL.equals(values[1]) && !checkEomi(values[1], pend)) { // 앞 어절의 어미
-            return false;
-        }
-
-        if (!NOPATN.equals(values[2]) && !checkPattern(values[2], pmorph.getPatn())) {// 앞 어절의 패턴
-            return false;
-        }
-
-        if (!depFront && !NILL.equals(values[3]) && !checkWord(rsource, values[3], rmorph)) { // 뒷 어절의 어휘
-            return false;
-        }
-
-        if (!NILL.equals(values[4]) && !checkEomi(values[4], rend)) { // 뒷 어절의 어미
-            return false;
-        }
-
-        if (!NOPATN.equals(values[5]) && !checkPattern(values[5], rmorph.getPatn())) { // 뒷 어절의 패턴
-            return false;
-        }
-
-        return true;
-
-    }
-
-    private boolean checkWord(String source, String value, AnalysisOutput morph) {
-
-        String[] types = StringUtil.split(value, "^");
-        String[] strs = StringUtil.split(types[0], ",");
-
-        String text = source;
-        if ("S".equals(types[1])) text = morph.getStem();
-
-        for (String str : strs) {
-            if (str.equals(text))
-                return true;
-        }
-
-        return false;
-    }
-
-    private boolean checkEomi(String value, String rend) {
-
-        String[] strs = StringUtil.split(value, ",");
-
-        for (String str : strs) {
-            if (str.equals(rend))
-                return true;
-        }
-
-        return false;
-    }
-
-    private boolean checkPattern(String value, int ptn) {
-
-        String[] strs = StringUtil.split(value, ",");
-        String strPtn = Integer.toString(ptn);
-
-        for (String str : strs) {
-            if ("E".equals(str) && ConstraintUtil.isEomiPhrase(ptn))
-                return true;
-            else if ("J".equals(str) &&
-                    (ConstraintUtil.isJosaNounPhrase(ptn) || ptn == PatternConstants.PTN_N))
-                return true;
-            else if (str.equals(strPtn))
-                return true;
-        }
-
-        return false;
-    }
-
+    /**
+     * 문법 규칙 사전에서 prefix 로 시작하는 키의 규칙 값들을 반환한다.
+     * 키는 "F" + 뒷 어절 조건 + 앞 어절 조건, "R" + 앞 어절 조건 + 뒷 어절 조건 형태이다.
+     */
     @SuppressWarnings("unchecked")
-    public static synchronized Iterator<String[]> getGR(String prefix) throws MorphException {
-        return (Iterator<String[]>) occurrences.getPrefixedBy(prefix);
+    public static Iterator<String[]> getGR(String prefix) throws MorphException {
+        return (Iterator<String[]>) ruleIndex.occurrences.getPrefixedBy(prefix);
     }
 
-    private static void loadTaggerDic() throws MorphException {
+    private static RuleIndex loadTaggerDic(StartupReport.Timer timer) throws MorphException {
         try {
             log.info("Tagger 사전을 읽어드립니다...");
-            List<String> strs = FileUtil.readLines(KoreanEnv.getInstance().getValue(tagDicLoc), KoreanEnv.UTF8);
+            List<String> strs = DictionarySource.readLines(tagDicLoc);
+            timer.read();
 
             log.info("Tagger 사전을 파싱합니다...");
 
+            Trie<String, String[]> occurrences = new Trie<String, String[]>(true);
+            // 같은 키는 나중 규칙이 이기고, 같은 조회 안에서는 키 순서로 검사한다. (Trie 를 prefix 로 조회하던 순서)
+            TreeMap<String, GrammarRule> compiled = new TreeMap<String, GrammarRule>();
+
             for (String str : strs) {
                 if (str == null) continue;
                 str = str.trim();
@@ -306,12 +222,93 @@ public class Tagger {
                 else key = syls[1].substring(0, syls[1].lastIndexOf("/") + 1) + syls[2].substring(0, syls[2].lastIndexOf("/"));
 
                 String[] patns = StringUtil.split(syls[1] + "/" + syls[2] + "/" + syls[3], "/");
+                if (patns.length != 7) continue;
 
                 occurrences.add(syls[0] + key, patns);
+                compiled.put(occurrences.canonicalCase(syls[0] + key), new GrammarRule(patns));
             }
-            log.info("Tagger 사진을 빌드했습니다.");
+
+            timer.parse();
+            RuleIndex index = new RuleIndex(occurrences, compiled);
+            timer.finish(compiled.size());
+            DictionaryMemory.register(StartupReport.TAGGER, "rules", index);
+            log.info("Tagger 사진을 빌드했습니다. 규칙수=[{}]", compiled.size());
+            return index;
         } catch (Exception e) {
             throw new MorphException("Fail to read the tagger dictionary.(" + tagDicLoc + ")\n" + e.getMessage());
         }
     }
+
+    /**
+     * 조회 방식별로 나눈 문법 규칙 색인. 조회할 때 키를 만들지 않도록 단어/어미 자체를 키로 사용한다.
+     * <ul>
+     * <li>fSurface: F 규칙, 뒷 어절 표층형 (^W)</li>
+     * <li>fStem: F 규칙, 뒷 어절 어간 (^S)</li>
+     * <li>rSurface: R 규칙, 앞 어절 표층형 (^W)</li>
+     * <li>rStem: R 규칙, 앞 어절 어간 (^S)</li>
+     * <li>rNill: R 규칙 중 앞 어절의 어휘 조건이 없는 것, 앞 어절 어미</li>
+     * </ul>
+     * 키는 사전에 기록된 필드 값 그대로이다. 예전의 prefix 조회 ("F" + 단어 + "^W" 등) 는 필드 전체가 같을 때만 맞았으므로,
+     * "단어1,단어2" 처럼 목록으로 된 조회 필드는 목록의 각 단어로 나누지 않고 목록 문자열 하나로 등록한다. (목록의 단어로는 조회되지 않는다)
+     * 조회 필드가 아닌 어휘/어미 조건의 목록은 {@link GrammarRule#matches} 에서 예전처럼 각 단어를 검사한다.
+     */
+    private static final class RuleIndex {
+
+        final Trie<String, String[]> occurrences;
+        final Map<String, GrammarRule[]> fSurface;
+        final Map<String, GrammarRule[]> fStem;
+        final Map<String, GrammarRule[]> rSurface;
+        final Map<String, GrammarRule[]> rStem;
+        final Map<String, GrammarRule[]> rNill;
+
+        RuleIndex(Trie<String, String[]> occurrences, SortedMap<String, GrammarRule> compiled) {
+            Map<String, List<GrammarRule>> fs = new HashMap<String, List<GrammarRule>>();
+            Map<String, List<GrammarRule>> ft = new HashMap<String, List<GrammarRule>>();
+            Map<String, List<GrammarRule>> rs = new HashMap<String, List<GrammarRule>>();
+            Map<String, List<GrammarRule>> rt = new HashMap<String, List<GrammarRule>>();
+            Map<String, List<GrammarRule>> rn = new HashMap<String, List<GrammarRule>>();
+
+            for (Map.Entry<String, GrammarRule> entry : compiled.entrySet()) {
+                GrammarRule rule = entry.getValue();
+                if (entry.getKey().startsWith("f")) {
+                    if (rule.rword != null)
+                        add(rule.rword.stem ? ft : fs, rule.rword.field, rule);
+                } else if (rule.pword != null) {
+                    add(rule.pword.stem ? rt : rs, rule.pword.field, rule);
+                } else if (rule.pends != null) {
+                    add(rn, rule.values[1], rule);
+                }
+            }
+
+            this.occurrences = occurrences;
+            this.fSurface = freeze(fs);
+            this.fStem = freeze(ft);
+            this.rSurface = freeze(rs);
+            this.rStem = freeze(rt);
+            this.rNill = freeze(rn);
+        }
+
+        GrammarRule[] get(Map<String, GrammarRule[]> map, String key) {
+            if (key == null) return NO_RULES;
+            GrammarRule[] found = map.get(key);
+            return (found == null) ? NO_RULES : found;
+        }
+
+        private static void add(Map<String, List<GrammarRule>> map, String key, GrammarRule rule) {
+            List<GrammarRule> list = map.get(key);
+            if (list == null) {
+                list = new ArrayList<GrammarRule>(2);
+                map.put(key, list);
+            }
+            list.add(rule);
+        }
+
+        private static Map<String, GrammarRule[]> freeze(Map<String, List<GrammarRule>> map) {
+            Map<String, GrammarRule[]> frozen = new HashMap<String, GrammarRule[]>(map.size() * 2);
+            for (Map.Entry<String, List<GrammarRule>> entry : map.entrySet()) {
+                frozen.put(entry.getKey(), entry.getValue().toArray(new GrammarRule[entry.getValue().size()]));
+            }
+            return Collections.unmodifiableMap(frozen);
+        }
+    }
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.lucene.analysis.kr.morph.MorphException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+
+/**
+ * 사전 파일을 읽는 곳을 정합니다.
+ * <p/>
+ * {@link KoreanEnv#getDictionaryDir()} 에 사전 파일과 같은 이름의 파일이 있으면 파일 시스템에서 NIO channel 로 읽고,
+ * 없으면 지금처럼 classpath 에서 읽습니다. 파일 이름은 korean.properties 에 지정한 경로의 마지막 이름입니다.
+ * (예: tagger.dic 는 occurrence.dic) 따라서 jar 의 dic 디렉토리를 그대로 복사해서 고치면 jar 를 다시 배포하지 않아도 됩니다.
+ * <p/>
+ * 파일 시스템에서 읽은 사전은 크기, 수정 시각, CRC32 를 기억해 두고 {@link #isChanged(String)} 로 바뀌었는지 확인합니다.
+ * 크기와 수정 시각이 같으면 파일을 읽지 않고, 수정 시각만 바뀌고 내용이 같으면 바뀌지 않은 것으로 봅니다.
+ * <p/>
+ * 복합명사 사전 (compounds.dic) 은 jar 에 포함되지 않을 수 있으므로, classpath 에도 없으면 경고를 남기고 빈 사전으로 읽습니다.
+ * 이때는 복합명사 사전의 분리 정보 없이 분석하므로, 사전 디렉토리에 compounds.dic 을 두어야 합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class DictionarySource {
+
+    private static final Logger log = LoggerFactory.getLogger(DictionarySource.class);
+
+    /** 사전 이름 -> 마지막으로 파일 시스템에서 읽은 파일의 상태 */
+    private static final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
+
+    /** 사전 디렉토리의 파일을 미리 읽는 쓰레드들, 쉬는 쓰레드는 없어진다. */
+    private static final ExecutorService prefetcher =
+            Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("dictionary-prefetch-%d").build());
+
+    /** classpath 에 없어도 되는 사전들, 없으면 빈 사전으로 읽는다. */
+    private static final List<String> OPTIONAL_FILES = Collections.singletonList(KoreanEnv.FILE_COMPOUNDS);
+
+    private DictionarySource() {}
+
+    /** 파일 시스템에서 읽은 사전 파일의 상태 */
+    public static final class Snapshot {
+
+        private final File file;
+        private final long size;
+        private final long lastModified;
+        private final long checksum;
+
+        Snapshot(File file, long size, long lastModified, long checksum) {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /** 파일 내용의 CRC32 */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{file=" + file + ", size=" + size + ", lastModified=" + lastModified
+                    + ", checksum=" + Long.toHexString(checksum) + "}";
+        }
+    }
+
+    /**
+     * 사전 파일의 줄들을 읽는다. 사전 디렉토리에 파일이 있으면 파일을, 없으면 classpath 의 자원을 읽는다.
+     *
+     * @param name 사전 이름 (예: {@link KoreanEnv#FILE_DICTIONARY})
+     * @throws MorphException 사전 파일을 읽지 못한 경우
+     */
+    public static List<String> readLines(String name) throws MorphException {
+        File file = getFile(name);
+        if (file == null) {
+            snapshots.remove(name);
+            String path = KoreanEnv.getInstance().getValue(name);
+            if (OPTIONAL_FILES.contains(name) && !isResource(path)) {
+                log.warn("사전 파일이 classpath 와 사전 디렉토리에 없어서 빈 사전을 사용합니다. name=[{}], path=[{}], dir=[{}]",
+                         new Object[] { name, path, KoreanEnv.getInstance().getDictionaryDir() });
+                return new ArrayList<String>();
+            }
+            return FileUtil.readLines(path, KoreanEnv.UTF8);
+        }
+
+        try {
+            long lastModified = file.lastModified();
+            byte[] bytes = read(file);
+            snapshots.put(name, new Snapshot(file, bytes.length, lastModified, checksum(bytes)));
+            log.info("파일 시스템의 사전 파일을 읽었습니다. name=[{}], file=[{}], bytes=[{}]", new Object[] { name, file, bytes.length });
+            return splitLines(new String(bytes, KoreanEnv.UTF8));
+        } catch (IOException e) {
+            throw new MorphException("사전 파일을 읽지 못했습니다. file=" + file, e);
+        }
+    }
+
+    /**
+     * 사전 파일의 줄들을 읽기 시작한다. 사전 디렉토리의 파일은 별도 쓰레드에서 읽으므로 여러 사전 파일을 함께 읽을 수 있고,
+     * classpath 의 자원은 {@link FileUtil#readLinesAsync(String, java.nio.charset.Charset)} 처럼 호출한 쓰레드에서 읽는다.
+     *
+     * @param name 사전 이름
+     * @return 읽은 줄들, 읽지 못하면 {@link MorphException} 을 원인으로 하는 ExecutionException
+     */
+    public static Future<List<String>> readLinesAsync(final String name) {
+        FutureTask<List<String>> task = new FutureTask<List<String>>(new Callable<List<String>>() {
+            @Override
+            public List<String> call() throws Exception {
+                return readLines(name);
+            }
+        });
+        if (getFile(name) == null)
+            task.run();
+        else
+            prefetcher.execute(task);
+        return task;
+    }
+
+    /**
+     * 사전 디렉토리에 있는 사전 파일
+     *
+     * @param name 사전 이름
+     * @return 사전 디렉토리를 지정하지 않았거나 디렉토리에 파일이 없으면 null
+     */
+    public static File getFile(String name) {
+        File dir = KoreanEnv.getInstance().getDictionaryDir();
+        String path = KoreanEnv.getInstance().getValue(name);
+        if (dir == null || path == null)
+            return null;
+
+        File file = new File(dir, new File(path).getName());
+        return file.isFile() ? file : null;
+    }
+
+    /** {@link FileUtil#getResourceFileStream(String)} 이 찾는 classpath 자원이 있는지 확인한다. */
+    private static boolean isResource(String path) {
+        return FileUtil.class.getClassLoader().getResource(path) != null || ClassLoader.getSystemResource(path) != null;
+    }
+
+    /** 마지막으로 파일 시스템에서 읽은 사전 파일의 상태, classpath 에서 읽었으면 null */
+    public static Snapshot getSnapshot(String name) {
+        return snapshots.get(name);
+    }
+
+    /**
+     * 마지막으로 읽은 뒤에 사전 파일이 바뀌었는지 확인한다. 사전 디렉토리에 파일이 생기거나 없어진 것도 바뀐 것으로 본다.
+     * 크기와 수정 시각이 같으면 파일을 읽지 않는다. 수정 시각만 바뀌었으면 CRC32 를 비교하고, 내용이 같으면 새 수정 시각을 기억한다.
+     *
+     * @param name 사전 이름
+     */
+    public static boolean isChanged(String name) {
+        File file = getFile(name);
+        Snapshot snapshot = snapshots.get(name);
+        if (file == null || snapshot == null)
+            return (file == null) != (snapshot == null);
+        if (!file.equals(snapshot.file))
+            return true;
+
+        long lastModified = file.lastModified();
+        long size = file.length();
+        if (size == snapshot.size && lastModified == snapshot.lastModified)
+            return false;
+        if (size != snapshot.size)
+            return true;
+
+        try {
+            long checksum = checksum(read(file));
+            if (checksum != snapshot.checksum)
+                return true;
+            snapshots.replace(name, snapshot, new Snapshot(file, size, lastModified, checksum));
+            return false;
+        } catch (IOException e) {
+            log.warn("사전 파일이 바뀌었는지 확인하지 못했습니다. file=[{}]", file, e);
+            return false;
+        }
+    }
+
+    /** 파일 전체를 channel 로 읽는다. */
+    static byte[] read(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("사전 파일이 너무 큽니다. file=" + file + ", size=" + size);
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    break;
+            }
+            if (buffer.hasRemaining()) {
+                byte[] bytes = new byte[buffer.position()];
+                System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+                return bytes;
+            }
+            return buffer.array();
+        } finally {
+            channel.close();
+        }
+    }
+
+    static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    /** {@link java.io.BufferedReader#readLine()} 과 같이 \n, \r, \r\n 으로 나눈다. 맨 앞의 BOM 은 뺀다. */
+    static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<String>();
+        int start = (text.length() > 0 && text.charAt(0) == '\uFEFF') ? 1 : 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines.add(text.substring(start, i));
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n')
+                    i++;
+                start = i + 1;
+            }
+        }
+        if (start < text.length())
+            lines.add(text.substring(start));
+        return lines;
+    }
+}
@@ -16,180 +16,336 @@
 
 package org.apache.lucene.analysis.kr.utils;
 
+import org.apache.lucene.analysis.kr.metrics.DictionaryMemory;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
 import org.apache.lucene.analysis.kr.morph.CompoundEntry;
+import org.apache.lucene.analysis.kr.morph.HanjaWordConverter;
 import org.apache.lucene.analysis.kr.morph.MorphException;
 import org.apache.lucene.analysis.kr.morph.WordEntry;
+import org.apache.lucene.analysis.kr.tagging.Tagger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 사전을 조회합니다.
+ * <p/>
+ * 모든 사전 구조는 만든 후에 변경하지 않으므로 여러 쓰레드가 잠금 없이 조회합니다.
+ * 사전을 다시 로드할 때는 새 구조를 다 만든 뒤에 volatile 필드를 바꿔서 공개하므로, 로드하는 동안에도 다른 쓰레드는 이전 사전을 조회합니다.
+ * 단어 사전 (Trie) 은 {@link #loadDictionary()} 로 다시 로드할 수 있고, {@link #reloadChanged()} 는 사전 디렉토리
+ * ({@link KoreanEnv#getDictionaryDir()}) 에서 바뀐 사전 파일만 다시 읽습니다.
+ * 사전을 다시 읽을 때마다 {@link #getGeneration()} 이 증가하므로, 분석 결과를 캐시하는 곳은 이 값이 바뀌면 캐시를 비웁니다.
+ * 사전의 {@link WordEntry} 가 가진 복합명사 목록도 변경할 수 없습니다.
+ */
 @SuppressWarnings("unchecked")
 public class DictionaryUtil {
 
     private static final Logger log = LoggerFactory.getLogger(DictionaryUtil.class);
 
-    private static Trie<String, WordEntry> dictionary = new Trie<String, WordEntry>(true);
+    /** Trie 에 등록하는 단어 사전 파일들, 같은 단어는 앞의 파일의 것이 남는다. */
+    private static final String[] WORD_FILES = {
+            KoreanEnv.FILE_DICTIONARY, KoreanEnv.FILE_COMPOUNDS, KoreanEnv.FILE_EXTENSION, KoreanEnv.FILE_CUSTOM
+    };
+
+    /** 단어 사전 파일 -> 파싱한 단어들. 바뀌지 않은 파일은 Trie 를 다시 만들 때 파싱하지 않는다. 클래스 잠금으로 보호한다. */
+    private static final Map<String, List<WordEntry>> parsedWords = new HashMap<String, List<WordEntry>>();
 
-    private static HashMap<String, String> josas = new HashMap<String, String>();
+    private static volatile Trie<String, WordEntry> dictionary;
 
-    private static HashMap<String, String> eomis = new HashMap<String, String>();
+    private static volatile Map<String, String> josas;
 
-    private static HashMap<String, String> prefixs = new HashMap<String, String>();
+    private static volatile Map<String, String> eomis;
 
-    private static HashMap<String, String> suffixs = new HashMap<String, String>();
+    private static volatile Map<String, String> prefixs;
 
-    private static HashMap<String, WordEntry> uncompounds = new HashMap<String, WordEntry>();
+    private static volatile Map<String, String> suffixs;
 
-    private static HashMap<String, String> cjwords = new HashMap<String, String>();
+    private static volatile Map<String, WordEntry> uncompounds;
+
+    private static volatile Map<String, String> cjwords;
+
+    /** 사전을 다시 로드한 횟수 */
+    private static final AtomicInteger generation = new AtomicInteger();
 
     static {
+        StartupReport.Timer timer = StartupReport.start(StartupReport.DICTIONARY_UTIL);
+
+        Trie<String, WordEntry> trie = new Trie<String, WordEntry>(true);
+        int words = loadDictionary(trie, timer);
+        dictionary = trie;
+
+        josas = readFile(KoreanEnv.FILE_JOSA, timer);
+        eomis = readFile(KoreanEnv.FILE_EOMI, timer);
+        prefixs = readFile(KoreanEnv.FILE_PREFIX, timer);
+        suffixs = readFile(KoreanEnv.FILE_SUFFIX, timer);
+        uncompounds = readUncompounds(timer);
+        cjwords = readCJWords(DictionarySource.readLines(KoreanEnv.FILE_CJ), timer);
+
+        int entries = words + josas.size() + eomis.size() + prefixs.size() + suffixs.size() + uncompounds.size() + cjwords.size();
+        timer.finish(entries);
+
+        String resource = StartupReport.DICTIONARY_UTIL;
+        DictionaryMemory.register(resource, "dictionary", trie);
+        DictionaryMemory.register(resource, "josa", josas);
+        DictionaryMemory.register(resource, "eomi", eomis);
+        DictionaryMemory.register(resource, "prefix", prefixs);
+        DictionaryMemory.register(resource, "suffix", suffixs);
+        DictionaryMemory.register(resource, "uncompounds", uncompounds);
+        DictionaryMemory.register(resource, "cj", cjwords);
+    }
 
-        loadDictionary();
 
-        readFile(josas, KoreanEnv.FILE_JOSA);
-        readFile(eomis, KoreanEnv.FILE_EOMI);
-        readFile(prefixs, KoreanEnv.FILE_PREFIX);
-        readFile(suffixs, KoreanEnv.FILE_SUFFIX);
+    /**
+     * 단어 사전을 다시 로드한다. 새 Trie 를 만든 후에 바꾸므로, 로드하는 동안에도 다른 쓰레드는 이전 사전을 조회한다.
+     * 사전 파일에서 지운 단어는 사전에서도 빠진다.
+     */
+    public synchronized static void loadDictionary() throws MorphException {
+        parsedWords.clear();
+        Trie<String, WordEntry> trie = new Trie<String, WordEntry>(true);
+        loadDictionary(trie, StartupReport.untracked(StartupReport.DICTIONARY_UTIL));
+        dictionary = trie;
+        DictionaryMemory.register(StartupReport.DICTIONARY_UTIL, "dictionary", trie);
+        generation.incrementAndGet();
+    }
 
-        // uncompunds
-        char[] features = "90000X".toCharArray();
+    /**
+     * 사전의 세대. {@link #loadDictionary()} 나 {@link #reloadChanged()} 로 사전을 다시 로드하면 증가한다.
+     * 이전 사전으로 만든 분석 결과를 캐시했다면, 이 값이 바뀐 뒤에는 버려야 한다.
+     */
+    public static int getGeneration() {
+        return generation.get();
+    }
 
-        List<String> lines = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_UNCOMPOUNDS), KoreanEnv.UTF8);
-        for (String compound : lines) {
-            String[] infos = StringUtil.split(compound, ":");
-            if (infos.length != 2) continue;
-            WordEntry entry = new WordEntry(infos[0].trim(), features);
-            entry.setCompounds(compoundArrayToList(infos[1], StringUtil.split(infos[1], ",")));
-            uncompounds.put(entry.getWord(), entry);
+    /**
+     * 마지막으로 읽은 뒤에 바뀐 사전 파일만 다시 읽는다. ({@link DictionarySource#isChanged(String)})
+     * 단어 사전 파일이 하나라도 바뀌면 Trie 를 다시 만들지만, 바뀌지 않은 파일의 단어는 다시 파싱하지 않고 이전에 파싱한 것을 등록한다.
+     * 조사/어미/접두사/접미사/복합명사 예외/CJ 사전은 바뀐 것만 다시 만든다. CJ 사전이 바뀌면 {@link HanjaWordConverter} 의 한자 단어 사전도 다시 컴파일한다.
+ * 동의어 사전 ({@link SynonymUtil}) 과 Tagger 의 문법 규칙 ({@link Tagger}) 도 바뀌었으면 다시 읽는다.
+ * 하나라도 다시 읽었으면 {@link #getGeneration()} 이 증가한다.
+     *
+     * @return 다시 읽은 사전 이름들, 바뀐 사전이 없으면 빈 목록
+     */
+    public synchronized static List<String> reloadChanged() throws MorphException {
+        List<String> reloaded = new ArrayList<String>();
+        for (String file : WORD_FILES) {
+            if (DictionarySource.isChanged(file)) {
+                parsedWords.remove(file);
+                reloaded.add(file);
+            }
         }
 
-        lines = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_CJ), KoreanEnv.UTF8);
-        for (String cj : lines) {
-            String[] infos = StringUtil.split(cj, ":");
-            if (infos.length != 2) continue;
-            cjwords.put(infos[0], infos[1]);
+        String resource = StartupReport.DICTIONARY_UTIL;
+        // 시작 기록 (StartupReport) 에는 처음 로드한 것만 남긴다.
+        StartupReport.Timer timer = StartupReport.untracked(resource);
+        if (!reloaded.isEmpty()) {
+            Trie<String, WordEntry> trie = new Trie<String, WordEntry>(true);
+            loadDictionary(trie, timer);
+            dictionary = trie;
+            DictionaryMemory.register(resource, "dictionary", trie);
         }
-    }
 
+        if (DictionarySource.isChanged(KoreanEnv.FILE_JOSA)) {
+            josas = readFile(KoreanEnv.FILE_JOSA, timer);
+            DictionaryMemory.register(resource, "josa", josas);
+            reloaded.add(KoreanEnv.FILE_JOSA);
+        }
+        if (DictionarySource.isChanged(KoreanEnv.FILE_EOMI)) {
+            eomis = readFile(KoreanEnv.FILE_EOMI, timer);
+            DictionaryMemory.register(resource, "eomi", eomis);
+            reloaded.add(KoreanEnv.FILE_EOMI);
+        }
+        if (DictionarySource.isChanged(KoreanEnv.FILE_PREFIX)) {
+            prefixs = readFile(KoreanEnv.FILE_PREFIX, timer);
+            DictionaryMemory.register(resource, "prefix", prefixs);
+            reloaded.add(KoreanEnv.FILE_PREFIX);
+        }
+        if (DictionarySource.isChanged(KoreanEnv.FILE_SUFFIX)) {
+            suffixs = readFile(KoreanEnv.FILE_SUFFIX, timer);
+            DictionaryMemory.register(resource, "suffix", suffixs);
+            reloaded.add(KoreanEnv.FILE_SUFFIX);
+        }
+        if (DictionarySource.isChanged(KoreanEnv.FILE_UNCOMPOUNDS)) {
+            uncompounds = readUncompounds(timer);
+            DictionaryMemory.register(resource, "uncompounds", uncompounds);
+            reloaded.add(KoreanEnv.FILE_UNCOMPOUNDS);
+        }
+        if (DictionarySource.isChanged(KoreanEnv.FILE_CJ)) {
+            List<String> lines = DictionarySource.readLines(KoreanEnv.FILE_CJ);
+            HanjaWordConverter.reloadCJWords(lines);
+            cjwords = readCJWords(lines, timer);
+            DictionaryMemory.register(resource, "cj", cjwords);
+            reloaded.add(KoreanEnv.FILE_CJ);
+        }
+        if (DictionarySource.isChanged(KoreanEnv.FILE_SYNONYM)) {
+            SynonymUtil.reload();
+            reloaded.add(KoreanEnv.FILE_SYNONYM);
+        }
+        if (DictionarySource.isChanged(KoreanEnv.FILE_TAGGER)) {
+            Tagger.reloadRules();
+            reloaded.add(KoreanEnv.FILE_TAGGER);
+        }
 
-    /** 사전을 로드한다. */
-    public synchronized static void loadDictionary() throws MorphException {
+        if (!reloaded.isEmpty()) {
+            generation.incrementAndGet();
+            log.info("바뀐 사전 파일을 다시 로드했습니다. files=[{}]", reloaded);
+        }
+        return reloaded;
+    }
+
+    /**
+     * 단어 사전 파일들의 단어를 trie 에 등록한다. 사전 파일을 읽고, 줄을 단어로 파싱하고, Trie 에 등록하는 단계를 timer 에 표시한다.
+     * 이미 파싱한 파일은 다시 읽지 않는다. 읽어야 할 파일들은 먼저 모두 읽기 시작하므로 사전 디렉토리의 파일들은 함께 읽는다.
+     *
+     * @return 등록한 단어 수
+     */
+    private static int loadDictionary(Trie<String, WordEntry> trie, StartupReport.Timer timer) throws MorphException {
         log.info("사전을 로드합니다...");
+        int words = 0;
 
-        log.info("표준 사전을 로드합니다...");
-        Future<List<String>> standardDic = FileUtil.readLinesAsync(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_DICTIONARY), KoreanEnv.UTF8);
-        log.info("복합명사 사전을 로드합니다...");
-        Future<List<String>> compoundDic = FileUtil.readLinesAsync(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_COMPOUNDS), KoreanEnv.UTF8);
-        log.info("확장 사전을 로드합니다...");
-        Future<List<String>> extensionDic = FileUtil.readLinesAsync(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_EXTENSION), KoreanEnv.UTF8);
-        log.info("사용자 정의 사전을 로드합니다...");
-        Future<List<String>> customDic = FileUtil.readLinesAsync(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_CUSTOM), KoreanEnv.UTF8);
+        Map<String, Future<List<String>>> reads = new HashMap<String, Future<List<String>>>();
+        for (String file : WORD_FILES) {
+            if (!parsedWords.containsKey(file))
+                reads.put(file, DictionarySource.readLinesAsync(file));
+        }
 
-        try {
-            log.info("표준 사전을 파싱합니다...");
-            List<String> standards = standardDic.get();
-            // List<String> standards = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_DICTIONARY), "UTF-8");
-            int count = 0;
-            for (String str : standards) {
-                String[] infos = StringUtil.split(str, ",");
-                if (infos.length != 2) continue;
-                infos[1] = infos[1].trim();
-                if (infos[1].length() == 6)
-                    infos[1] = infos[1].substring(0, 5) + "000" + infos[1].substring(5);
-
-                if (dictionary.get(infos[0].trim()) == null) {
-                    WordEntry entry = new WordEntry(infos[0].trim(), infos[1].trim().toCharArray());
-                    dictionary.add(entry.getWord(), entry);
-                    count++;
+        for (String file : WORD_FILES) {
+            try {
+                List<WordEntry> entries = parsedWords.get(file);
+                if (entries == null) {
+                    log.info("사전을 파싱합니다... file=[{}]", file);
+                    List<String> lines = reads.get(file).get();
+                    timer.read();
+                    entries = parseWords(file, lines);
+                    timer.parse();
+                    parsedWords.put(file, entries);
                 }
+                int count = addWords(trie, entries);
+                timer.build();
+                words += count;
+                log.info("사전을 빌드했습니다. file=[{}], 단어수=[{}], 등록수=[{}]", new Object[] { file, entries.size(), count });
+            } catch (ExecutionException e) {
+                log.error("사전을 로드하는데 실패했습니다. file=" + file, e.getCause());
+                if (e.getCause() instanceof MorphException)
+                    throw (MorphException) e.getCause();
+                throw new MorphException(e.getCause());
+            } catch (Exception e) {
+                log.error("사전을 로드하는데 실패했습니다. file=" + file, e);
+                throw new MorphException(e);
             }
-            log.info("표준 사전을 빌드했습니다. 단어수=[{}], 등록수=[{}]", standards.size(), count);
-        } catch (Exception e) {
-            log.error("표준 사전을 로드하는데 실패했습니다.", e);
-            throw new MorphException(e);
         }
+        log.info("사전을 빌드했습니다. 등록수=[{}]", words);
+        return words;
+    }
 
-        try {
-            log.info("복합명사 사전을 파싱합니다...");
-            List<String> compounds = compoundDic.get();
-            // List<String> compounds = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_COMPOUNDS), "UTF-8");
+    /** 사전 파일의 형식에 따라 줄들을 단어로 파싱한다. */
+    private static List<WordEntry> parseWords(String file, List<String> lines) {
+        if (KoreanEnv.FILE_COMPOUNDS.equals(file)) {
             char[] features = "20000000X".toCharArray();
-            int count = 0;
-
-            for (String compound : compounds) {
+            List<WordEntry> entries = new ArrayList<WordEntry>(lines.size());
+            for (String compound : lines) {
                 String[] infos = StringUtil.split(compound, ":");
                 if (infos.length != 2) continue;
-                if (dictionary.get(infos[0].trim()) == null) {
-                    WordEntry entry = new WordEntry(infos[0].trim(), features);
-                    entry.setCompounds(compoundArrayToList(infos[1], StringUtil.split(infos[1], ",")));
-                    dictionary.add(entry.getWord(), entry);
-                    count++;
-                }
+                WordEntry entry = new WordEntry(infos[0].trim(), features);
+                entry.setCompounds(compoundArrayToList(infos[1], StringUtil.split(infos[1], ",")));
+                entries.add(entry);
             }
-            log.info("복합명사 사전을 빌드했습니다. 단어수=[{}], 등록수=[{}]", compounds.size(), count);
-        } catch (Exception e) {
-            log.error("복합명사 사전을 로드하는데 실패했습니다.", e);
-            throw new MorphException(e);
+            return entries;
         }
 
-        try {
-            log.info("확장 사전을 파싱합니다...");
-            List<String> extensions = extensionDic.get();
-            // List<String> extensions = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_EXTENSION), "UTF-8");
-            int count = 0;
-
-            for (String str : extensions) {
-                String[] infos = StringUtil.split(str, ",");
-                if (infos.length != 2) continue;
-                infos[1] = infos[1].trim();
-                if (infos[1].length() == 6)
-                    infos[1] = infos[1].substring(0, 5) + "000" + infos[1].substring(5);
-
-                if (dictionary.get(infos[0].trim()) == null) {
-                    WordEntry entry = new WordEntry(infos[0].trim(), infos[1].trim().toCharArray());
-                    dictionary.add(entry.getWord(), entry);
-                    count++;
-                }
+        if (KoreanEnv.FILE_CUSTOM.equals(file)) {
+            char[] features = "100000000X".toCharArray();
+            List<WordEntry> entries = new ArrayList<WordEntry>(lines.size());
+            for (String custom : lines) {
+                if (custom != null && custom.trim().length() > 0)
+                    entries.add(new WordEntry(custom.trim(), features));
             }
-            log.info("확장 사전을 빌드했습니다. 단어수=[{}], 등록수=[{}]", extensions.size(), count);
-        } catch (Exception e) {
-            log.error("확장 사전을 로드하는데 실패했습니다.", e);
-            throw new MorphException(e);
+            return entries;
         }
 
-        try {
-            log.info("사용자정의 사전을 파싱합니다...");
-            List<String> customs = customDic.get();
-            // final List<String> customs = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_CUSTOM), "UTF-8");
-            char[] features = "100000000X".toCharArray();
-            int count = 0;
-
-            for (String custom : customs) {
-                if (custom != null && custom.trim().length() > 0) {
-                    if (dictionary.get(custom.trim()) == null) {
-                        WordEntry entry = new WordEntry(custom.trim(), features);
-                        dictionary.add(entry.getWord(), entry);
-                        count++;
-                    }
-                }
+        return parseWords(lines);
+    }
+
+    /** "단어,품사정보" 형식의 줄들을 파싱한다. 6자리 품사정보는 9자리로 늘린다. */
+    private static List<WordEntry> parseWords(List<String> lines) {
+        List<WordEntry> entries = new ArrayList<WordEntry>(lines.size());
+        for (String str : lines) {
+            String[] infos = StringUtil.split(str, ",");
+            if (infos.length != 2) continue;
+            infos[1] = infos[1].trim();
+            if (infos[1].length() == 6)
+                infos[1] = infos[1].substring(0, 5) + "000" + infos[1].substring(5);
+
+            entries.add(new WordEntry(infos[0].trim(), infos[1].trim().toCharArray()));
+        }
+        return entries;
+    }
+
+    /** 복합명사 예외 사전, "단어:구성명사,..." 형식 */
+    private static Map<String, WordEntry> readUncompounds(StartupReport.Timer timer) throws MorphException {
+        char[] features = "90000X".toCharArray();
+
+        List<String> lines = DictionarySource.readLines(KoreanEnv.FILE_UNCOMPOUNDS);
+        timer.read();
+        HashMap<String, WordEntry> uncompoundMap = new HashMap<String, WordEntry>();
+        for (String compound : lines) {
+            String[] infos = StringUtil.split(compound, ":");
+            if (infos.length != 2) continue;
+            WordEntry entry = new WordEntry(infos[0].trim(), features);
+            entry.setCompounds(compoundArrayToList(infos[1], StringUtil.split(infos[1], ",")));
+            uncompoundMap.put(entry.getWord(), entry);
+        }
+        timer.build();
+        return Collections.unmodifiableMap(uncompoundMap);
+    }
+
+    /** 한자 단어 사전, "한자:음" 형식 */
+    private static Map<String, String> readCJWords(List<String> lines, StartupReport.Timer timer) {
+        timer.read();
+        HashMap<String, String> cjMap = new HashMap<String, String>();
+        for (String cj : lines) {
+            String[] infos = StringUtil.split(cj, ":");
+            if (infos.length != 2) continue;
+            cjMap.put(infos[0], infos[1]);
+        }
+        return Collections.unmodifiableMap(cjMap);
+    }
+
+    /** trie 에 없는 단어들만 등록한다. 같은 단어는 먼저 등록된 것이 남는다. */
+    private static int addWords(Trie<String, WordEntry> trie, List<WordEntry> entries) {
+        int count = 0;
+        for (WordEntry entry : entries) {
+            if (trie.get(entry.getWord()) == null) {
+                trie.add(entry.getWord(), entry);
+                count++;
             }
-            log.info("사용자정의 사전을 빌드했습니다. 단어수=[{}], 등록수=[{}]", customs.size(), count);
-        } catch (Exception e) {
-            log.error("사용자정의 사전을 로드하는데 실패했습니다.", e);
-            throw new MorphException(e);
         }
-        log.info("사전을 빌드했습니다.");
+        return count;
     }
 
     public static Iterator findWithPrefix(String prefix) throws MorphException {
         return dictionary.getPrefixedBy(prefix);
     }
 
+    /**
+     * buf[off..off+len) 의 앞부분과 일치하는 사전 단어를 짧은 것부터 찾습니다. 문자열을 만들지 않습니다.
+     *
+     * @param entries 찾은 단어를 기록할 배열, 배열 크기만큼만 찾는다.
+     * @param lengths 찾은 단어의 길이를 기록할 배열
+     * @return 찾은 단어의 수
+     */
+    public static int findPrefixes(char[] buf, int off, int len, WordEntry[] entries, int[] lengths) throws MorphException {
+        return dictionary.prefixMatches(buf, off, len, entries, lengths);
+    }
+
     public static WordEntry getWord(String key) throws MorphException {
         if (key.length() == 0) return null;
 
@@ -272,11 +428,11 @@ public class DictionaryUtil {
         return null;
     }
 
-    public synchronized static WordEntry getUncompound(String key) throws MorphException {
+    public static WordEntry getUncompound(String key) throws MorphException {
         return uncompounds.get(key);
     }
 
-    public synchronized static String getCJWord(String key) throws MorphException {
+    public static String getCJWord(String key) throws MorphException {
         return cjwords.get(key);
     }
 
@@ -317,27 +473,32 @@ public class DictionaryUtil {
      * @throws org.apache.lucene.analysis.kr.morph.MorphException
      *
      */
-    private static void readFile(HashMap<String, String> map, String dic) throws MorphException {
+    private static Map<String, String> readFile(String dic, StartupReport.Timer timer) throws MorphException {
         String filename = KoreanEnv.getInstance().getValue(dic);
         try {
-            List<String> lines = FileUtil.readLines(filename, KoreanEnv.UTF8);
+            List<String> lines = DictionarySource.readLines(dic);
+            timer.read();
+            HashMap<String, String> map = new HashMap<String, String>();
             for (final String line : lines) {
                 map.put(line.trim(), line);
             }
+            timer.build();
             log.info("사전 파일에서 [{}]개를 읽어, [{}]개를 등록했습니다. filename=[{}]", lines.size(), map.size(), filename);
+            return Collections.unmodifiableMap(map);
         } catch (Exception e) {
             throw new MorphException(e);
         }
     }
 
-    private static List compoundArrayToList(String source, String[] arr) {
-        List list = new ArrayList();
+    /** 복합명사의 구성 명사 목록. 사전이 공유하므로 변경할 수 없다. */
+    private static List<CompoundEntry> compoundArrayToList(String source, String[] arr) {
+        List<CompoundEntry> list = new ArrayList<CompoundEntry>(arr.length);
         for (String str : arr) {
             CompoundEntry ce = new CompoundEntry(str);
             ce.setOffset(source.indexOf(str));
             list.add(ce);
         }
-        return list;
+        return Collections.unmodifiableList(list);
     }
 }
 
@@ -16,26 +16,54 @@
 
 package org.apache.lucene.analysis.kr.utils;
 
+import org.apache.lucene.analysis.kr.metrics.DictionaryMemory;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
 import org.apache.lucene.analysis.kr.morph.MorphException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * 한자를 한글 음으로 변환합니다.
+ * <p/>
+ * 한자 사전 (mapHanja.dic) 은 CJK 통합 한자 (확장 A 포함, 0x3400~0x9FFF) 와 CJK 호환 한자 (0xF900~0xFAFF) 영역을
+ * 문자 코드로 바로 찾는 표로 빌드합니다. 한자별 음은 공유 버퍼 {@link #readings} 에 이어 붙여 두고,
+ * {@link #offsets} 로 각 한자의 시작 위치를 찾습니다. 조회할 때 문자열이나 배열을 만들지 않습니다.
+ */
 public class HanjaUtils {
 
     private static final Logger log = LoggerFactory.getLogger(HanjaUtils.class);
 
-    private static final Map<String, char[]> mapHanja = new HashMap<String, char[]>();
+    private static final char CJK_START = 0x3400;
+    private static final char CJK_END = 0x9FFF;
+    private static final char COMPAT_START = 0xF900;
+    private static final char COMPAT_END = 0xFAFF;
+    private static final int TABLE_SIZE = (CJK_END - CJK_START + 1) + (COMPAT_END - COMPAT_START + 1);
+
+    /** 한 한자가 가질 수 있는 음의 최대 개수 */
+    public static final int MAX_READINGS;
+
+    /** 한자 i 의 음은 readings[offsets[i]] ~ readings[offsets[i+1]-1] */
+    private static final int[] offsets = new int[TABLE_SIZE + 1];
+    private static final char[] readings;
 
     static {
-        List<String> strList = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_MAPHANJA), KoreanEnv.UTF8);
+        StartupReport.Timer timer = StartupReport.start(StartupReport.HANJA_UTILS);
+        List<String> strList = DictionarySource.readLines(KoreanEnv.FILE_MAPHANJA);
+        timer.read();
 
         log.info("한자 사전을 빌드합니다...");
 
+        String[] table = new String[TABLE_SIZE];
+        int total = 0;
+        int loaded = 0;
+        int maxReadings = 1;
+
         for (String str : strList) {
+            if (str.length() > 0 && str.charAt(0) == '\uFEFF')
+                str = str.substring(1);
             if (str.length() < 1 || !str.contains(","))
                 continue;
             String[] hanInfos = StringUtil.split(str, ",");
@@ -43,9 +71,81 @@ public class HanjaUtils {
                 continue;
 
             String hanja = StringEscapeUtil.unescapeJava(hanInfos[0]);
-            mapHanja.put(hanja, hanInfos[1].toCharArray());
+            int idx = (hanja.length() == 1) ? indexOf(hanja.charAt(0)) : -1;
+            if (idx < 0 || hanInfos[1].length() == 0) {
+                log.warn("한자 사전에서 처리할 수 없는 항목입니다. line=[{}]", str);
+                continue;
+            }
+            if (table[idx] != null)
+                total -= table[idx].length();
+            else
+                loaded++;
+
+            table[idx] = hanInfos[1];
+            total += hanInfos[1].length();
+            maxReadings = Math.max(maxReadings, hanInfos[1].length());
         }
-        log.info("한자 사전을 빌드했습니다. 단어수=[{}], 로드수=[{}]", strList.size(), mapHanja.size());
+
+        timer.parse();
+
+        readings = new char[total];
+        int upto = 0;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            offsets[i] = upto;
+            if (table[i] != null) {
+                table[i].getChars(0, table[i].length(), readings, upto);
+                upto += table[i].length();
+            }
+        }
+        offsets[TABLE_SIZE] = upto;
+        MAX_READINGS = maxReadings;
+        timer.finish(loaded);
+        DictionaryMemory.register(StartupReport.HANJA_UTILS, "readings", offsets, readings);
+
+        log.info("한자 사전을 빌드했습니다. 단어수=[{}], 로드수=[{}]", strList.size(), loaded);
+    }
+
+    private static int indexOf(char c) {
+        if (c >= CJK_START && c <= CJK_END)
+            return c - CJK_START;
+        if (c >= COMPAT_START && c <= COMPAT_END)
+            return (CJK_END - CJK_START + 1) + (c - COMPAT_START);
+        return -1;
+    }
+
+    /** 한글 음을 가진 한자인지 확인한다. */
+    public static boolean hasReading(char hanja) {
+        int idx = indexOf(hanja);
+        return idx >= 0 && offsets[idx] < offsets[idx + 1];
+    }
+
+    /**
+     * 한자의 첫번째 (대표) 음을 반환한다. 음을 모르면 한자를 그대로 반환한다.
+     */
+    public static char firstReading(char hanja) {
+        int idx = indexOf(hanja);
+        if (idx < 0 || offsets[idx] == offsets[idx + 1])
+            return hanja;
+        return readings[offsets[idx]];
+    }
+
+    /**
+     * 한자에 대응하는 한글 음을 모두 buf 에 기록한다. 음을 모르면 한자를 그대로 기록한다.
+     *
+     * @param hanja 한자
+     * @param buf   결과를 기록할 버퍼, off 이후로 {@link #MAX_READINGS} 개의 공간이 있어야 한다.
+     * @param off   기록을 시작할 위치
+     * @return 기록한 음의 개수
+     */
+    public static int convertToHangul(char hanja, char[] buf, int off) {
+        int idx = indexOf(hanja);
+        if (idx < 0 || offsets[idx] == offsets[idx + 1]) {
+            buf[off] = hanja;
+            return 1;
+        }
+        int len = offsets[idx + 1] - offsets[idx];
+        System.arraycopy(readings, offsets[idx], buf, off, len);
+        return len;
     }
 
     /**
@@ -56,12 +156,11 @@ public class HanjaUtils {
      *
      */
     public static char[] convertToHangul(char hanja) throws MorphException {
-//		if(hanja>0x9FFF||hanja<0x3400) return new char[]{hanja};
-
-        char[] result = mapHanja.get(new String(new char[] { hanja }));
+        int idx = indexOf(hanja);
 
-        if (result == null)
-            result = new char[] { hanja };
+        char[] result = (idx < 0 || offsets[idx] == offsets[idx + 1])
+                        ? new char[] { hanja }
+                        : Arrays.copyOfRange(readings, offsets[idx], offsets[idx + 1]);
 
         if (log.isTraceEnabled())
             log.trace("한자에 대응하는 한글을 찾아서 변환합니다. hanja=[{}], result=[{}]", hanja, result);
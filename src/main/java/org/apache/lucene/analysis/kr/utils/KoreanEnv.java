@@ -17,9 +17,12 @@
 package org.apache.lucene.analysis.kr.utils;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.kr.metrics.DictionaryMemory;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
 import org.apache.lucene.analysis.kr.morph.MorphException;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Properties;
@@ -53,10 +56,21 @@ public class KoreanEnv {
 
     public static final String FILE_SYNONYM = "synonym.dic";
 
+    public static final String FILE_TAGGER = "tagger.dic";
+
     public static final String FILE_CUSTOM = "custom.dic";
 
     public static final String FILE_KOREAN_PROPERTY = "org/apache/lucene/analysis/kr/korean.properties";
 
+    /**
+     * 사전 파일을 classpath 대신 읽을 파일 시스템의 디렉토리. 디렉토리에 같은 이름의 사전 파일이 있으면 그 파일을 읽는다.
+     * (예: dictionary.dir=/data/korean-dic 이면 /data/korean-dic/dictionary.dic)
+     */
+    public static final String DICTIONARY_DIR = "dictionary.dir";
+
+    /** {@link #DICTIONARY_DIR} 보다 우선하는 시스템 속성 */
+    public static final String SYSTEM_PROPERTY_DICTIONARY_DIR = "lucene.korean.dictionary.dir";
+
     private Properties defaults = null;
 
     /** The props member gets its values from the configuration in the property file. */
@@ -67,12 +81,17 @@ public class KoreanEnv {
     /** The constructor loads property values from the property file. */
     private KoreanEnv() throws MorphException {
         log.info("형태소분석기의 사전에 대한 환경설정 정보를 로드합니다...");
+        StartupReport.Timer timer = StartupReport.start(StartupReport.KOREAN_ENV);
         try {
             initDefaultProperties();
+            timer.build();
             props = loadProperties(defaults);
+            timer.read();
         } catch (MorphException e) {
             throw new MorphException("Failure while initializing property values:\n" + e.getMessage());
         }
+        timer.finish(props.stringPropertyNames().size());
+        DictionaryMemory.register(StartupReport.KOREAN_ENV, "properties", defaults, props);
         log.info("형태소분석기의 사전에 대한 환경설정 정보를 로드했습니다. 사전 위치=[{}]", defaults.getProperty(FILE_DICTIONARY));
     }
 
@@ -136,4 +155,17 @@ public class KoreanEnv {
     public String getValue(String name) {
         return props.getProperty(name);
     }
+
+    /**
+     * 사전 파일을 읽을 파일 시스템의 디렉토리. 시스템 속성 {@link #SYSTEM_PROPERTY_DICTIONARY_DIR} 이 있으면 그 값을,
+     * 없으면 korean.properties 의 {@link #DICTIONARY_DIR} 를 쓴다.
+     *
+     * @return 디렉토리, 지정하지 않았으면 null
+     */
+    public File getDictionaryDir() {
+        String dir = System.getProperty(SYSTEM_PROPERTY_DICTIONARY_DIR, props.getProperty(DICTIONARY_DIR));
+        if (dir == null || dir.trim().length() == 0)
+            return null;
+        return new File(dir.trim());
+    }
 }
@@ -359,7 +359,7 @@ public class NounUtil {
         WordEntry cnoun = DictionaryUtil.getCNoun(s);
         if (cnoun != null) {
             if (cnoun.getFeature(WordEntry.IDX_NOUN) == '2')
-                output.setCNoun(cnoun.getCompounds());
+                output.setCNoun(new ArrayList<CompoundEntry>(cnoun.getCompounds()));
             else
                 output.setCNoun(new ArrayList<CompoundEntry>());
             output.setScore(AnalysisOutput.SCORE_CORRECT);
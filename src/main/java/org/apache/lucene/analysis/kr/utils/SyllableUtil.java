@@ -16,6 +16,8 @@
 
 package org.apache.lucene.analysis.kr.utils;
 
+import org.apache.lucene.analysis.kr.metrics.DictionaryMemory;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
 import org.apache.lucene.analysis.kr.morph.MorphException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,11 +81,16 @@ public class SyllableUtil {
     private static final List<char[]> syllables = new ArrayList<char[]>();  // 음절특성 정보
 
     static {
-        List<String> line = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_SYLLABLE_FEATURE), KoreanEnv.UTF8);
+        StartupReport.Timer timer = StartupReport.start(StartupReport.SYLLABLE_UTIL);
+        List<String> line = DictionarySource.readLines(KoreanEnv.FILE_SYLLABLE_FEATURE);
+        timer.read();
         for (int i = 0; i < line.size(); i++) {
             if (i != 0)
                 syllables.add(line.get(i).toCharArray());
         }
+        timer.parse();
+        timer.finish(syllables.size());
+        DictionaryMemory.register(StartupReport.SYLLABLE_UTIL, "syllables", syllables);
     }
 
     /**
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.utils;
+
+import org.apache.lucene.analysis.kr.morph.MorphException;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 동의어 사전을 FST 로 컴파일한 결과입니다.
+ * <p/>
+ * 여러 단어로 이루어진 동의어는 단어 사이에 {@link #WORD_SEPARATOR} 를 넣어 하나의 입력으로 등록하고,
+ * FST 의 출력값은 동의어 목록의 순번입니다. 한 번의 FST 탐색으로 여러 토큰에 걸친 동의어를 찾을 수 있습니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class SynonymMap {
+
+    /** 여러 단어로 이루어진 동의어에서 단어를 구분하는 문자 */
+    public static final char WORD_SEPARATOR = '\u0000';
+
+    /** 동의어가 하나도 없는 사전 */
+    public static final SynonymMap EMPTY = new SynonymMap(null, new String[0][][], 0);
+
+    /** 입력 단어(열) -> 동의어 순번 */
+    private final FST<Long> fst;
+
+    /** 동의어 순번 -> 동의어 목록 -> 동의어를 이루는 단어들 */
+    private final String[][][] outputs;
+
+    /** 가장 긴 입력의 단어 수 */
+    private final int maxHorizontalContext;
+
+    private SynonymMap(FST<Long> fst, String[][][] outputs, int maxHorizontalContext) {
+        this.fst = fst;
+        this.outputs = outputs;
+        this.maxHorizontalContext = maxHorizontalContext;
+    }
+
+    /** 컴파일된 FST 를 반환합니다. 동의어가 없으면 null 입니다. */
+    public FST<Long> getFst() {
+        return fst;
+    }
+
+    /** 입력으로 등록된 단어열 중 가장 긴 것의 단어 수 */
+    public int getMaxHorizontalContext() {
+        return maxHorizontalContext;
+    }
+
+    /** 동의어 순번에 해당하는 동의어 목록을 반환합니다. 각 동의어는 단어 배열입니다. */
+    public String[][] getOutputs(int ordinal) {
+        return outputs[ordinal];
+    }
+
+    public boolean isEmpty() {
+        return fst == null;
+    }
+
+    /**
+     * 입력의 동의어를 찾습니다. 여러 단어로 이루어진 동의어는 공백으로 연결해서 반환합니다.
+     * 사전을 빌드할 때처럼 입력을 소문자로 바꾸고 공백을 정리하므로 대소문자를 구분하지 않습니다.
+     *
+     * @param word 단어(열), 단어는 공백으로 구분한다.
+     * @return 동의어 목록, 없으면 빈 집합
+     */
+    public Set<String> lookup(String word) {
+        if (fst == null || word == null || word.length() == 0)
+            return Collections.emptySet();
+
+        word = Builder.normalize(word);
+        try {
+            FST.Arc<Long> arc = fst.getFirstArc(new FST.Arc<Long>());
+            FST.BytesReader reader = fst.getBytesReader(0);
+            long output = 0;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (fst.findTargetArc(c, arc, arc, reader) == null)
+                    return Collections.emptySet();
+                output += arc.output;
+            }
+            if (!arc.isFinal())
+                return Collections.emptySet();
+
+            String[][] synonyms = outputs[(int) (output + arc.nextFinalOutput)];
+            Set<String> result = new TreeSet<String>();
+            for (String[] words : synonyms) {
+                result.add(StringUtil.join(words, " "));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new MorphException("동의어 FST 를 탐색하는데 실패했습니다. word=" + word, e);
+        }
+    }
+
+    /**
+     * 동의어 사전을 빌드합니다.
+     * 입력과 출력은 공백으로 단어를 구분하며, 대소문자를 구분하지 않도록 소문자로 정규화해서 저장합니다.
+     */
+    public static class Builder {
+
+        private final TreeMap<String, LinkedHashSet<String>> entries = new TreeMap<String, LinkedHashSet<String>>();
+
+        /**
+         * 서로 동의어인 단어(열)의 그룹을 추가합니다. 그룹의 각 항목은 나머지 모든 항목을 동의어로 가집니다.
+         *
+         * @param group 동의어 그룹, 예: {"한국", "대한민국", "우리 나라"}
+         */
+        public Builder addGroup(String... group) {
+            for (String input : group) {
+                for (String output : group) {
+                    add(input, output);
+                }
+            }
+            return this;
+        }
+
+        /** 입력 단어(열)에 대한 동의어를 추가합니다. 입력과 출력이 같으면 무시합니다. */
+        public Builder add(String input, String output) {
+            String in = normalize(input);
+            String out = normalize(output);
+            if (in.length() == 0 || out.length() == 0 || in.equals(out))
+                return this;
+
+            LinkedHashSet<String> outs = entries.get(in);
+            if (outs == null) {
+                outs = new LinkedHashSet<String>();
+                entries.put(in, outs);
+            }
+            outs.add(out);
+            return this;
+        }
+
+        /** 동의어를 FST 로 컴파일합니다. */
+        public SynonymMap build() {
+            if (entries.isEmpty())
+                return EMPTY;
+
+            try {
+                PositiveIntOutputs fstOutputs = PositiveIntOutputs.getSingleton(true);
+                org.apache.lucene.util.fst.Builder<Long> builder =
+                        new org.apache.lucene.util.fst.Builder<Long>(FST.INPUT_TYPE.BYTE2, fstOutputs);
+
+                String[][][] outputs = new String[entries.size()][][];
+                IntsRef scratch = new IntsRef();
+                int maxHorizontalContext = 0;
+                int ordinal = 0;
+
+                // TreeMap 의 순서는 char 단위 비교이므로 FST 가 요구하는 입력 순서와 같다.
+                for (Map.Entry<String, LinkedHashSet<String>> entry : entries.entrySet()) {
+                    String input = entry.getKey();
+                    scratch.grow(input.length());
+                    scratch.length = input.length();
+                    int words = 1;
+                    for (int i = 0; i < input.length(); i++) {
+                        char c = input.charAt(i);
+                        scratch.ints[i] = c;
+                        if (c == WORD_SEPARATOR) words++;
+                    }
+                    maxHorizontalContext = Math.max(maxHorizontalContext, words);
+
+                    String[][] synonyms = new String[entry.getValue().size()][];
+                    int i = 0;
+                    for (String output : entry.getValue()) {
+                        synonyms[i++] = StringUtil.split(output, WORD_SEPARATOR);
+                    }
+                    outputs[ordinal] = synonyms;
+                    builder.add(scratch, (long) ordinal);
+                    ordinal++;
+                }
+                return new SynonymMap(builder.finish(), outputs, maxHorizontalContext);
+            } catch (IOException e) {
+                throw new MorphException("동의어 FST 를 빌드하는데 실패했습니다.", e);
+            }
+        }
+
+        private static String normalize(String phrase) {
+            String[] words = StringUtil.split(phrase.trim().toLowerCase(), " \t");
+            return StringUtil.join(words, WORD_SEPARATOR);
+        }
+    }
+}
@@ -17,17 +17,18 @@
 package org.apache.lucene.analysis.kr.utils;
 
 import com.google.common.base.Joiner;
-import com.google.common.collect.SetMultimap;
-import com.google.common.collect.TreeMultimap;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.kr.metrics.DictionaryMemory;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
 import org.apache.lucene.analysis.kr.morph.MorphException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * 동의어 분석을 수행합니다.
@@ -41,29 +42,55 @@ public class SynonymUtil {
     private static final boolean isTraceEnabled = log.isTraceEnabled();
     private static final boolean isDebugEnabled = log.isDebugEnabled();
 
-    /** 동의어 사전 */
-    private static final SetMultimap<String, String> synonymMap = TreeMultimap.create();
-    private static final Set<String> EMPTY_SET = new HashSet<String>();
+    private static final Set<String> EMPTY_SET = Collections.emptySet();
 
-    static {
+    /** 동의어 사전, {@link #reload()} 로 바꾼다. */
+    private static volatile SynonymMap synonymMap = load(StartupReport.start(StartupReport.SYNONYM_UTIL));
+
+    /**
+     * 동의어 사전을 다시 읽는다. ({@link DictionaryUtil#reloadChanged()} 가 동의어 사전이 바뀌면 호출한다)
+     * 이미 만든 {@link org.apache.lucene.analysis.kr.KoreanSynonymFilter} 는 이전 사전을 계속 쓴다.
+     */
+    public static void reload() throws MorphException {
+        synonymMap = load(StartupReport.untracked(StartupReport.SYNONYM_UTIL));
+    }
+
+    private static SynonymMap load(StartupReport.Timer timer) throws MorphException {
         final String filename = KoreanEnv.getInstance().getValue(KoreanEnv.FILE_SYNONYM);
         log.info("동의어 사전에서 동의어 정보를 로드합니다... filename=[{}]", filename);
-        List<String> lines = FileUtil.readLines(filename, "UTF-8");
+        List<String> lines = DictionarySource.readLines(KoreanEnv.FILE_SYNONYM);
+        timer.read();
         log.info("동의어 사전을 빌드합니다...");
 
+        SynonymMap.Builder builder = new SynonymMap.Builder();
+        int groups = 0;
         for (String line : lines) {
+            if (line.startsWith("#"))
+                continue;
             String[] words = StringUtils.split(line, ",");
             if (words != null && words.length > 1) {
-                synonymMap.putAll(words[0], Arrays.asList(words));
+                builder.addGroup(words);
+                groups++;
                 if (isTraceEnabled)
                     log.trace("동의어를 추가합니다. words=[{}]", Joiner.on(",").join(words));
             }
         }
-        log.info("동의어 사전을 빌드했습니다. 라인수=[{}], 동의어수=[{}]", lines.size(), synonymMap.values().size());
+        timer.parse();
+        SynonymMap map = builder.build();
+        timer.finish(groups);
+        DictionaryMemory.register(StartupReport.SYNONYM_UTIL, "synonymMap", map);
+        log.info("동의어 사전을 빌드했습니다. 라인수=[{}], 동의어 그룹수=[{}]", lines.size(), groups);
+        return map;
+    }
+
+    /** FST 로 컴파일된 동의어 사전을 반환합니다. */
+    public static SynonymMap getSynonymMap() {
+        return synonymMap;
     }
 
     /**
-     * 지정한 단어의 동의어가 있으면, 모든 동의어를 반환합니다.
+     * 지정한 단어의 동의어가 있으면, 단어 자신을 포함한 모든 동의어를 반환합니다.
+     * 여러 단어로 이루어진 동의어는 공백으로 연결해서 반환합니다.
      *
      * @throws MorphException
      */
@@ -76,20 +103,18 @@ public class SynonymUtil {
         if (isTraceEnabled)
             log.trace("동의어를 찾습니다... word=[{}]", word);
 
-        if (synonymMap == null || synonymMap.size() == 0)
+        Set<String> synonyms = synonymMap.lookup(word);
+        if (synonyms.isEmpty()) {
+            if (isTraceEnabled)
+                log.trace("동의어가 없습니다.");
             return EMPTY_SET;
-
-        for (String key : synonymMap.keySet()) {
-            Set<String> synonyms = synonymMap.get(key);
-            if (key.equalsIgnoreCase(word) || synonyms.contains(word)) {
-                if (isTraceEnabled)
-                    log.trace("동의어를 찾았습니다. word=[{}], synonyms=[{}]", word, StringUtil.join(synonyms, ","));
-                return synonyms;
-            }
         }
-        if (isTraceEnabled)
-            log.trace("동의어가 없습니다.");
 
-        return EMPTY_SET;
+        Set<String> result = new TreeSet<String>(synonyms);
+        result.add(word);
+
+        if (isTraceEnabled)
+            log.trace("동의어를 찾았습니다. word=[{}], synonyms=[{}]", word, StringUtil.join(result, ","));
+        return result;
     }
 }
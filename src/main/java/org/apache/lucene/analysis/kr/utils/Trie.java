@@ -278,6 +278,44 @@ public class Trie<S, V> {
         return node.getValue();
     }
 
+    /**
+     * Finds the keys in this that are prefixes of buf[off..off+len), shortest
+     * first, and stores their values and lengths. This walks the trie once and
+     * allocates nothing, so it is cheaper than calling get() for every
+     * candidate length.
+     * <p/>
+     * <p/>
+     * Important: canonicalization of buf is NOT performed here!
+     *
+     * @return the number of matches found, at most values.length
+     * @requires values.length &lt;= lengths.length
+     */
+    public int prefixMatches(char[] buf, int off, int len, Object[] values, int[] lengths) {
+        TrieNode<V> node = root;
+        int i = 0;
+        int count = 0;
+        while (i < len && count < values.length) {
+            TrieEdge<V> edge = node.get(buf[off + i]);
+            if (edge == null)
+                break;
+            String label = edge.getLabel();
+            if (i + label.length() > len)
+                break;
+            for (int j = 1; j < label.length(); j++) {
+                if (buf[off + i + j] != label.charAt(j))
+                    return count;
+            }
+            i += label.length();
+            node = edge.getChild();
+            if (node.getValue() != null) {
+                values[count] = node.getValue();
+                lengths[count] = i;
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Ensures no values are associated with the given key.
      *
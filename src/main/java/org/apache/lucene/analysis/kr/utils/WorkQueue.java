@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 호출한 스레드가 크기가 제한된 큐에 일감을 넣고, 작업 스레드들이 큐에서 꺼내 처리하는 생산자-소비자 큐입니다.
+ * <p/>
+ * 큐에 자리가 나기를 기다리는 동안 작업 스레드가 실패했는지 확인하므로, 작업 스레드가 실패하면 일감을 넣는 쪽이 예외를 받습니다.
+ * 일감을 다 넣었으면 {@link #finish()} 가 작업 스레드마다 끝 표시를 넣고, 작업 스레드들의 결과를 시작한 순서대로 모읍니다.
+ * <pre>
+ *     WorkQueue&lt;String, Long&gt; queue = new WorkQueue&lt;String, Long&gt;(capacity);
+ *     for (int i = 0; i &lt; threads; i++)
+ *         queue.start(executor, new MyWorker());
+ *     for (String line : lines)
+ *         queue.put(line);
+ *     List&lt;Long&gt; results = queue.finish();
+ * </pre>
+ * 작업 스레드를 실행할 {@link ExecutorService} 는 호출한 쪽이 만들고 종료합니다.
+ *
+ * @param <T> 일감
+ * @param <R> 작업 스레드 하나의 결과
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public final class WorkQueue<T, R> {
+
+    /** 작업 스레드에게 더 이상 일감이 없음을 알린다. */
+    private static final Object END = new Object();
+
+    /** 큐에서 꺼낸 일감을 처리하는 작업 스레드 하나의 처리기 */
+    public interface Worker<T, R> {
+
+        /** 일감 하나를 처리한다. 예외를 던지면 작업 스레드가 끝나고 일감을 넣는 쪽에 알린다. */
+        void process(T item) throws Exception;
+
+        /** 일감을 다 처리한 후에 작업 스레드의 결과를 반환한다. */
+        R finish() throws Exception;
+    }
+
+    private final BlockingQueue<Object> queue;
+    private final List<Future<R>> workers = new ArrayList<Future<R>>();
+
+    /** @param capacity 큐에 대기할 수 있는 일감의 수 */
+    public WorkQueue(int capacity) {
+        this.queue = new ArrayBlockingQueue<Object>(capacity);
+    }
+
+    /** 큐에서 일감을 꺼내 worker 로 처리하는 작업 스레드를 시작한다. */
+    public void start(ExecutorService executor, final Worker<T, R> worker) {
+        workers.add(executor.submit(new Callable<R>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public R call() throws Exception {
+                while (true) {
+                    Object item = queue.take();
+                    if (item == END)
+                        return worker.finish();
+                    worker.process((T) item);
+                }
+            }
+        }));
+    }
+
+    /**
+     * 일감을 큐에 넣는다. 큐에 자리가 나기를 기다리면서 작업 스레드가 실패했는지 확인한다.
+     *
+     * @throws IOException 실패한 작업 스레드가 있거나, 기다리는 중에 인터럽트 된 경우
+     */
+    public void put(T item) throws IOException {
+        offer(item);
+    }
+
+    /**
+     * 작업 스레드마다 끝 표시를 넣고, 작업 스레드들이 끝나기를 기다려서 결과를 시작한 순서대로 반환한다.
+     *
+     * @throws IOException 실패한 작업 스레드가 있거나, 기다리는 중에 인터럽트 된 경우
+     */
+    public List<R> finish() throws IOException {
+        for (int i = 0; i < workers.size(); i++) {
+            offer(END);
+        }
+        List<R> results = new ArrayList<R>(workers.size());
+        for (Future<R> worker : workers) {
+            results.add(getResult(worker));
+        }
+        return results;
+    }
+
+    private void offer(Object item) throws IOException {
+        try {
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                for (Future<R> worker : workers) {
+                    if (worker.isDone())
+                        getResult(worker);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("일감을 넣는 중에 중단되었습니다.", e);
+        }
+    }
+
+    private static <V> V getResult(Future<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("작업 스레드를 기다리는 중에 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("작업 스레드가 실패했습니다.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.KoreanFilter;
+import org.apache.lucene.analysis.kr.KoreanTokenizer;
+import org.apache.lucene.analysis.kr.morph.MorphAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.Version;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 분석 경로가 토큰 하나를 만드는데 할당하는 byte 수를 재서 예산 (allocation-budget.properties) 과 비교합니다.
+ * <p/>
+ * 현재 스레드의 할당량은 {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes} 로 잽니다.
+ * JIT 가 최적화한 뒤의 값을 재도록 먼저 여러번 돌리고, 여러번 잰 값 중 가장 작은 값을 씁니다.
+ * JVM 이 스레드별 할당량을 지원하지 않으면 검사하지 않습니다.
+ */
+public class AllocationBudgetTest extends TestCase {
+
+    private static final String BUDGET_FILE = "allocation-budget.properties";
+    private static final String KOREAN = KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOREAN];
+
+    private static final int WARMUP_ROUNDS = 30;
+    private static final int MEASURE_ROUNDS = 5;
+
+    private static List<String> sentences;
+    private static Properties budget;
+
+    /** 한번 돌릴 때마다 만든 토큰 수를 반환하는 작업 */
+    private interface Workload {
+        long run() throws Exception;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        if (sentences == null) {
+            sentences = IndexingBenchmark.readSentences();
+
+            Properties props = new Properties();
+            InputStream in = getClass().getClassLoader().getResourceAsStream(BUDGET_FILE);
+            assertNotNull(BUDGET_FILE, in);
+            try {
+                props.load(in);
+            } finally {
+                in.close();
+            }
+            budget = props;
+        }
+    }
+
+    public void testMorphAnalyzer() throws Exception {
+        final List<String> eojeols = new ArrayList<String>();
+        for (String sentence : sentences) {
+            KoreanTokenizer tokenizer = new KoreanTokenizer(Version.LUCENE_36, new StringReader(sentence));
+            CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+            TypeAttribute typeAtt = tokenizer.addAttribute(TypeAttribute.class);
+            tokenizer.reset();
+            while (tokenizer.incrementToken()) {
+                if (KOREAN.equals(typeAtt.type()))
+                    eojeols.add(termAtt.toString());
+            }
+            tokenizer.close();
+        }
+
+        final MorphAnalyzer morph = new MorphAnalyzer();
+        checkBudget("MorphAnalyzer.analyze", new Workload() {
+            @Override
+            public long run() throws Exception {
+                for (String eojeol : eojeols) {
+                    morph.analyze(eojeol);
+                }
+                return eojeols.size();
+            }
+        });
+    }
+
+    public void testKoreanFilter() throws Exception {
+        // 같은 문장을 tokenizer 로만 분석한 할당량을 빼서 KoreanFilter 의 할당량만 남긴다.
+        final KoreanTokenizer baseline = new KoreanTokenizer(Version.LUCENE_36, new StringReader(""));
+        final KoreanTokenizer tokenizer = new KoreanTokenizer(Version.LUCENE_36, new StringReader(""));
+        final KoreanFilter filter = new KoreanFilter(tokenizer, true, false);
+
+        final long[] filterTokens = new long[1];
+        Workload tokenizerOnly = new Workload() {
+            @Override
+            public long run() throws Exception {
+                return consume(baseline, baseline);
+            }
+        };
+        Workload withFilter = new Workload() {
+            @Override
+            public long run() throws Exception {
+                filterTokens[0] = consume(tokenizer, filter);
+                return filterTokens[0];
+            }
+        };
+
+        long[] baselineBytes = measure(tokenizerOnly);
+        long[] filterBytes = measure(withFilter);
+        if (baselineBytes == null || filterBytes == null)
+            return;
+        double perToken = Math.max(0, filterBytes[0] - baselineBytes[0]) / (double) filterTokens[0];
+        assertWithinBudget("KoreanFilter.incrementToken", perToken);
+    }
+
+    public void testKoreanAnalyzer() throws Exception {
+        final KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        checkBudget("KoreanAnalyzer", new Workload() {
+            @Override
+            public long run() throws Exception {
+                long tokens = 0;
+                for (String sentence : sentences) {
+                    TokenStream stream = analyzer.reusableTokenStream("text", new StringReader(sentence));
+                    stream.reset();
+                    while (stream.incrementToken()) {
+                        tokens++;
+                    }
+                    stream.end();
+                }
+                return tokens;
+            }
+        });
+        analyzer.close();
+    }
+
+    /** 모든 예문을 tokenizer 에 넣고 stream 의 토큰을 모두 소비한다. */
+    private static long consume(KoreanTokenizer tokenizer, TokenStream stream) throws Exception {
+        long tokens = 0;
+        for (String sentence : sentences) {
+            tokenizer.reset(new StringReader(sentence));
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens++;
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    private void checkBudget(String name, Workload workload) throws Exception {
+        long[] bytesAndTokens = measure(workload);
+        if (bytesAndTokens == null)
+            return;
+        assertWithinBudget(name, bytesAndTokens[0] / (double) bytesAndTokens[1]);
+    }
+
+    private void assertWithinBudget(String name, double bytesPerToken) {
+        double max = Double.parseDouble(budget.getProperty(name + ".bytesPerToken"));
+        System.out.println(String.format("%s: %.1f bytes/token (budget %.0f)", name, bytesPerToken, max));
+        assertTrue(String.format("%s 의 토큰당 할당량 %.1f bytes 가 예산 %.0f bytes 를 넘었습니다.", name, bytesPerToken, max),
+                   bytesPerToken <= max);
+    }
+
+    /**
+     * 작업을 충분히 돌린 뒤 할당량을 잰다.
+     *
+     * @return {가장 적게 할당한 회차의 byte 수, 그 회차의 토큰 수}, 할당량을 잴 수 없으면 null
+     */
+    private static long[] measure(Workload workload) throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("스레드별 할당량을 잴 수 없는 JVM 입니다. 검사하지 않습니다.");
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("스레드별 할당량을 잴 수 없는 JVM 입니다. 검사하지 않습니다.");
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            workload.run();
+        }
+
+        long[] best = null;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            long tokens = workload.run();
+            long bytes = threads.getThreadAllocatedBytes(threadId) - before;
+            if (best == null || bytes < best[0])
+                best = new long[] { bytes, tokens };
+        }
+        return best;
+    }
+}
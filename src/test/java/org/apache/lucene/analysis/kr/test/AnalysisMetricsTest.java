@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.KoreanTokenizer;
+import org.apache.lucene.analysis.kr.metrics.AnalysisMetrics;
+import org.apache.lucene.analysis.kr.metrics.LatencyHistogram;
+import org.apache.lucene.analysis.kr.metrics.SlowAnalysis;
+import org.apache.lucene.analysis.kr.metrics.SlowAnalysisRecorder;
+import org.apache.lucene.analysis.kr.metrics.Stage;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class AnalysisMetricsTest extends TestCase {
+
+    private static final String KOREAN = KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.KOREAN];
+    private static final String CHINESE = KoreanTokenizer.TOKEN_TYPES[KoreanTokenizer.CHINESE];
+
+    @Override
+    protected void tearDown() throws Exception {
+        AnalysisMetrics.setEnabled(false);
+        AnalysisMetrics.reset();
+        SlowAnalysisRecorder.disable();
+        SlowAnalysisRecorder.clear();
+        SlowAnalysisRecorder.setCapacity(SlowAnalysisRecorder.DEFAULT_CAPACITY);
+    }
+
+    private void analyze(String text) throws Exception {
+        TokenStream stream = new KoreanAnalyzer().tokenStream("text", new StringReader(text));
+        stream.reset();
+        while (stream.incrementToken()) {
+        }
+        stream.close();
+    }
+
+    public void testDisabled() throws Exception {
+        AnalysisMetrics.setEnabled(false);
+        AnalysisMetrics.reset();
+        analyze("정부는 경제를 살리기 위해 노력했다");
+
+        assertEquals(0, AnalysisMetrics.getTokenCount(KOREAN));
+        assertEquals(0, AnalysisMetrics.getHistogram(Stage.MORPH_ANALYZE).getCount());
+    }
+
+    public void testStagesAndTokens() throws Exception {
+        AnalysisMetrics.reset();
+        AnalysisMetrics.setEnabled(true);
+        analyze("정부는 경제를 살리기 위해 노력했다 金融危機");
+
+        assertEquals(5, AnalysisMetrics.getTokenCount(KOREAN));
+        assertEquals(1, AnalysisMetrics.getTokenCount(CHINESE));
+        assertEquals(1, AnalysisMetrics.getHistogram(Stage.HANJA).getCount());
+        assertTrue(AnalysisMetrics.getHistogram(Stage.MORPH_ANALYZE).getCount() >= 5);
+        assertTrue(AnalysisMetrics.getHistogram(Stage.ANALYSIS_BY_RULE).getTotalNanos() > 0);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        TabularData tokens = (TabularData) server.getAttribute(new ObjectName(AnalysisMetrics.OBJECT_NAME), "TokenCounts");
+        CompositeData row = tokens.get(new Object[] { KOREAN });
+        assertEquals(5L, row.get("value"));
+    }
+
+    public void testHistogramPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1000000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(1024, histogram.getPercentileNanos(50));
+        assertEquals(1024, histogram.getPercentileNanos(99));
+        assertEquals(1L << 20, histogram.getPercentileNanos(100));
+    }
+
+    public void testSlowAnalysisRecorder() throws Exception {
+        SlowAnalysisRecorder.clear();
+        SlowAnalysisRecorder.setCapacity(3);
+        SlowAnalysisRecorder.setThreshold(0, TimeUnit.MILLISECONDS);
+        analyze("정부는 경제를 살리기 위해 노력했다");
+
+        // 어절마다 KoreanFilter 구간 하나만 기록한다. (MorphAnalyzer 구간은 중첩되므로 기록하지 않는다)
+        assertEquals(5, SlowAnalysisRecorder.getSlowCount());
+
+        List<SlowAnalysis> slowest = SlowAnalysisRecorder.getSlowest();
+        assertEquals(3, slowest.size());
+        for (int i = 1; i < slowest.size(); i++) {
+            assertTrue(slowest.get(i - 1).getTotalNanos() >= slowest.get(i).getTotalNanos());
+        }
+        for (SlowAnalysis analysis : slowest) {
+            assertTrue(analysis.getStageCount(Stage.MORPH_ANALYZE) >= 1);
+            assertTrue(analysis.getStageNanos().containsKey(Stage.ANALYSIS_BY_RULE));
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String[] lines = (String[]) server.getAttribute(new ObjectName(SlowAnalysisRecorder.OBJECT_NAME), "Slowest");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains(slowest.get(0).getText()));
+
+        // 단계의 시간은 기록기에만 쓰고, 꺼져 있는 메트릭의 히스토그램에는 기록하지 않는다.
+        assertFalse(AnalysisMetrics.isEnabled());
+        assertEquals(0, AnalysisMetrics.getHistogram(Stage.MORPH_ANALYZE).getCount());
+    }
+}
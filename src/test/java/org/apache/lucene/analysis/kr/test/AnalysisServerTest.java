@@ -0,0 +1,154 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.service.*;
+
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+
+public class AnalysisServerTest extends TestCase {
+
+    private static final String[] TEXTS = { "정부는 경제를 살리기 위해 노력했다", "", "金融危機 를 극복한 한국경제" };
+
+    public void testBatchAndAnalyzer() throws Exception {
+        KoreanAnalyzer local = new KoreanAnalyzer();
+        AnalysisServer server = new AnalysisServer(local, 0, 4);
+        RemoteAnalysisClient client = new RemoteAnalysisClient(server.getPort());
+        RemoteKoreanAnalyzer remote = new RemoteKoreanAnalyzer(server.getPort());
+        try {
+            List<TokenArray> results = client.analyze(Arrays.asList("text", "text", "title"), Arrays.asList(TEXTS));
+            assertEquals(TEXTS.length, results.size());
+            for (int i = 0; i < TEXTS.length; i++) {
+                assertEquals(TokenArray.read(local.tokenStream("text", new StringReader(TEXTS[i]))), results.get(i));
+            }
+
+            List<AnalyzedDocument> docs = client.analyzeDocuments(Arrays.asList(
+                    new AnalysisDocument("1").addField("title", TEXTS[0]).addField("body", TEXTS[2]),
+                    new AnalysisDocument("2", "title", TEXTS[2])));
+            assertEquals("2", docs.get(1).getId());
+            assertEquals(results.get(2), docs.get(0).getField("body"));
+            assertEquals(results.get(2), docs.get(1).getField("title"));
+
+            // 재사용 stream 으로 여러 번 분석해도 같은 결과가 나온다.
+            for (int i = 0; i < 2; i++) {
+                for (String text : TEXTS) {
+                    assertEquals(TokenArray.read(local.tokenStream("text", new StringReader(text))),
+                                 TokenArray.read(remote.reusableTokenStream("text", new StringReader(text))));
+                }
+            }
+            assertEquals(2, server.getConnectionCount());
+        } finally {
+            remote.close();
+            client.close();
+            server.close();
+            local.close();
+        }
+    }
+
+    public void testRejectOversizedRequest() throws Exception {
+        KoreanAnalyzer local = new KoreanAnalyzer();
+        AnalysisServer server = new AnalysisServer(local, 0, 4);
+        try {
+            // 본문의 수 (vint) 가 음수 (-1) 인 요청
+            assertClosedByServer(server, new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F });
+            // 본문 하나, 필드 이름의 크기가 1 GB 인 요청
+            assertClosedByServer(server, new byte[] { 1, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x04 });
+            // 다섯번째 byte 에서도 끝나지 않는 vint (본문의 수, 필드 이름의 크기)
+            byte c = (byte) 0x80;
+            assertClosedByServer(server, new byte[] { c, c, c, c, c });
+            assertClosedByServer(server, new byte[] { 1, c, c, c, c, c });
+
+            // 거절한 연결과 상관없이 다른 연결은 계속 처리한다.
+            RemoteAnalysisClient client = new RemoteAnalysisClient(server.getPort());
+            try {
+                assertTrue(client.analyze("text", TEXTS[0]).size() > 0);
+            } finally {
+                client.close();
+            }
+        } finally {
+            server.close();
+            local.close();
+        }
+    }
+
+    public void testReconnectAfterIdleTimeout() throws Exception {
+        KoreanAnalyzer local = new KoreanAnalyzer();
+        AnalysisServer server = new AnalysisServer(local, 0, 4, 200);
+        RemoteKoreanAnalyzer remote = new RemoteKoreanAnalyzer(server.getPort());
+        try {
+            TokenArray expected = TokenArray.read(local.tokenStream("text", new StringReader(TEXTS[0])));
+            assertEquals(expected, TokenArray.read(remote.reusableTokenStream("text", new StringReader(TEXTS[0]))));
+            RemoteAnalysisClient first = remote.getClient();
+
+            // 서버가 유휴 연결을 닫은 후의 요청은 새 연결로 다시 보낸다.
+            for (int i = 0; i < 100 && server.getConnectionCount() > 0; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, server.getConnectionCount());
+            assertEquals(expected, TokenArray.read(remote.reusableTokenStream("text", new StringReader(TEXTS[0]))));
+            assertTrue(first.isClosed());
+            assertNotSame(first, remote.getClient());
+        } finally {
+            remote.close();
+            server.close();
+            local.close();
+        }
+    }
+
+    public void testReadTimeout() throws Exception {
+        // 연결은 받지만 응답하지 않는 서버
+        ServerSocket stalled = new ServerSocket(0);
+        try {
+            RemoteAnalysisClient client = new RemoteAnalysisClient("127.0.0.1", stalled.getLocalPort(), 200);
+            try {
+                client.analyze("text", TEXTS[0]);
+                fail("응답이 없으면 제한 시간 후에 실패해야 합니다.");
+            } catch (SocketTimeoutException expected) {
+                // 응답의 경계를 알 수 없으므로 연결을 닫는다.
+                assertTrue(client.isClosed());
+            }
+        } finally {
+            stalled.close();
+        }
+    }
+
+    private static void assertClosedByServer(AnalysisServer server, byte[] request) throws Exception {
+        Socket socket = new Socket("127.0.0.1", server.getPort());
+        try {
+            socket.setSoTimeout(30000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(0x4B4F5231);
+            out.write(request);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            assertEquals("한도를 넘는 요청을 보낸 연결은 서버가 닫아야 합니다.", -1, in.read());
+        } finally {
+            socket.close();
+        }
+    }
+}
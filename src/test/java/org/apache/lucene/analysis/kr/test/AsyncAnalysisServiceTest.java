@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.service.AsyncAnalysisService;
+import org.apache.lucene.analysis.kr.service.TokenArray;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncAnalysisServiceTest extends TestCase {
+
+    private static final String TEXT = "정부는 경제를 살리기 위해 노력했다";
+
+    public void testAnalyzeAndStream() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (String doc : IndexingBenchmark.generateDocuments(IndexingBenchmark.readSentences(), 5, 3L)) {
+            sb.append(doc).append('\n');
+        }
+        String text = sb.toString();
+
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        AsyncAnalysisService service = new AsyncAnalysisService(analyzer, 2, 16);
+        try {
+            TokenArray expected = TokenArray.read(analyzer.tokenStream("text", new StringReader(text)));
+            assertEquals(expected, service.analyze("text", text).get(30, TimeUnit.SECONDS));
+
+            service.setBatchSize(10);
+            final List<TokenArray> batches = new ArrayList<TokenArray>();
+            long count = service.stream("text", new StringReader(text), new AsyncAnalysisService.TokenListener() {
+                @Override
+                public void onTokens(TokenArray tokens) {
+                    batches.add(tokens);
+                }
+            }).get(30, TimeUnit.SECONDS);
+
+            assertEquals(expected.size(), count);
+            int i = 0;
+            for (TokenArray batch : batches) {
+                assertTrue(batch.size() > 0 && batch.size() <= 10);
+                for (int j = 0; j < batch.size(); j++, i++) {
+                    assertEquals(expected.term(i), batch.term(j));
+                    assertEquals(expected.startOffset(i), batch.startOffset(j));
+                }
+            }
+            assertEquals(expected.size(), i);
+        } finally {
+            service.close();
+            analyzer.close();
+        }
+    }
+
+    public void testCancelAndReject() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        AsyncAnalysisService service = new AsyncAnalysisService(analyzer, 1, 1);
+        service.setBatchSize(1);
+        try {
+            ListenableFuture<Long> streaming = service.stream("text", new StringReader(TEXT), new AsyncAnalysisService.TokenListener() {
+                @Override
+                public void onTokens(TokenArray tokens) {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            assertTrue(started.await(30, TimeUnit.SECONDS));
+
+            ListenableFuture<TokenArray> queued = service.analyze("text", TEXT);
+            ListenableFuture<TokenArray> rejected = service.analyze("text", TEXT);
+            try {
+                rejected.get();
+                fail("대기열이 가득 차면 실패해야 합니다.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+
+            // 실행하지 못한 stream 의 reader 도 닫는다.
+            final AtomicBoolean closed = new AtomicBoolean();
+            Reader reader = new StringReader(TEXT) {
+                @Override
+                public void close() {
+                    closed.set(true);
+                    super.close();
+                }
+            };
+            ListenableFuture<Long> rejectedStream = service.stream("text", reader, new AsyncAnalysisService.TokenListener() {
+                @Override
+                public void onTokens(TokenArray tokens) {
+                    fail("실행하지 않은 stream 은 토큰을 보내지 않아야 합니다.");
+                }
+            });
+            try {
+                rejectedStream.get();
+                fail("대기열이 가득 차면 실패해야 합니다.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertTrue(closed.get());
+
+            assertTrue(streaming.cancel(true));
+            release.countDown();
+
+            assertTrue(queued.get(30, TimeUnit.SECONDS).size() > 0);
+            assertTrue(streaming.isCancelled());
+            assertEquals("취소된 stream 은 다음 batch 를 보내지 않아야 합니다.", 1, calls.get());
+        } finally {
+            release.countDown();
+            service.close();
+            analyzer.close();
+        }
+    }
+
+    public void testCancelWithoutInterruptStopsStream() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch ended = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+
+        final KoreanAnalyzer korean = new KoreanAnalyzer();
+        Analyzer analyzer = new Analyzer() {
+            @Override
+            public TokenStream tokenStream(String fieldName, Reader reader) {
+                return new TokenFilter(korean.tokenStream(fieldName, reader)) {
+                    @Override
+                    public boolean incrementToken() throws IOException {
+                        return input.incrementToken();
+                    }
+
+                    @Override
+                    public void end() throws IOException {
+                        super.end();
+                        ended.countDown();
+                    }
+                };
+            }
+        };
+
+        AsyncAnalysisService service = new AsyncAnalysisService(analyzer, 1, 1);
+        service.setBatchSize(1);
+        try {
+            ListenableFuture<Long> streaming = service.stream("text", new StringReader(TEXT), new AsyncAnalysisService.TokenListener() {
+                @Override
+                public void onTokens(TokenArray tokens) throws InterruptedException {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    release.await();
+                }
+            });
+            assertTrue(started.await(30, TimeUnit.SECONDS));
+
+            // 인터럽트 하지 않아도 future 의 취소 상태를 보고 멈춘다.
+            assertTrue(streaming.cancel(false));
+            release.countDown();
+
+            assertTrue("취소되어 멈출 때도 end() 를 호출해야 합니다.", ended.await(30, TimeUnit.SECONDS));
+            assertEquals("취소된 stream 은 다음 batch 를 보내지 않아야 합니다.", 1, calls.get());
+        } finally {
+            release.countDown();
+            service.close();
+            korean.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.service.AnalysisDocument;
+import org.apache.lucene.analysis.kr.service.BulkIndexer;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.RAMDirectory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BulkIndexerTest extends TestCase {
+
+    public void testIndexDocuments() throws Exception {
+        List<AnalysisDocument> docs = new ArrayList<AnalysisDocument>();
+        for (int i = 0; i < 50; i++) {
+            docs.add(new AnalysisDocument("doc-" + i, "text", (i % 2 == 0) ? "정부는 경제를 살리기 위해 노력했다" : "금융 위기를 극복했다"));
+        }
+
+        RAMDirectory directory = new RAMDirectory();
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        BulkIndexer indexer = new BulkIndexer(directory, analyzer, 3, IndexWriterConfig.OpenMode.CREATE, 0);
+        BulkIndexer.Stats stats;
+        try {
+            stats = indexer.index(docs.iterator());
+        } finally {
+            indexer.close();
+            analyzer.close();
+        }
+
+        assertEquals(50, stats.getDocs());
+        assertEquals(50, indexer.getIndexedCount());
+        assertTrue(stats.getDocsPerSecond() > 0);
+
+        IndexReader reader = IndexReader.open(directory);
+        try {
+            assertEquals(50, reader.numDocs());
+            IndexSearcher searcher = new IndexSearcher(reader);
+            assertEquals(25, searcher.search(new TermQuery(new Term("text", "정부")), 100).totalHits);
+            assertEquals(1, searcher.search(new TermQuery(new Term(BulkIndexer.ID_FIELD, "doc-7")), 1).totalHits);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public void testIndexFile() throws Exception {
+        File file = File.createTempFile("bulk-indexer", ".txt");
+        file.deleteOnExit();
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write("a\t정부는 경제를 살리기 위해 노력했다\n");
+            out.write("\n");
+            out.write("금융 위기를 극복했다\n");
+        } finally {
+            out.close();
+        }
+
+        RAMDirectory directory = new RAMDirectory();
+        BulkIndexer indexer = new BulkIndexer(directory, 2);
+        try {
+            assertEquals(2, indexer.index(Collections.singletonList(file), BulkIndexer.DEFAULT_FIELD).getDocs());
+        } finally {
+            indexer.close();
+        }
+
+        IndexReader reader = IndexReader.open(directory);
+        try {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            assertEquals(1, searcher.search(new TermQuery(new Term(BulkIndexer.ID_FIELD, "a")), 1).totalHits);
+            assertEquals(1, searcher.search(new TermQuery(new Term(BulkIndexer.ID_FIELD, file.getName() + ":3")), 1).totalHits);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public void testAutoRamBufferSize() {
+        long mb = 1024 * 1024;
+        // 하한 (스레드당 16 MB, Lucene 기본값) 보다 heap 의 절반이 우선이다.
+        assertEquals(8.0, BulkIndexer.autoRamBufferSizeMB(16 * mb, 1));
+        assertEquals(32.0, BulkIndexer.autoRamBufferSizeMB(64 * mb, 4));
+        assertEquals(16.0, BulkIndexer.autoRamBufferSizeMB(64 * mb, 1));
+        assertEquals(64.0, BulkIndexer.autoRamBufferSizeMB(512 * mb, 4));
+        assertEquals(256.0, BulkIndexer.autoRamBufferSizeMB(2048 * mb, 4));
+        assertEquals(1024.0, BulkIndexer.autoRamBufferSizeMB(64 * 1024 * mb, 8));
+    }
+}
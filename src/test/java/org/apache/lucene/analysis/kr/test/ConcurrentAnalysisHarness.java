@@ -0,0 +1,253 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.AnalysisProfile;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 여러 쓰레드가 하나의 {@link KoreanAnalyzer} 로 같은 말뭉치를 동시에 분석하는 검증 도구입니다.
+ * <p/>
+ * 먼저 한 쓰레드로 모든 문서를 분석한 결과 (토큰의 term, type, offset, position increment) 를 기준으로 삼고,
+ * 1 부터 N 개까지 쓰레드 수를 두 배씩 늘려 가며 같은 양의 작업을 나눠서 분석합니다.
+ * 모든 문서의 결과를 기준과 비교해서 다르면 data race 로 보고, 쓰레드 수별 처리량과 1 쓰레드 대비 배율을 출력합니다.
+ * <pre>
+ *     java -cp ... org.apache.lucene.analysis.kr.test.ConcurrentAnalysisHarness [-threads n] [-rounds n] [-docs n] [-corpus file]
+ * </pre>
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+public class ConcurrentAnalysisHarness {
+
+    /** 검사할 분석기 설정 */
+    public enum Config {
+
+        INDEX, QUERY, TAGGING;
+
+        public KoreanAnalyzer newAnalyzer() {
+            switch (this) {
+                case QUERY:
+                    return new KoreanAnalyzer(AnalysisProfile.QUERY);
+                case TAGGING:
+                    KoreanAnalyzer analyzer = new KoreanAnalyzer(AnalysisProfile.INDEX);
+                    analyzer.setTaggingWindow(3);
+                    return analyzer;
+                default:
+                    return new KoreanAnalyzer(AnalysisProfile.INDEX);
+            }
+        }
+    }
+
+    /** 쓰레드 수 하나의 실행 결과 */
+    public static class Result {
+
+        final int threads;
+        final int analyzed;
+        final long elapsedNanos;
+        final int mismatches;
+        final String firstMismatch;
+
+        Result(int threads, int analyzed, long elapsedNanos, int mismatches, String firstMismatch) {
+            this.threads = threads;
+            this.analyzed = analyzed;
+            this.elapsedNanos = elapsedNanos;
+            this.mismatches = mismatches;
+            this.firstMismatch = firstMismatch;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getAnalyzed() {
+            return analyzed;
+        }
+
+        /** 기준과 결과가 다른 문서 수 */
+        public int getMismatches() {
+            return mismatches;
+        }
+
+        /** 처음 발견한 다른 결과, 없으면 null */
+        public String getFirstMismatch() {
+            return firstMismatch;
+        }
+
+        public double getDocsPerSecond() {
+            return analyzed * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("threads=%d : %.1f docs/s, mismatches=%d", threads, getDocsPerSecond(), mismatches);
+        }
+    }
+
+    /** 문서 하나를 분석한 토큰들을 "term/type/start-end/+posInc" 형식으로 반환한다. */
+    public static List<String> analyze(Analyzer analyzer, String text) throws IOException {
+        TokenStream stream = analyzer.reusableTokenStream("text", new StringReader(text));
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+        OffsetAttribute offsetAtt = stream.addAttribute(OffsetAttribute.class);
+        PositionIncrementAttribute posIncAtt = stream.addAttribute(PositionIncrementAttribute.class);
+
+        List<String> tokens = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt.toString() + '/' + typeAtt.type() + '/' + offsetAtt.startOffset() + '-' + offsetAtt.endOffset()
+                               + "/+" + posIncAtt.getPositionIncrement());
+        }
+        stream.end();
+        return tokens;
+    }
+
+    /** 한 쓰레드로 모든 문서를 분석한 기준 결과 */
+    public static List<List<String>> reference(Analyzer analyzer, List<String> docs) throws IOException {
+        List<List<String>> reference = new ArrayList<List<String>>(docs.size());
+        for (String doc : docs) {
+            reference.add(analyze(analyzer, doc));
+        }
+        return reference;
+    }
+
+    /**
+     * threads 개의 쓰레드가 analyzer 를 공유해서 문서들을 rounds 번 분석하고 기준과 비교한다.
+     * 작업은 (회차, 문서) 단위로 나누어 쓰레드들이 차례로 가져간다.
+     */
+    public static Result run(final Analyzer analyzer, final List<String> docs, final List<List<String>> reference,
+                             int threads, int rounds) throws InterruptedException {
+        final int total = docs.size() * rounds;
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger mismatches = new AtomicInteger();
+        final AtomicReference<String> firstMismatch = new AtomicReference<String>();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread("concurrent-analysis-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        int task;
+                        while ((task = next.getAndIncrement()) < total) {
+                            int doc = task % docs.size();
+                            List<String> tokens = analyze(analyzer, docs.get(doc));
+                            if (!tokens.equals(reference.get(doc))) {
+                                mismatches.incrementAndGet();
+                                firstMismatch.compareAndSet(null, "doc=" + docs.get(doc) + "\nexpected=" + reference.get(doc)
+                                        + "\nactual=" + tokens);
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            workers[i].start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - startNanos;
+
+        if (failure.get() != null)
+            throw new IllegalStateException("분석에 실패했습니다. threads=" + threads, failure.get());
+        return new Result(threads, total, elapsed, mismatches.get(), firstMismatch.get());
+    }
+
+    /** 쓰레드 수를 1, 2, 4, ... maxThreads 로 늘려 가며 실행한다. maxThreads 가 2의 거듭제곱이 아니면 마지막에 maxThreads 로 실행한다. */
+    public static List<Result> scaling(Config config, List<String> docs, int maxThreads, int rounds) throws Exception {
+        KoreanAnalyzer analyzer = config.newAnalyzer();
+        try {
+            List<List<String>> reference = reference(analyzer, docs);
+            List<Result> results = new ArrayList<Result>();
+            for (int threads = 1; threads < maxThreads; threads <<= 1) {
+                results.add(run(analyzer, docs, reference, threads, rounds));
+            }
+            results.add(run(analyzer, docs, reference, maxThreads, rounds));
+            return results;
+        } finally {
+            analyzer.close();
+        }
+    }
+
+    /** 1 쓰레드 대비 처리량 배율과 쓰레드당 효율을 붙여서 출력한다. */
+    public static void print(Config config, List<Result> results) {
+        double base = results.get(0).getDocsPerSecond();
+        for (Result result : results) {
+            double speedup = result.getDocsPerSecond() / base;
+            System.out.println(String.format("%s %s, speedup=%.2fx, efficiency=%.0f%%", config, result, speedup,
+                                             speedup / result.getThreads() * 100));
+            if (result.getFirstMismatch() != null)
+                System.out.println(result.getFirstMismatch());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+        int rounds = 5;
+        int numDocs = 500;
+        String corpus = null;
+
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("-threads".equals(args[i])) maxThreads = Integer.parseInt(args[++i]);
+            else if ("-rounds".equals(args[i])) rounds = Integer.parseInt(args[++i]);
+            else if ("-docs".equals(args[i])) numDocs = Integer.parseInt(args[++i]);
+            else if ("-corpus".equals(args[i])) corpus = args[++i];
+        }
+
+        List<String> sentences = (corpus == null) ? IndexingBenchmark.readSentences() : IndexingBenchmark.readSentences(new File(corpus));
+        List<String> docs = IndexingBenchmark.generateDocuments(sentences, numDocs, 42L);
+
+        int failures = 0;
+        for (Config config : Config.values()) {
+            // 사전 로드와 JIT 를 측정에서 뺀다.
+            scaling(config, docs.subList(0, Math.min(50, docs.size())), 1, 1);
+
+            List<Result> results = scaling(config, docs, maxThreads, rounds);
+            print(config, results);
+            for (Result result : results) {
+                failures += result.getMismatches();
+            }
+        }
+        if (failures > 0) {
+            System.out.println("기준과 다른 결과 " + failures + " 건");
+            System.exit(1);
+        }
+    }
+}
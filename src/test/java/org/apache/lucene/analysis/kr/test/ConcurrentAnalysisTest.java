@@ -0,0 +1,47 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * {@link ConcurrentAnalysisHarness} 로 여러 쓰레드가 하나의 분석기를 공유할 때의 결과를 검사합니다.
+ */
+public class ConcurrentAnalysisTest extends TestCase {
+
+    private static final int MAX_THREADS = 8;
+
+    public void testConcurrentAnalysisMatchesReference() throws Exception {
+        List<String> sentences = IndexingBenchmark.readSentences();
+        List<String> docs = IndexingBenchmark.generateDocuments(sentences, 40, 7L);
+
+        for (ConcurrentAnalysisHarness.Config config : ConcurrentAnalysisHarness.Config.values()) {
+            List<ConcurrentAnalysisHarness.Result> results = ConcurrentAnalysisHarness.scaling(config, docs, MAX_THREADS, 2);
+            ConcurrentAnalysisHarness.print(config, results);
+
+            assertEquals(4, results.size());
+            assertEquals(MAX_THREADS, results.get(results.size() - 1).getThreads());
+            for (ConcurrentAnalysisHarness.Result result : results) {
+                assertEquals(docs.size() * 2, result.getAnalyzed());
+                assertEquals(config + " " + result.getFirstMismatch(), 0, result.getMismatches());
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.kr.freq.CorpusProfile;
+import org.apache.lucene.analysis.kr.freq.CorpusProfiler;
+import org.apache.lucene.analysis.kr.morph.PatternConstants;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+public class CorpusProfilerTest extends TestCase {
+
+    private static final String CORPUS =
+            "정부는 경제를 살리기 위해 노력했다.\n" +
+            "경제가 어렵다고 정부가 말했다.\n" +
+            "\n" +
+            "국민은 경제 정책을 지지했다 abc 123\n";
+
+    public void testProfile() throws Exception {
+        CorpusProfiler profiler = new CorpusProfiler(2);
+        profiler.setBatchSize(1);
+        CorpusProfile profile = profiler.profile(new StringReader(CORPUS));
+
+        assertEquals(4, profile.getLines());
+        assertEquals(13, profile.getEojeols());
+        assertEquals(2, profile.getStemFreq("경제"));
+        assertEquals(2, profile.getStemFreq("정부"));
+        assertTrue(profile.getPosFreq(PatternConstants.POS_NOUN) >= 6);
+        assertTrue(profile.getPatnFreq(PatternConstants.PTN_NJ) >= 4);
+
+        List<Map.Entry<String, Long>> top = profile.getTopStems(2);
+        // 빈도수가 같으면 어간 순서로 정렬한다.
+        assertEquals(2, top.size());
+        assertEquals("경제", top.get(0).getKey());
+        assertEquals("정부", top.get(1).getKey());
+
+        StringWriter report = new StringWriter();
+        profile.writeReport(report, 10);
+        assertTrue(report.toString().contains("1\t경제\t2\n"));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.kr.morph.AnalysisOutput;
+import org.apache.lucene.analysis.kr.morph.CompoundEntry;
+import org.apache.lucene.analysis.kr.morph.MorphAnalyzer;
+import org.apache.lucene.analysis.kr.morph.WordEntry;
+import org.apache.lucene.analysis.kr.utils.DictionaryUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 여러 쓰레드가 잠금 없이 사전을 조회하는 동안 단어 사전을 다시 로드해도 조회 결과가 단일 쓰레드 결과와 같은지 검사합니다.
+ */
+public class DictionaryConcurrencyTest extends TestCase {
+
+    private static final int THREADS = 32;
+    private static final int RELOADS = 1;
+
+    /** cj.dic 의 항목. 첫 글자는 CJK 호환 한자 (U+F90A) 이다. */
+    private static final String CJ_WORD = "\uF90A\u878D";
+
+    private static final String[] WORDS = { "정부", "경제", "살리", "노력", "위하", "대한민국", "사랑", "학교", "컴퓨터", "없는단어" };
+    private static final String[] EOJEOLS = { "정부는", "경제를", "살리기", "위해", "노력했다", "사랑하는", "학교에서", "컴퓨터가" };
+
+    public void testConcurrentLookupsDuringReload() throws Exception {
+        final List<String> expected = lookupAll();
+
+        final AtomicBoolean reloading = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final int[] rounds = new int[THREADS];
+
+        Thread[] readers = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            final int id = i;
+            readers[i] = new Thread("dictionary-reader-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        // 다시 로드하는 동안 계속 읽고, 끝난 후에도 몇 번 더 읽는다.
+                        for (int extra = 0; reloading.get() || extra < 3; ) {
+                            if (!reloading.get()) extra++;
+                            List<String> actual = lookupAll();
+                            if (!expected.equals(actual)) {
+                                failure.compareAndSet(null, new AssertionError("조회 결과가 다릅니다.\nexpected=" + expected + "\nactual=" + actual));
+                                return;
+                            }
+                            rounds[id]++;
+                            // 코어가 적은 장비에서도 다시 로드하는 쓰레드가 진행하도록 양보한다.
+                            Thread.yield();
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+            readers[i].start();
+        }
+
+        start.countDown();
+        try {
+            for (int i = 0; i < RELOADS; i++) {
+                DictionaryUtil.loadDictionary();
+            }
+        } finally {
+            reloading.set(false);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        for (int round : rounds) {
+            assertTrue(round > 0);
+        }
+    }
+
+    public void testDictionaryStructuresAreImmutable() throws Exception {
+        WordEntry uncompound = DictionaryUtil.getUncompound("가과");
+        assertNotNull(uncompound);
+        try {
+            uncompound.getCompounds().add(new CompoundEntry("가"));
+            fail("사전이 공유하는 복합명사 목록은 변경할 수 없어야 합니다.");
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertEquals("금융", DictionaryUtil.getCJWord(CJ_WORD));
+    }
+
+    /** 모든 조회 방법의 결과를 문자열로 모은다. */
+    private static List<String> lookupAll() throws Exception {
+        List<String> results = new ArrayList<String>();
+        for (String word : WORDS) {
+            WordEntry entry = DictionaryUtil.getWord(word);
+            results.add(word + "=" + (entry == null ? null : new String(entry.getFeatures())));
+        }
+
+        WordEntry uncompound = DictionaryUtil.getUncompound("가과");
+        StringBuilder sb = new StringBuilder("uncompound=");
+        for (CompoundEntry part : uncompound.getCompounds()) {
+            sb.append(part.getWord()).append(',');
+        }
+        results.add(sb.toString());
+        results.add("cj=" + DictionaryUtil.getCJWord(CJ_WORD));
+        results.add("josa=" + DictionaryUtil.existJosa("는") + DictionaryUtil.existJosa("를") + DictionaryUtil.existJosa("없음"));
+        results.add("eomi=" + DictionaryUtil.existEomi("다") + DictionaryUtil.existEomi("없음"));
+
+        char[] buf = "대한민국정부".toCharArray();
+        WordEntry[] entries = new WordEntry[8];
+        int[] lengths = new int[8];
+        int found = DictionaryUtil.findPrefixes(buf, 0, buf.length, entries, lengths);
+        results.add("prefixes=" + Arrays.toString(Arrays.copyOf(lengths, found)));
+
+        MorphAnalyzer morph = new MorphAnalyzer();
+        for (String eojeol : EOJEOLS) {
+            List<AnalysisOutput> outputs = morph.analyze(eojeol);
+            results.add(eojeol + "=" + outputs);
+        }
+        return results;
+    }
+}
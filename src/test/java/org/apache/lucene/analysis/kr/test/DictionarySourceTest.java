@@ -0,0 +1,217 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.AnalysisProfile;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.KoreanFilter;
+import org.apache.lucene.analysis.kr.KoreanTokenizer;
+import org.apache.lucene.analysis.kr.morph.CompoundEntry;
+import org.apache.lucene.analysis.kr.morph.HanjaWordConverter;
+import org.apache.lucene.analysis.kr.utils.DictionarySource;
+import org.apache.lucene.analysis.kr.utils.DictionaryUtil;
+import org.apache.lucene.analysis.kr.utils.FileUtil;
+import org.apache.lucene.analysis.kr.utils.KoreanEnv;
+import org.apache.lucene.analysis.kr.utils.SynonymUtil;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.util.Version;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class DictionarySourceTest extends TestCase {
+
+    private static final String NEW_WORD = "뉴럴네트워크";
+    private static final String OTHER_WORD = "딥러닝모델";
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("korean-dic").toFile();
+        System.setProperty(KoreanEnv.SYSTEM_PROPERTY_DICTIONARY_DIR, dir.getPath());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        System.clearProperty(KoreanEnv.SYSTEM_PROPERTY_DICTIONARY_DIR);
+        DictionaryUtil.reloadChanged();
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    public void testReloadChangedFiles() throws Exception {
+        assertNull(DictionaryUtil.getWord(NEW_WORD));
+        assertEquals(Collections.emptyList(), DictionaryUtil.reloadChanged());
+
+        List<String> customs = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_CUSTOM), KoreanEnv.UTF8);
+        File custom = new File(dir, "custom.dic");
+        write(custom, customs, NEW_WORD);
+
+        // 사전 디렉토리에 생긴 파일만 다시 읽는다.
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_CUSTOM), DictionaryUtil.reloadChanged());
+        assertNotNull(DictionaryUtil.getWord(NEW_WORD));
+
+        DictionarySource.Snapshot snapshot = DictionarySource.getSnapshot(KoreanEnv.FILE_CUSTOM);
+        byte[] bytes = Files.readAllBytes(custom.toPath());
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        assertEquals(crc.getValue(), snapshot.getChecksum());
+        assertEquals(bytes.length, snapshot.getSize());
+
+        // 수정 시각만 바뀌면 다시 읽지 않는다.
+        assertTrue(custom.setLastModified(snapshot.getLastModified() + 5000));
+        assertFalse(DictionarySource.isChanged(KoreanEnv.FILE_CUSTOM));
+        assertEquals(Collections.emptyList(), DictionaryUtil.reloadChanged());
+
+        write(custom, customs, OTHER_WORD);
+        assertTrue(custom.setLastModified(snapshot.getLastModified() + 10000));
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_CUSTOM), DictionaryUtil.reloadChanged());
+        assertNull(DictionaryUtil.getWord(NEW_WORD));
+        assertNotNull(DictionaryUtil.getWord(OTHER_WORD));
+        // 다른 사전의 단어는 그대로 있다.
+        assertNotNull(DictionaryUtil.getWord("정부"));
+
+        // 파일을 지우면 classpath 의 사전으로 돌아간다.
+        assertTrue(custom.delete());
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_CUSTOM), DictionaryUtil.reloadChanged());
+        assertNull(DictionaryUtil.getWord(OTHER_WORD));
+        assertNull(DictionarySource.getSnapshot(KoreanEnv.FILE_CUSTOM));
+    }
+
+    public void testCompoundsFromDictionaryDir() throws Exception {
+        String compound = "뉴럴딥러닝";
+        assertNull(DictionaryUtil.getWord(compound));
+
+        // jar 에 compounds.dic 이 없어도 사전 디렉토리의 파일을 읽는다.
+        File compounds = new File(dir, "compounds.dic");
+        write(compounds, Collections.<String>emptyList(), compound + ":뉴럴,딥러닝");
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_COMPOUNDS), DictionaryUtil.reloadChanged());
+        assertEquals(2, DictionaryUtil.getWord(compound).getCompounds().size());
+
+        assertTrue(compounds.delete());
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_COMPOUNDS), DictionaryUtil.reloadChanged());
+        assertNull(DictionaryUtil.getWord(compound));
+    }
+
+    public void testReloadChangedCJWords() throws Exception {
+        HanjaWordConverter converter = new HanjaWordConverter();
+        assertEquals("금융", converter.convert("金融", new ArrayList<CompoundEntry>()));
+
+        // 같은 한자 단어는 뒤의 음이 남는다.
+        List<String> cjs = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_CJ), KoreanEnv.UTF8);
+        File cj = new File(dir, "cj.dic");
+        write(cj, cjs, "金融:금늉");
+
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_CJ), DictionaryUtil.reloadChanged());
+        assertEquals("금늉", DictionaryUtil.getCJWord("金融"));
+        // 이미 만든 변환기도 새 사전으로 변환한다.
+        assertEquals("금늉", converter.convert("金融", new ArrayList<CompoundEntry>()));
+
+        assertTrue(cj.delete());
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_CJ), DictionaryUtil.reloadChanged());
+        assertEquals("금융", converter.convert("金融", new ArrayList<CompoundEntry>()));
+    }
+
+    public void testReloadClearsAnalysisCache() throws Exception {
+        String source = NEW_WORD + "를";
+        KoreanTokenizer tokenizer = new KoreanTokenizer(Version.LUCENE_36, new StringReader(source));
+        KoreanFilter filter = new KoreanFilter(tokenizer, false, false, AnalysisProfile.QUERY);
+        // 사전에 없는 단어는 복합명사로 분석해서 나눈다.
+        assertTrue(terms(tokenizer, filter, source).size() > 1);
+
+        List<String> customs = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_CUSTOM), KoreanEnv.UTF8);
+        write(new File(dir, "custom.dic"), customs, NEW_WORD);
+        int generation = DictionaryUtil.getGeneration();
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_CUSTOM), DictionaryUtil.reloadChanged());
+        assertEquals(generation + 1, DictionaryUtil.getGeneration());
+
+        // 같은 필터가 캐시한 이전 분석 결과를 버리고 새 사전으로 분석한다.
+        assertEquals(Collections.singletonList(NEW_WORD), terms(tokenizer, filter, source));
+    }
+
+    public void testReloadChangedSynonyms() throws Exception {
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        assertFalse(terms(analyzer, "신경망").contains("딥러닝"));
+        assertTrue(SynonymUtil.getSynonym("신경망").isEmpty());
+
+        List<String> synonyms = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_SYNONYM), KoreanEnv.UTF8);
+        write(new File(dir, "synonym.dic"), synonyms, "신경망,딥러닝");
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_SYNONYM), DictionaryUtil.reloadChanged());
+        assertTrue(SynonymUtil.getSynonym("신경망").contains("딥러닝"));
+
+        // 이미 만든 analyzer 도 새 동의어 사전을 쓴다.
+        assertTrue(terms(analyzer, "신경망").contains("딥러닝"));
+    }
+
+    public void testReloadChangedTaggerRules() throws Exception {
+        List<String> rules = FileUtil.readLines(KoreanEnv.getInstance().getValue(KoreanEnv.FILE_TAGGER), KoreanEnv.UTF8);
+        write(new File(dir, "occurrence.dic"), rules, "");
+        assertEquals(Collections.singletonList(KoreanEnv.FILE_TAGGER), DictionaryUtil.reloadChanged());
+
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        analyzer.setTaggingWindow(3);
+        assertTrue(terms(analyzer, "학교에서 공부했다").contains("학교"));
+    }
+
+    private static List<String> terms(KoreanTokenizer tokenizer, KoreanFilter filter, String text) throws Exception {
+        tokenizer.reset(new StringReader(text));
+        return collect(filter);
+    }
+
+    private static List<String> terms(KoreanAnalyzer analyzer, String text) throws Exception {
+        return collect(analyzer.reusableTokenStream("s", new StringReader(text)));
+    }
+
+    private static List<String> collect(TokenStream stream) throws Exception {
+        CharTermAttribute termAttr = stream.getAttribute(CharTermAttribute.class);
+        List<String> terms = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            terms.add(termAttr.toString());
+        }
+        stream.end();
+        return terms;
+    }
+
+    private static void write(File file, List<String> lines, String extra) throws Exception {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), KoreanEnv.UTF8);
+        try {
+            for (String line : lines) {
+                out.write(line);
+                out.write('\n');
+            }
+            out.write(extra);
+            out.write("\r\n");
+        } finally {
+            out.close();
+        }
+    }
+}
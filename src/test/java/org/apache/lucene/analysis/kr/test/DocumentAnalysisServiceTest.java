@@ -0,0 +1,188 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.service.AnalysisDocument;
+import org.apache.lucene.analysis.kr.service.AnalyzedDocument;
+import org.apache.lucene.analysis.kr.service.DocumentAnalysisService;
+import org.apache.lucene.analysis.kr.service.TokenArray;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class DocumentAnalysisServiceTest extends TestCase {
+
+    public void testResultsInSubmissionOrder() throws Exception {
+        List<String> sentences = IndexingBenchmark.readSentences();
+        List<String> bodies = IndexingBenchmark.generateDocuments(sentences, 30, 11L);
+
+        List<AnalysisDocument> docs = new ArrayList<AnalysisDocument>();
+        for (int i = 0; i < bodies.size(); i++) {
+            docs.add(new AnalysisDocument("doc-" + i).addField("title", sentences.get(i % sentences.size()))
+                                                     .addField("body", bodies.get(i))
+                                                     .addField("empty", ""));
+        }
+
+        KoreanAnalyzer reference = new KoreanAnalyzer();
+        DocumentAnalysisService service = new DocumentAnalysisService(4);
+        try {
+            Iterator<AnalyzedDocument> results = service.analyze(docs.iterator());
+            for (AnalysisDocument doc : docs) {
+                assertTrue(results.hasNext());
+                AnalyzedDocument result = results.next();
+                assertEquals(doc.getId(), result.getId());
+                for (String field : new String[] { "title", "body" }) {
+                    String text = doc.getFields().get(field);
+                    TokenArray expected = TokenArray.read(reference.reusableTokenStream(field, new StringReader(text)));
+                    assertEquals(expected, result.getField(field));
+                }
+                assertEquals(0, result.getField("empty").size());
+            }
+            assertFalse(results.hasNext());
+            assertEquals(0, service.getPendingCount());
+        } finally {
+            service.close();
+            reference.close();
+        }
+    }
+
+    public void testTokenArray() throws Exception {
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        TokenArray tokens = TokenArray.read(analyzer.tokenStream("text", new StringReader("정부는 경제를")));
+        analyzer.close();
+
+        assertTrue(tokens.size() >= 2);
+        String first = tokens.term(0);
+        assertTrue(first.startsWith("정부"));
+        assertEquals(0, tokens.startOffset(0));
+        char[] buf = new char[1];
+        assertEquals(-first.length(), tokens.term(0, buf));
+        buf = new char[8];
+        assertEquals(first.length(), tokens.term(0, buf));
+        assertEquals(first, new String(buf, 0, first.length()));
+    }
+
+    public void testSubmitBlocksWhenQueueIsFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final KoreanAnalyzer korean = new KoreanAnalyzer();
+        Analyzer blocking = new Analyzer() {
+            @Override
+            public TokenStream tokenStream(String fieldName, Reader reader) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return korean.tokenStream(fieldName, reader);
+            }
+        };
+
+        final DocumentAnalysisService service = new DocumentAnalysisService(blocking, 1, 2);
+        try {
+            List<Future<AnalyzedDocument>> futures = new ArrayList<Future<AnalyzedDocument>>();
+            futures.add(service.submit(new AnalysisDocument("1", "text", "정부는")));
+            futures.add(service.submit(new AnalysisDocument("2", "text", "경제를")));
+            assertEquals(2, service.getPendingCount());
+
+            final List<Future<AnalyzedDocument>> late = new ArrayList<Future<AnalyzedDocument>>();
+            Thread submitter = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        late.add(service.submit(new AnalysisDocument("3", "text", "살리기")));
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            };
+            submitter.start();
+            submitter.join(200);
+            assertTrue("대기열이 차면 submit 이 기다려야 합니다.", submitter.isAlive());
+
+            release.countDown();
+            submitter.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(submitter.isAlive());
+            futures.addAll(late);
+
+            String[] expected = { "1", "2", "3" };
+            for (int i = 0; i < expected.length; i++) {
+                AnalyzedDocument doc = futures.get(i).get();
+                assertEquals(expected[i], doc.getId());
+                assertTrue(doc.getField("text").size() > 0);
+            }
+        } finally {
+            release.countDown();
+            service.close();
+            korean.close();
+        }
+    }
+
+    public void testCancelledAndRejectedDocumentsReleaseQueue() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final KoreanAnalyzer korean = new KoreanAnalyzer();
+        Analyzer blocking = new Analyzer() {
+            @Override
+            public TokenStream tokenStream(String fieldName, Reader reader) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return korean.tokenStream(fieldName, reader);
+            }
+        };
+
+        DocumentAnalysisService service = new DocumentAnalysisService(blocking, 1, 2);
+        try {
+            Future<AnalyzedDocument> running = service.submit(new AnalysisDocument("1", "text", "정부는"));
+            Future<AnalyzedDocument> waiting = service.submit(new AnalysisDocument("2", "text", "경제를"));
+            assertEquals(2, service.getPendingCount());
+
+            // 실행 전에 취소한 문서는 자리를 돌려준다.
+            assertTrue(waiting.cancel(false));
+            assertEquals(1, service.getPendingCount());
+
+            release.countDown();
+            assertEquals("1", running.get(30, TimeUnit.SECONDS).getId());
+            assertEquals(0, service.getPendingCount());
+        } finally {
+            release.countDown();
+            service.close();
+        }
+
+        // 닫힌 서비스가 거절한 문서도 자리를 돌려준다.
+        try {
+            service.submit(new AnalysisDocument("3", "text", "살리기"));
+            fail("닫힌 서비스는 문서를 거절해야 합니다.");
+        } catch (RejectedExecutionException expected) {
+            assertEquals(0, service.getPendingCount());
+        } finally {
+            korean.close();
+        }
+    }
+}
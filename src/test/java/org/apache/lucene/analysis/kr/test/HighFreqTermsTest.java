@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.kr.freq.HighFreqTerms;
+import org.apache.lucene.analysis.kr.freq.TermFreq;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LogDocMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+
+public class HighFreqTermsTest extends TestCase {
+
+    private static final String[] DOCS = {
+            "한국 서울 서울 부산",
+            "한국 서울",
+            "한국 대전 대전 대전",
+            "부산 대전",
+            "한국 광주",
+    };
+
+    private Directory directory;
+    private IndexReader reader;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = new RAMDirectory();
+        IndexWriterConfig config = new IndexWriterConfig(Version.LUCENE_36, new WhitespaceAnalyzer(Version.LUCENE_36));
+        config.setMaxBufferedDocs(2);
+        LogDocMergePolicy mergePolicy = new LogDocMergePolicy();
+        mergePolicy.setMergeFactor(100);
+        config.setMergePolicy(mergePolicy);
+
+        IndexWriter writer = new IndexWriter(directory, config);
+        for (String text : DOCS) {
+            Document doc = new Document();
+            doc.add(new Field("text", text, Field.Store.NO, Field.Index.ANALYZED));
+            writer.addDocument(doc);
+        }
+        writer.close();
+        reader = IndexReader.open(directory);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        reader.close();
+        directory.close();
+    }
+
+    public void testHighFreqTerms() throws Exception {
+        assertTrue(reader.getSequentialSubReaders().length > 1);
+
+        TermFreq[] termFreqs = HighFreqTerms.getHighFreqTerms(reader, 3, "text");
+
+        // 세그먼트에 나뉜 문서 빈도수를 합치고, 빈도수가 같으면 Term 순서로 정렬한다.
+        assertEquals(3, termFreqs.length);
+        assertEquals("한국", termFreqs[0].term.text());
+        assertEquals(4, termFreqs[0].docFreq);
+        assertEquals("대전", termFreqs[1].term.text());
+        assertEquals(2, termFreqs[1].docFreq);
+        assertEquals("부산", termFreqs[2].term.text());
+        assertEquals(2, termFreqs[2].docFreq);
+    }
+
+    public void testSortByTotalTermFreq() throws Exception {
+        TermFreq[] termFreqs = HighFreqTerms.getHighFreqTerms(reader, 10, "text");
+        TermFreq[] sorted = HighFreqTerms.sortByTotalTermFreq(reader, termFreqs);
+
+        assertEquals(termFreqs.length, sorted.length);
+        // 전체 빈도수가 같으면 문서 빈도수 순서를 유지한다.
+        assertEquals("한국", sorted[0].term.text());
+        assertEquals(4, sorted[0].totalTermFreq);
+        assertEquals("대전", sorted[1].term.text());
+        assertEquals(4, sorted[1].totalTermFreq);
+        assertEquals("서울", sorted[2].term.text());
+        assertEquals(3, sorted[2].totalTermFreq);
+    }
+
+    public void testTotalTermFreqMatchesSingleTerm() throws Exception {
+        TermFreq[] termFreqs = HighFreqTerms.getHighFreqTerms(reader, 10, "text");
+        TermFreq[] sorted = HighFreqTerms.sortByTotalTermFreq(reader, termFreqs);
+
+        for (TermFreq tf : sorted) {
+            assertEquals(tf.term.text(), HighFreqTerms.getTotalTermFreq(reader, tf.term), tf.totalTermFreq);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.test;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.Version;
+
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link KoreanAnalyzer} 로 실제 {@link IndexWriter} 에 문서를 색인하는 처리량 벤치마크입니다.
+ * <p/>
+ * 예문을 무작위로 이어 붙여 만든 문서들을 N 개의 스레드로 색인하고, 설정 (bigram, exactMatch, hasOrigin, originCNoun) 의
+ * 조합마다 초당 문서 수, 초당 바이트 수, 전체 시간 중 분석에 쓴 시간의 비율, GC 시간, 색인 크기를 출력합니다.
+ * <pre>
+ *     java -cp ... org.apache.lucene.analysis.kr.test.IndexingBenchmark [-docs n] [-threads n] [-corpus file] [-dir path]
+ * </pre>
+ * -corpus 를 지정하지 않으면 classpath 의 {@link #CORPUS_RESOURCE} 예문을 사용합니다.
+ * -dir 을 지정하지 않으면 {@link RAMDirectory} 에 색인합니다.
+ *
+ * @author 배성혁 sunghyouk.bae@gmail.com
+ */
+@Slf4j
+public class IndexingBenchmark {
+
+    /** 기본 예문 (test classpath 의 resource) */
+    public static final String CORPUS_RESOURCE = "corpus/korean-sample.txt";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int SENTENCES_PER_DOC = 8;
+
+    /** 분석기 설정 */
+    public static class Config {
+
+        final boolean bigram;
+        final boolean exactMatch;
+        final boolean hasOrigin;
+        final boolean originCNoun;
+
+        public Config(boolean bigram, boolean exactMatch, boolean hasOrigin, boolean originCNoun) {
+            this.bigram = bigram;
+            this.exactMatch = exactMatch;
+            this.hasOrigin = hasOrigin;
+            this.originCNoun = originCNoun;
+        }
+
+        /** 네 가지 설정을 켜고 끈 16 가지 조합 */
+        public static List<Config> all() {
+            List<Config> configs = new ArrayList<Config>(16);
+            for (int i = 0; i < 16; i++) {
+                configs.add(new Config((i & 8) != 0, (i & 4) != 0, (i & 2) != 0, (i & 1) != 0));
+            }
+            return configs;
+        }
+
+        KoreanAnalyzer newAnalyzer() {
+            KoreanAnalyzer analyzer = new KoreanAnalyzer(exactMatch);
+            analyzer.setBigrammable(bigram);
+            analyzer.setHasOrigin(hasOrigin);
+            analyzer.setOriginCNoun(originCNoun);
+            return analyzer;
+        }
+
+        @Override
+        public String toString() {
+            return "bigram=" + bigram + ", exactMatch=" + exactMatch + ", hasOrigin=" + hasOrigin + ", originCNoun=" + originCNoun;
+        }
+    }
+
+    /** 설정 하나의 측정 결과 */
+    public static class Result {
+
+        final Config config;
+        final int docs;
+        final long bytes;
+        final long elapsedNanos;
+        final long analysisNanos;
+        final long gcMillis;
+        final long indexSize;
+        final int threads;
+
+        Result(Config config, int docs, long bytes, long elapsedNanos, long analysisNanos, long gcMillis, long indexSize, int threads) {
+            this.config = config;
+            this.docs = docs;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            this.analysisNanos = analysisNanos;
+            this.gcMillis = gcMillis;
+            this.indexSize = indexSize;
+            this.threads = threads;
+        }
+
+        public double getDocsPerSecond() {
+            return docs * 1e9 / elapsedNanos;
+        }
+
+        public double getBytesPerSecond() {
+            return bytes * 1e9 / elapsedNanos;
+        }
+
+        /** 스레드들이 쓴 전체 시간 중 token stream 을 소비하는데 쓴 시간의 비율 */
+        public double getAnalysisShare() {
+            return analysisNanos / ((double) elapsedNanos * threads);
+        }
+
+        public long getGcMillis() {
+            return gcMillis;
+        }
+
+        public long getIndexSize() {
+            return indexSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s : %.1f docs/s, %.1f KB/s, analysis=%.1f%%, gc=%d ms, index=%d KB",
+                                 config, getDocsPerSecond(), getBytesPerSecond() / 1024, getAnalysisShare() * 100,
+                                 gcMillis, indexSize / 1024);
+        }
+    }
+
+    /**
+     * 예문을 무작위로 이어 붙여서 문서를 만든다. 같은 seed 면 같은 문서들이 만들어진다.
+     *
+     * @param sentences 예문
+     * @param numDocs   문서 수
+     * @param seed      난수 seed
+     */
+    public static List<String> generateDocuments(List<String> sentences, int numDocs, long seed) {
+        Random random = new Random(seed);
+        List<String> docs = new ArrayList<String>(numDocs);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < numDocs; i++) {
+            sb.setLength(0);
+            for (int j = 0; j < SENTENCES_PER_DOC; j++) {
+                if (j > 0) sb.append(' ');
+                sb.append(sentences.get(random.nextInt(sentences.size())));
+            }
+            docs.add(sb.toString());
+        }
+        return docs;
+    }
+
+    /** classpath 의 기본 예문 ({@link #CORPUS_RESOURCE}) 을 읽는다. */
+    public static List<String> readSentences() throws IOException {
+        InputStream in = IndexingBenchmark.class.getClassLoader().getResourceAsStream(CORPUS_RESOURCE);
+        if (in == null)
+            throw new FileNotFoundException("classpath 에 예문이 없습니다. resource=" + CORPUS_RESOURCE);
+        return readSentences(in);
+    }
+
+    /** '#' 으로 시작하는 줄과 빈 줄을 뺀 예문을 읽는다. */
+    public static List<String> readSentences(File file) throws IOException {
+        return readSentences(new FileInputStream(file));
+    }
+
+    private static List<String> readSentences(InputStream in) throws IOException {
+        List<String> sentences = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#"))
+                    sentences.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return sentences;
+    }
+
+    /**
+     * 문서들을 threads 개의 스레드로 directory 에 색인한다.
+     *
+     * @return 측정 결과
+     */
+    public static Result run(Config config, final List<String> docs, Directory directory, final int threads) throws Exception {
+        TimingAnalyzer analyzer = new TimingAnalyzer(config.newAnalyzer());
+        IndexWriterConfig iwc = new IndexWriterConfig(Version.LUCENE_36, analyzer);
+        iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+        iwc.setMaxThreadStates(threads);
+        final IndexWriter writer = new IndexWriter(directory, iwc);
+
+        long bytes = 0;
+        for (String doc : docs) {
+            bytes += doc.getBytes(UTF8).length;
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread("indexing-benchmark-" + i) {
+                @Override
+                public void run() {
+                    try {
+                        int i;
+                        while ((i = next.getAndIncrement()) < docs.size()) {
+                            Document doc = new Document();
+                            doc.add(new Field("text", docs.get(i), Field.Store.NO, Field.Index.ANALYZED));
+                            writer.addDocument(doc);
+                        }
+                    } catch (Throwable t) {
+                        synchronized (failures) {
+                            failures.add(t);
+                        }
+                    }
+                }
+            };
+        }
+
+        long gcStart = gcMillis();
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        writer.close();
+        long elapsed = System.nanoTime() - start;
+        long gc = gcMillis() - gcStart;
+        analyzer.close();
+
+        if (!failures.isEmpty())
+            throw new IllegalStateException("색인에 실패했습니다. config=" + config, failures.get(0));
+
+        return new Result(config, docs.size(), bytes, elapsed, analyzer.analysisNanos.get(), gc, sizeOf(directory), threads);
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static long sizeOf(Directory directory) throws IOException {
+        long size = 0;
+        for (String file : directory.listAll()) {
+            size += directory.fileLength(file);
+        }
+        return size;
+    }
+
+    /** token stream 을 소비하는데 쓴 시간을 재는 Analyzer. 스레드마다 KoreanAnalyzer 의 재사용 stream 을 감싼다. */
+    static final class TimingAnalyzer extends Analyzer {
+
+        private final Analyzer delegate;
+        final AtomicLong analysisNanos = new AtomicLong();
+
+        TimingAnalyzer(Analyzer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TokenStream tokenStream(String fieldName, Reader reader) {
+            return new TimingFilter(delegate.tokenStream(fieldName, reader));
+        }
+
+        @Override
+        public TokenStream reusableTokenStream(String fieldName, Reader reader) throws IOException {
+            TokenStream stream = delegate.reusableTokenStream(fieldName, reader);
+            TimingFilter filter = (TimingFilter) getPreviousTokenStream();
+            if (filter == null || filter.source != stream) {
+                filter = new TimingFilter(stream);
+                setPreviousTokenStream(filter);
+            }
+            return filter;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            delegate.close();
+        }
+
+        final class TimingFilter extends TokenFilter {
+
+            final TokenStream source;
+
+            TimingFilter(TokenStream input) {
+                super(input);
+                this.source = input;
+            }
+
+            @Override
+            public boolean incrementToken() throws IOException {
+                long start = System.nanoTime();
+                try {
+                    return input.incrementToken();
+                } finally {
+                    analysisNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int numDocs = 2000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String corpus = null;
+        String dir = null;
+
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("-docs".equals(args[i])) numDocs = Integer.parseInt(args[++i]);
+            else if ("-threads".equals(args[i])) threads = Integer.parseInt(args[++i]);
+            else if ("-corpus".equals(args[i])) corpus = args[++i];
+            else if ("-dir".equals(args[i])) dir = args[++i];
+        }
+
+        List<String> sentences = (corpus == null) ? readSentences() : readSentences(new File(corpus));
+        List<String> docs = generateDocuments(sentences, numDocs, 42L);
+
+        // 사전 로드와 JIT 를 측정에서 뺀다.
+        run(new Config(true, false, true, false), docs.subList(0, Math.min(200, docs.size())), new RAMDirectory(), threads);
+
+        for (Config config : Config.all()) {
+            Directory directory = (dir == null) ? new RAMDirectory() : FSDirectory.open(new File(dir));
+            try {
+                System.out.println(run(config, docs, directory, threads));
+            } finally {
+                directory.close();
+            }
+        }
+    }
+}
@@ -27,12 +27,17 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.RAMDirectory;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @Slf4j
 public class IndexingTest {
@@ -86,6 +91,21 @@ public class IndexingTest {
         }
     }
 
+    @Test
+    public void indexingThroughput() throws Exception {
+        List<String> sentences = IndexingBenchmark.readSentences();
+        List<String> docs = IndexingBenchmark.generateDocuments(sentences, 50, 42L);
+        assertEquals(docs, IndexingBenchmark.generateDocuments(sentences, 50, 42L));
+
+        IndexingBenchmark.Result result =
+                IndexingBenchmark.run(new IndexingBenchmark.Config(true, false, true, false), docs, new RAMDirectory(), 2);
+        log.debug("result=[{}]", result);
+
+        assertTrue(result.getDocsPerSecond() > 0);
+        assertTrue(result.getAnalysisShare() > 0);
+        assertTrue(result.getIndexSize() > 0);
+    }
+
     @Test
     @Ignore( "테스트 전에 인덱스가 만들어 졌는지 확인해야 합니다." )
     public void termHighFreqTerms() throws Exception {
@@ -19,8 +19,11 @@ package org.apache.lucene.analysis.kr.test;
 import junit.framework.TestCase;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.kr.AnalysisProfile;
 import org.apache.lucene.analysis.kr.KoreanAnalyzer;
 import org.apache.lucene.analysis.kr.KoreanFilter;
+import org.apache.lucene.analysis.kr.morph.CompoundEntry;
+import org.apache.lucene.analysis.kr.morph.HanjaWordConverter;
 import org.apache.lucene.analysis.kr.utils.HanjaUtils;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.analysis.standard.StandardFilter;
@@ -156,4 +159,114 @@ public class KoreanAnalyzerTest extends TestCase {
         System.out.println((System.currentTimeMillis() - start) + "ms");
     }
 
+    public void testHanjaWordConvert() throws Exception {
+        HanjaWordConverter converter = new HanjaWordConverter();
+
+        // 金融 은 cj.dic, 危機 는 대표음으로 읽은 '위기' 가 사전에 있다.
+        List<CompoundEntry> segments = new ArrayList<CompoundEntry>();
+        assertEquals("금융위기", converter.convert("金融危機", segments));
+        assertEquals(2, segments.size());
+        assertEquals("금융", segments.get(0).getWord());
+        assertEquals(0, segments.get(0).getOffset());
+        assertEquals("위기", segments.get(1).getWord());
+        assertEquals(2, segments.get(1).getOffset());
+
+        // 음이 여러 개인 樂 은 사전의 단어에 맞는 음으로 읽는다.
+        segments.clear();
+        assertEquals("음악", converter.convert("音樂", segments));
+        assertTrue(segments.get(0).isExist());
+    }
+
+    public void testQueryProfile() throws Exception {
+        String source = "학교에서 공부했다";
+
+        List<String> indexTerms = terms(new KoreanAnalyzer(AnalysisProfile.INDEX), source);
+        assertTrue(indexTerms.contains("학교에서"));
+        assertTrue(indexTerms.contains("학교"));
+
+        // 검색용 프로파일은 원어절을 출력하지 않고, 캐시된 분석 결과도 처음과 같아야 한다.
+        KoreanAnalyzer queryAnalyzer = new KoreanAnalyzer(AnalysisProfile.QUERY);
+        List<String> queryTerms = terms(queryAnalyzer, source);
+        assertFalse(queryTerms.contains("학교에서"));
+        assertTrue(queryTerms.contains("학교"));
+        assertEquals(queryTerms, terms(queryAnalyzer, source));
+    }
+
+    public void testTaggingWindow() throws Exception {
+        String source = "학교에서 공부할 수 있는 것은 金融危機 abc";
+
+        List<String> all = terms(new KoreanAnalyzer(), source);
+
+        // 어절마다 선택된 분석 결과만 색인하므로 후보 어간이 빠진다.
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        analyzer.setTaggingWindow(3);
+        analyzer.setHasOrigin(false);
+        List<String> tagged = terms(analyzer, source);
+        assertTrue(tagged.size() < all.size());
+        assertTrue(tagged.contains("학교"));
+        assertFalse(tagged.contains("학교에서"));
+
+        // 원어절은 hasOrigin 이면 출력한다.
+        analyzer = new KoreanAnalyzer();
+        analyzer.setTaggingWindow(3);
+        List<String> withOrigin = terms(analyzer, source);
+        assertTrue(withOrigin.contains("학교"));
+        assertTrue(withOrigin.contains("학교에서"));
+
+        // 한자와 영문은 KoreanFilter 가 그대로 처리한다.
+        assertTrue(tagged.contains("금융위기"));
+        assertTrue(tagged.contains("abc"));
+    }
+
+    public void testOriginCNoun() throws Exception {
+        String source = "정보검색을";
+
+        List<String> withCNoun = terms(new KoreanAnalyzer(), source);
+        assertTrue(withCNoun.contains("정보검색"));
+        assertTrue(withCNoun.contains("검색"));
+
+        // 복합명사 자체는 빼고 구성 명사만 색인한다.
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        analyzer.setOriginCNoun(false);
+        List<String> nouns = terms(analyzer, source);
+        assertFalse(nouns.contains("정보검색"));
+        assertTrue(nouns.contains("검색"));
+    }
+
+    public void testTaggingWindowKeepsPositions() throws Exception {
+        // 용언처럼 색인어가 없는 어절도 위치를 차지해서, 마지막 어절의 위치는 어절 수와 같다.
+        String source = "학교에서 공부할 수 있는 학생";
+
+        KoreanAnalyzer analyzer = new KoreanAnalyzer();
+        analyzer.setTaggingWindow(3);
+        analyzer.setHasOrigin(false);
+        assertEquals(5, lastPosition(analyzer, source));
+    }
+
+    /** 마지막 토큰의 위치 (첫 토큰이 1) */
+    private static int lastPosition(KoreanAnalyzer analyzer, String text) throws Exception {
+        TokenStream stream = analyzer.reusableTokenStream("s", new StringReader(text));
+        PositionIncrementAttribute posIncrAttr = stream.getAttribute(PositionIncrementAttribute.class);
+        int position = 0;
+        stream.reset();
+        while (stream.incrementToken()) {
+            position += posIncrAttr.getPositionIncrement();
+        }
+        stream.end();
+        stream.close();
+        return position;
+    }
+
+    private static List<String> terms(KoreanAnalyzer analyzer, String text) throws Exception {
+        TokenStream stream = analyzer.reusableTokenStream("s", new StringReader(text));
+        CharTermAttribute termAttr = stream.getAttribute(CharTermAttribute.class);
+        List<String> terms = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            terms.add(termAttr.toString());
+        }
+        stream.end();
+        stream.close();
+        return terms;
+    }
 }
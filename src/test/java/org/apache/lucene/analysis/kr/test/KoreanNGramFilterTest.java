@@ -0,0 +1,126 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.WhitespaceTokenizer;
+import org.apache.lucene.analysis.kr.KoreanFilter;
+import org.apache.lucene.analysis.kr.KoreanNGramFilter;
+import org.apache.lucene.analysis.kr.KoreanTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.Version;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KoreanNGramFilterTest extends TestCase {
+
+    public void testBigram() throws Exception {
+        assertEquals("[가나/1/0-2, 나다/1/1-3, 다라/1/2-4]",
+                     analyze("가나다라", KoreanNGramFilter.TYPE_NGRAM_ONLY, 2).toString());
+    }
+
+    public void testTrigram() throws Exception {
+        assertEquals("[가나다/1/0-3, 나다라/1/1-4]",
+                     analyze("가나다라", KoreanNGramFilter.TYPE_NGRAM_ONLY, 3).toString());
+    }
+
+    public void testMixedScript() throws Exception {
+        // 영문/숫자는 자르지 않고, gram 은 문자 종류의 경계를 넘지 않는다.
+        assertEquals("[lg2/1/0-3, 전자제/1/3-6, 자제품/1/4-7]",
+                     analyze("lg2전자제품", KoreanNGramFilter.TYPE_NGRAM_ONLY, 3).toString());
+        assertEquals("[lg2/1/0-3, 전자/1/3-5, 자제/1/4-6, 제품/1/5-7]",
+                     analyze("lg2전자제품", KoreanNGramFilter.TYPE_NGRAM_ONLY, 2).toString());
+    }
+
+    public void testKeepSource() throws Exception {
+        // 원래 토큰을 먼저 출력하고, 원래 토큰과 같은 gram 은 출력하지 않는다.
+        assertEquals("[가나다/1/0-3, 가나/0/0-2, 나다/1/1-3]",
+                     analyze("가나다", KoreanNGramFilter.TYPE_NGRAM, 2).toString());
+        assertEquals("[가나/1/0-2]",
+                     analyze("가나", KoreanNGramFilter.TYPE_NGRAM, 2).toString());
+    }
+
+    public void testSingleCharNotEmitted() throws Exception {
+        assertEquals("[ab/1/1-3]", analyze("가ab", KoreanNGramFilter.TYPE_NGRAM_ONLY, 2).toString());
+    }
+
+    public void testPunctuationIsNotAlphaNumeric() throws Exception {
+        // '[', '_', '`' 등은 영문/숫자가 아니므로 영문/숫자 토큰에 붙지 않는다.
+        assertEquals("[ab/1/0-2, cd/1/3-5]", analyze("ab_cd", KoreanNGramFilter.TYPE_NGRAM_ONLY, 2).toString());
+        assertEquals("[ab/1/0-2, cd/1/3-5]", analyze("ab`cd", KoreanNGramFilter.TYPE_NGRAM_ONLY, 2).toString());
+    }
+
+    public void testKoreanFilterWithoutNGramFilter() throws Exception {
+        // n-gram 필터가 뒤에 없으면 KoreanFilter 가 직접 bigram 을 출력한다.
+        TokenStream stream = new KoreanFilter(new KoreanTokenizer(Version.LUCENE_36, new StringReader("퓌쉴롹컁")), true, false);
+        assertEquals("[퓌쉴롹컁/word, 퓌쉴/word, 쉴롹/word, 롹컁/word]", terms(stream).toString());
+
+        KoreanFilter filter = new KoreanFilter(new KoreanTokenizer(Version.LUCENE_36, new StringReader("퓌쉴롹컁")), true, false);
+        filter.setNGramFilterFollows(true);
+        assertEquals("[퓌쉴롹컁/" + KoreanNGramFilter.TYPE_NGRAM + "]", terms(filter).toString());
+    }
+
+    private static List<String> terms(TokenStream stream) throws IOException {
+        CharTermAttribute termAtt = stream.addAttribute(CharTermAttribute.class);
+        TypeAttribute typeAtt = stream.addAttribute(TypeAttribute.class);
+        List<String> tokens = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt.toString() + "/" + typeAtt.type());
+        }
+        stream.end();
+        stream.close();
+        return tokens;
+    }
+
+    private List<String> analyze(String text, final String type, int gramSize) throws IOException {
+        TokenStream source = new WhitespaceTokenizer(Version.LUCENE_36, new StringReader(text));
+        source = new TokenFilter(source) {
+            private final TypeAttribute typeAtt = addAttribute(TypeAttribute.class);
+
+            @Override
+            public boolean incrementToken() throws IOException {
+                if (!input.incrementToken())
+                    return false;
+                typeAtt.setType(type);
+                return true;
+            }
+        };
+        TokenStream stream = new KoreanNGramFilter(source, gramSize);
+        CharTermAttribute termAtt = stream.getAttribute(CharTermAttribute.class);
+        PositionIncrementAttribute posIncrAtt = stream.getAttribute(PositionIncrementAttribute.class);
+        OffsetAttribute offsetAtt = stream.getAttribute(OffsetAttribute.class);
+
+        List<String> tokens = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt.toString() + "/" + posIncrAtt.getPositionIncrement() + "/" +
+                               offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+        }
+        stream.end();
+        stream.close();
+        return tokens;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.WhitespaceTokenizer;
+import org.apache.lucene.analysis.kr.KoreanSynonymFilter;
+import org.apache.lucene.analysis.kr.utils.SynonymMap;
+import org.apache.lucene.analysis.kr.utils.SynonymUtil;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.util.Version;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KoreanSynonymFilterTest extends TestCase {
+
+    private static final SynonymMap SYNONYMS = new SynonymMap.Builder()
+            .addGroup("한국", "대한민국", "우리 나라", "korea")
+            .addGroup("서울", "seoul")
+            .build();
+
+    public void testSingleWordSynonym() throws Exception {
+        List<String> tokens = analyze("서울 가다");
+
+        assertEquals("[서울/1/0-2, seoul/0/0-2, 가다/1/3-5]", tokens.toString());
+    }
+
+    public void testMultiWordInput() throws Exception {
+        List<String> tokens = analyze("우리 나라 만세");
+
+        assertTrue(tokens.contains("대한민국/0/0-5"));
+        assertTrue(tokens.contains("한국/0/0-5"));
+        assertTrue(tokens.contains("korea/0/0-5"));
+        assertEquals("만세/1/6-8", tokens.get(tokens.size() - 1));
+    }
+
+    public void testMultiWordOutput() throws Exception {
+        List<String> tokens = analyze("한국");
+
+        // "우리 나라" 는 두 위치에 걸쳐 출력된다.
+        assertTrue(tokens.contains("우리/0/0-2"));
+        assertTrue(tokens.contains("나라/1/0-2"));
+    }
+
+    public void testLookup() throws Exception {
+        assertTrue(SYNONYMS.lookup("korea").contains("우리 나라"));
+        assertTrue(SYNONYMS.lookup("부산").isEmpty());
+
+        // 대소문자와 공백을 구분하지 않는다.
+        assertTrue(SYNONYMS.lookup("KOREA").contains("한국"));
+        assertTrue(SYNONYMS.lookup(" 우리  나라").contains("korea"));
+        assertTrue(SynonymUtil.getSynonym("SEOUL").contains("서울"));
+    }
+
+    private List<String> analyze(String text) throws Exception {
+        TokenStream stream = new KoreanSynonymFilter(new WhitespaceTokenizer(Version.LUCENE_36, new StringReader(text)), SYNONYMS);
+        CharTermAttribute termAtt = stream.getAttribute(CharTermAttribute.class);
+        PositionIncrementAttribute posIncrAtt = stream.getAttribute(PositionIncrementAttribute.class);
+        OffsetAttribute offsetAtt = stream.getAttribute(OffsetAttribute.class);
+
+        List<String> tokens = new ArrayList<String>();
+        stream.reset();
+        while (stream.incrementToken()) {
+            tokens.add(termAtt.toString() + "/" + posIncrAtt.getPositionIncrement() + "/" +
+                               offsetAtt.startOffset() + "-" + offsetAtt.endOffset());
+        }
+        stream.end();
+        stream.close();
+
+        System.out.println(tokens);
+        return tokens;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.kr.KoreanAnalyzer;
+import org.apache.lucene.analysis.kr.service.ParallelChunkAnalyzer;
+import org.apache.lucene.analysis.kr.service.TokenArray;
+
+import java.io.StringReader;
+import java.util.List;
+
+public class ParallelChunkAnalyzerTest extends TestCase {
+
+    public void testSameTokensAsSerialAnalysis() throws Exception {
+        List<String> sentences = IndexingBenchmark.readSentences();
+        StringBuilder sb = new StringBuilder();
+        for (String doc : IndexingBenchmark.generateDocuments(sentences, 40, 7L)) {
+            sb.append(doc).append('\n');
+        }
+        String text = sb.toString();
+
+        KoreanAnalyzer korean = new KoreanAnalyzer();
+        ParallelChunkAnalyzer analyzer = new ParallelChunkAnalyzer(korean, 3, 500);
+        try {
+            assertTrue(ParallelChunkAnalyzer.splitPoints(text, 500).length > 10);
+
+            TokenArray expected = TokenArray.read(korean.tokenStream("text", new StringReader(text)));
+            for (int i = 0; i < 2; i++) {
+                TokenArray actual = TokenArray.read(analyzer.reusableTokenStream("text", new StringReader(text)));
+                assertEquals(expected, actual);
+            }
+
+            // 조각 크기보다 짧으면 나누지 않는다.
+            assertEquals(TokenArray.read(korean.tokenStream("text", new StringReader(sentences.get(0)))),
+                         TokenArray.read(analyzer.tokenStream("text", new StringReader(sentences.get(0)))));
+        } finally {
+            analyzer.close();
+            korean.close();
+        }
+    }
+
+    public void testSplitPoints() {
+        String text = "정부는 경제를 살렸다. 금융 위기를 극복했다";
+        int[] points = ParallelChunkAnalyzer.splitPoints(text, 16);
+        assertEquals(0, points[0]);
+        assertEquals(text.indexOf("금융"), points[1]);
+
+        // 공백이 없으면 나누지 않는다.
+        assertEquals(1, ParallelChunkAnalyzer.splitPoints("가나다라마바사아자차카타파하", 4).length);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2011-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.lucene.analysis.kr.test;
+
+import junit.framework.TestCase;
+import org.apache.lucene.analysis.kr.metrics.DictionaryMemory;
+import org.apache.lucene.analysis.kr.metrics.RamUsage;
+import org.apache.lucene.analysis.kr.metrics.StartupReport;
+import org.apache.lucene.analysis.kr.utils.DictionaryUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 정적 자원의 초기화 기록과 초기화 예산 (startup-budget.properties) 을 검사합니다.
+ * 기록은 자원이 처음 로드될 때 남으므로 다른 테스트가 먼저 로드했어도 cold start 시간을 검사합니다.
+ * <p/>
+ * 초기화 시간은 장비와 부하에 따라 달라지므로 기본으로는 예산을 넘은 항목을 출력만 합니다.
+ * -Dlucene.korean.startup.budget=true 로 실행하면 시간 예산을 넘을 때 실패합니다. heap 예산은 항상 검사합니다.
+ */
+public class StartupReportTest extends TestCase {
+
+    private static final String BUDGET_FILE = "startup-budget.properties";
+
+    /** true 면 초기화 시간 예산을 넘을 때 실패한다. */
+    private static final String SYSTEM_PROPERTY_ENFORCE_TIME = "lucene.korean.startup.budget";
+
+    public void testAllResourcesRecorded() {
+        List<StartupReport.Entry> entries = StartupReport.loadAll();
+        assertEquals(StartupReport.RESOURCES.length, entries.size());
+
+        String summary = StartupReport.getSummary(false);
+        for (String resource : StartupReport.RESOURCES) {
+            StartupReport.Entry entry = StartupReport.getEntry(resource);
+            assertNotNull(resource, entry);
+            assertTrue(resource, entry.getEntries() > 0);
+            assertTrue(summary.contains(resource + " ["));
+        }
+        assertFalse(summary.contains("heap="));
+        assertTrue(StartupReport.getEntry(StartupReport.DICTIONARY_UTIL).getBuildNanos() > 0);
+    }
+
+    public void testReloadKeepsStartupEntry() {
+        StartupReport.loadAll();
+        StartupReport.Entry entry = StartupReport.getEntry(StartupReport.DICTIONARY_UTIL);
+
+        // 다시 로드한 시간은 시작 기록에 남기지 않는다.
+        DictionaryUtil.loadDictionary();
+        StartupReport.untracked(StartupReport.DICTIONARY_UTIL).finish(1);
+        assertSame(entry, StartupReport.getEntry(StartupReport.DICTIONARY_UTIL));
+    }
+
+    public void testStartupBudget() throws Exception {
+        Properties budget = new Properties();
+        InputStream in = getClass().getClassLoader().getResourceAsStream(BUDGET_FILE);
+        assertNotNull(BUDGET_FILE, in);
+        try {
+            budget.load(in);
+        } finally {
+            in.close();
+        }
+
+        StartupReport.loadAll();
+        System.out.println(StartupReport.getSummary(true));
+
+        boolean enforceTime = Boolean.getBoolean(SYSTEM_PROPERTY_ENFORCE_TIME);
+
+        for (String resource : StartupReport.RESOURCES) {
+            StartupReport.Entry entry = StartupReport.getEntry(resource);
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(entry.getTotalNanos());
+            long maxMillis = Long.parseLong(budget.getProperty(resource + ".millis"));
+            checkTime(resource + " 초기화 시간 " + millis + " ms 가 예산 " + maxMillis + " ms 를 넘었습니다.", millis <= maxMillis, enforceTime);
+
+            long kb = entry.getRetainedBytes() / 1024;
+            long maxKb = Long.parseLong(budget.getProperty(resource + ".heapKB"));
+            assertTrue(resource + " heap " + kb + " KB 가 예산 " + maxKb + " KB 를 넘었습니다.", kb <= maxKb);
+        }
+
+        long total = TimeUnit.NANOSECONDS.toMillis(StartupReport.getTotalNanos());
+        long maxTotal = Long.parseLong(budget.getProperty("total.millis"));
+        checkTime("초기화 시간 " + total + " ms 가 예산 " + maxTotal + " ms 를 넘었습니다.", total <= maxTotal, enforceTime);
+    }
+
+    private static void checkTime(String message, boolean withinBudget, boolean enforce) {
+        if (enforce)
+            assertTrue(message, withinBudget);
+        else if (!withinBudget)
+            System.out.println("[startup budget] " + message + " (-D" + SYSTEM_PROPERTY_ENFORCE_TIME + "=true 이면 실패)");
+    }
+
+    public void testDictionaryMemory() throws Exception {
+        StartupReport.loadAll();
+
+        Map<String, Long> bytes = DictionaryMemory.getRetainedBytes();
+        for (String structure : new String[] { "DictionaryUtil.dictionary", "DictionaryUtil.josa", "DictionaryUtil.eomi",
+                                                "DictionaryUtil.uncompounds", "HanjaUtils.readings", "SynonymUtil.synonymMap",
+                                                "Tagger.rules" }) {
+            assertTrue(structure, bytes.get(structure) > 0);
+        }
+        // Trie 가 가장 크다.
+        assertTrue(bytes.get("DictionaryUtil.dictionary") > bytes.get("DictionaryUtil.josa"));
+
+        long sum = 0;
+        for (Map.Entry<String, Long> entry : bytes.entrySet()) {
+            if (entry.getKey().startsWith(StartupReport.DICTIONARY_UTIL + "."))
+                sum += entry.getValue();
+        }
+        assertEquals(sum, StartupReport.getEntry(StartupReport.DICTIONARY_UTIL).getRetainedBytes());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(DictionaryMemory.OBJECT_NAME);
+        assertEquals(DictionaryMemory.getTotalBytes(), server.getAttribute(name, "TotalBytes"));
+        TabularData resources = (TabularData) server.getAttribute(name, "ResourceBytes");
+        assertEquals(sum, resources.get(new Object[] { StartupReport.DICTIONARY_UTIL }).get("value"));
+    }
+
+    public void testRamUsage() {
+        char[] chars = new char[100];
+        assertEquals(RamUsageEstimator.sizeOf(chars), RamUsage.sizeOf(chars));
+
+        // 공유하는 객체는 한번만 센다.
+        String word = "사전";
+        List<String> list = new ArrayList<String>();
+        list.add(word);
+        list.add(word);
+        assertEquals(RamUsage.sizeOf(list), RamUsage.sizeOf(list, word));
+        assertTrue(RamUsage.sizeOf(list) > RamUsage.sizeOfString(word));
+    }
+}
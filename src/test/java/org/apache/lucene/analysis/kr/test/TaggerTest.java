@@ -19,9 +19,13 @@ package org.apache.lucene.analysis.kr.test;
 import junit.framework.TestCase;
 import org.apache.lucene.analysis.kr.morph.AnalysisOutput;
 import org.apache.lucene.analysis.kr.morph.MorphAnalyzer;
+import org.apache.lucene.analysis.kr.morph.PatternConstants;
 import org.apache.lucene.analysis.kr.tagging.Tagger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
 public class TaggerTest extends TestCase {
 
@@ -49,4 +53,81 @@ public class TaggerTest extends TestCase {
 
         System.out.println(">>" + o);
     }
+
+    /** F:NILL/에/0:대하^S/NILL/11:0 - 앞 어절이 '에' 로 끝나면 어간이 '대하' 인 분석을 고른다. */
+    public void testFrontRuleByStem() throws Exception {
+        Tagger tagger = new Tagger();
+        tagger.tagging("정부에", list(new AnalysisOutput("정부", "에", null, PatternConstants.PTN_NJ)));
+
+        AnalysisOutput other = new AnalysisOutput("대", "해", null, PatternConstants.PTN_NJ);
+        AnalysisOutput expected = new AnalysisOutput("대하", null, "어", PatternConstants.PTN_VM);
+
+        assertSame(expected, tagger.tagging("대해", list(other, expected)));
+    }
+
+    /** F:NILL/을,를,ㄹ/0:수^W/NILL/1:0 - 앞 어절 어미 조건이 목록이면 목록의 각 어미가 맞는다. */
+    public void testFrontRuleWithEndingList() throws Exception {
+        for (String[] front : new String[][]{{"할", null, "ㄹ"}, {"방법을", "을", null}, {"책를", "를", null}}) {
+            Tagger tagger = new Tagger();
+            tagger.tagging(front[0], list(new AnalysisOutput(front[0], front[1], front[2], PatternConstants.PTN_VM)));
+
+            AnalysisOutput other = new AnalysisOutput("수", null, null, PatternConstants.PTN_AID);
+            AnalysisOutput expected = new AnalysisOutput("수", null, null, PatternConstants.PTN_N);
+
+            assertSame(front[0], expected, tagger.tagging("수", list(other, expected)));
+        }
+    }
+
+    /** 규칙에 없는 앞 어절 어미이면 첫번째 분석 결과를 그대로 쓴다. */
+    public void testNoMatchingRuleKeepsFirst() throws Exception {
+        Tagger tagger = new Tagger();
+        tagger.tagging("하고", list(new AnalysisOutput("하", null, "고", PatternConstants.PTN_VM)));
+
+        AnalysisOutput first = new AnalysisOutput("수", null, null, PatternConstants.PTN_AID);
+        AnalysisOutput second = new AnalysisOutput("수", null, null, PatternConstants.PTN_N);
+
+        assertSame(first, tagger.tagging("수", list(first, second)));
+    }
+
+    /** R:NILL/는/0:것^S/NILL/0:0 - 뒷 어절 어간이 '것' 이면 어미가 '는' 인 앞 어절 분석을 고른다. */
+    public void testRearRuleByEnding() throws Exception {
+        AnalysisOutput other = new AnalysisOutput("하느", null, "어", PatternConstants.PTN_VM);
+        AnalysisOutput expected = new AnalysisOutput("하", null, "는", PatternConstants.PTN_VM);
+
+        AnalysisOutput selected = new Tagger().tagging("하는", "것이", list(other, expected), list(correct("것", "이", null, PatternConstants.PTN_NJ)));
+
+        assertSame(expected, selected);
+    }
+
+    /** R:메^S/지를/0:못하,안하^S/NILL/0:1 - 뒷 어절 어휘 조건이 목록이면 목록의 각 어간이 맞는다. */
+    public void testRearRuleWithWordList() throws Exception {
+        for (String rstem : new String[]{"못하", "안하"}) {
+            AnalysisOutput other = new AnalysisOutput("메지", "를", null, PatternConstants.PTN_NJ);
+            AnalysisOutput expected = new AnalysisOutput("메", null, "지를", PatternConstants.PTN_VM);
+
+            AnalysisOutput selected = new Tagger().tagging("메지를", rstem + "고", list(other, expected), list(correct(rstem, null, "고", PatternConstants.PTN_VM)));
+
+            assertSame(rstem, expected, selected);
+        }
+    }
+
+    /** 배타 규칙 (마지막 값 1) 에 맞지 않는 분석은 후보에서 빠진다. */
+    public void testExclusiveRuleRemovesCandidate() throws Exception {
+        AnalysisOutput excluded = new AnalysisOutput("메", null, "지를", PatternConstants.PTN_VM);
+        AnalysisOutput remaining = new AnalysisOutput("메지", "를", null, PatternConstants.PTN_NJ);
+        List<AnalysisOutput> pmorphs = list(excluded, remaining);
+
+        AnalysisOutput selected = new Tagger().tagging("메지를", "먹고", pmorphs, list(correct("먹", null, "고", PatternConstants.PTN_VM)));
+
+        assertSame(remaining, selected);
+        assertEquals(Arrays.asList(remaining), pmorphs);
+    }
+
+    private static List<AnalysisOutput> list(AnalysisOutput... morphs) {
+        return new ArrayList<AnalysisOutput>(Arrays.asList(morphs));
+    }
+
+    private static AnalysisOutput correct(String stem, String josa, String eomi, int patn) {
+        return new AnalysisOutput(stem, josa, eomi, patn, AnalysisOutput.SCORE_CORRECT);
+    }
 }
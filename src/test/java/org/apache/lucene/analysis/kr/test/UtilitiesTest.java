@@ -17,6 +17,7 @@
 package org.apache.lucene.analysis.kr.test;
 
 import junit.framework.TestCase;
+import org.apache.lucene.analysis.kr.utils.HanjaUtils;
 import org.apache.lucene.analysis.kr.utils.MorphUtil;
 import org.apache.lucene.analysis.kr.utils.VerbUtil;
 
@@ -58,4 +59,19 @@ public class UtilitiesTest extends TestCase {
         System.out.println(c);
     }
 
+    public void testHanjaReadings() throws Exception {
+        char[] buf = new char[HanjaUtils.MAX_READINGS + 1];
+
+        int len = HanjaUtils.convertToHangul('樂', buf, 1);
+        assertEquals("악락요", new String(buf, 1, len));
+        assertEquals('금', HanjaUtils.firstReading('金'));
+        assertEquals('일', HanjaUtils.firstReading('一'));
+
+        // 음을 모르는 문자는 그대로 돌려준다.
+        assertEquals(1, HanjaUtils.convertToHangul('a', buf, 0));
+        assertEquals('a', buf[0]);
+        assertFalse(HanjaUtils.hasReading('가'));
+        assertEquals("금김", new String(HanjaUtils.convertToHangul('金')));
+    }
+
 }